@@ -0,0 +1,233 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.apache.james.mime4j.codec.DecodeMonitor;
+import org.apache.james.mime4j.dom.field.DateTimeField;
+import org.apache.james.mime4j.field.DateTimeFieldLenientImpl;
+import org.apache.james.mime4j.field.datetime.DateTimeScanner;
+import org.apache.james.mime4j.field.datetime.parser.DateTimeParser;
+import org.apache.james.mime4j.field.datetime.parser.TokenMgrError;
+import org.apache.james.mime4j.stream.RawField;
+
+/**
+ * Compares the date-time scanner with the generated RFC 5322 parser, and the
+ * lenient <code>Date</code> field with the <code>SimpleDateFormat</code>
+ * cascade it used before the scanner was introduced.
+ * <p>
+ * By default the dates of the sample messages of the test suites are
+ * parsed. If a file is given as second argument, e.g. an mbox file, the
+ * bodies of all <code>Date</code> fields found in it are parsed instead.
+ */
+public class DateTimeParserBench {
+
+    // Date field bodies of the sample messages of the core and mbox tests
+    private static final String[] SAMPLE_DATES = {
+        "08 Feb 2003 01:58:32 +0200",
+        "Fri, 07 Feb 2003 19:21:04 +0200",
+        "Fri, 19 May 2000 21:55:02 -0400",
+        "Fri, 25 Jul 1997 06:59:46 -0500",
+        "Fri, 27 Apr 2007 16:08:23 +0200",
+        "Fri, 6 Dec 1996 15:47:51 +0100",
+        "Fri, 7 Feb 2003 18:35:25 +0200",
+        "Mon, 21 Aug 95 13:30:57 -600",
+        "Sat, 8 Feb 2003 01:41:31 +0200",
+        "Sun, 22 Dec 1996 17:21:12 -0500",
+        "Sun, 22 Dec 1996 22:24:21 +0000",
+        "Sun, 25 May 2008 15:38:13 +0100",
+        "Thu, 11 Apr 1996 01:10:30 -0500",
+        "Thu, 18 May 2000 09:12:47 -0400",
+        "Thu, 20 Jun 1996 08:35:17 +0200",
+        "Thu, 30 Apr 1998 11:28:50 EDT",
+        "Thu, 6 Jun 1996 15:50:39 +0400 (MOW DST)",
+        "Tue, 23 May 2000 19:04:10 -0700",
+        "Tue, 6 Jun 2000 03:20:11 UT",
+        "Wed, 11 Feb 98 11:51 CST",
+        "Wed, 12 Jan 2005 08:08:12 +0100 (CET)",
+        "Wed, 15 Feb 1995 09:38:18",
+        "Wed, 18 Dec 1996 18:55:21 +0100",
+        "Wed, 20 Dec 95 19:59 CST",
+        "Wed, 21 Dec 2005 22:02:44 +0100",
+        "Wed, 29 Apr 1998 15:13:20 +0200",
+        "Wed, 4 Nov 1998 13:36:14 -0200 (EDT)"
+    };
+
+    // the patterns tried by DateTimeFieldLenientImpl before the scanner
+    private static final String[] CASCADE_DATE_FORMATS = {
+        "EEE, dd MMM yy HH:mm:ss ZZZZ",
+        "dd MMM yy HH:mm:ss ZZZZ",
+        "EEE, dd MMM yy HH:mm:ss.SSS 0000",
+        "EEE, dd MMM yy HH:mm:ss 0000",
+        "EEE, dd MMM yyyy HH:mm:ss ZZZZ",
+        "dd MMM yyyy HH:mm:ss ZZZZ",
+        "EEE, dd MMM yyyy HH:mm:ss.SSS 0000",
+        "EEE, dd MMM yyyy HH:mm:ss 0000",
+        "EEE, dd MMM yy HH:mm:ss X",
+        "dd MMM yy HH:mm:ss X",
+        "EEE, dd MMM yy HH:mm:ss.SSS X",
+        "EEE, dd MMM yy HH:mm:ss X",
+        "EEE, dd MMM yyyy HH:mm:ss X",
+        "dd MMM yyyy HH:mm:ss X",
+        "EEE, dd MMM yyyy HH:mm:ss.SSS X",
+        "EEE, dd MMM yyyy HH:mm:ss X",
+    };
+
+    private static String[] dates = SAMPLE_DATES;
+
+    public static void main(String[] args) throws Exception {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        if (args.length > 1) {
+            dates = readDates(args[1]);
+        }
+
+        System.out.println("Date-time parsing.");
+        System.out.println("No of repetitions: " + repetitions);
+        System.out.println("No of distinct dates: " + dates.length);
+
+        System.out.print("Warmup... ");
+        long t0 = System.currentTimeMillis();
+        while (System.currentTimeMillis() - t0 < 1500) {
+            scanner(10000, true);
+            generated(1000);
+            scanner(10000, false);
+            lenientField(1000);
+            cascade(1000);
+        }
+        System.out.println("done");
+
+        System.out.println("--------------------------------");
+
+        System.out.println("Strict:");
+        long start = System.currentTimeMillis();
+        int recognized = scanner(repetitions, true);
+        report("DateTimeScanner", repetitions, recognized, System.currentTimeMillis() - start);
+        start = System.currentTimeMillis();
+        recognized = generated(repetitions);
+        report("DateTimeParser", repetitions, recognized, System.currentTimeMillis() - start);
+
+        System.out.println("Lenient:");
+        start = System.currentTimeMillis();
+        recognized = scanner(repetitions, false);
+        report("DateTimeScanner", repetitions, recognized, System.currentTimeMillis() - start);
+        start = System.currentTimeMillis();
+        recognized = lenientField(repetitions);
+        report("DateTimeFieldLenientImpl", repetitions, recognized, System.currentTimeMillis() - start);
+        start = System.currentTimeMillis();
+        recognized = cascade(repetitions);
+        report("SimpleDateFormat cascade", repetitions, recognized, System.currentTimeMillis() - start);
+    }
+
+    private static String[] readDates(String fileName) throws Exception {
+        List<String> list = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(fileName), "US-ASCII"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.regionMatches(true, 0, "Date:", 0, 5)) {
+                    list.add(line.substring(5).trim());
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        if (list.isEmpty()) {
+            throw new IllegalArgumentException("No Date fields found in " + fileName);
+        }
+        return list.toArray(new String[list.size()]);
+    }
+
+    private static int scanner(int repetitions, boolean strict) {
+        int recognized = 0;
+        for (int i = 0; i < repetitions; i++) {
+            if (DateTimeScanner.scan(dates[i % dates.length], strict) != DateTimeScanner.NO_DATE) {
+                recognized++;
+            }
+        }
+        return recognized;
+    }
+
+    private static int generated(int repetitions) {
+        int recognized = 0;
+        for (int i = 0; i < repetitions; i++) {
+            try {
+                new DateTimeParser(new StringReader(dates[i % dates.length])).parseAll();
+                recognized++;
+            } catch (org.apache.james.mime4j.field.datetime.parser.ParseException ignore) {
+            } catch (TokenMgrError ignore) {
+            }
+        }
+        return recognized;
+    }
+
+    private static int lenientField(int repetitions) {
+        int recognized = 0;
+        for (int i = 0; i < repetitions; i++) {
+            DateTimeField field = DateTimeFieldLenientImpl.PARSER.parse(
+                    new RawField("Date", dates[i % dates.length]), DecodeMonitor.SILENT);
+            if (field.getDate() != null) {
+                recognized++;
+            }
+        }
+        return recognized;
+    }
+
+    private static int cascade(int repetitions) {
+        int recognized = 0;
+        for (int i = 0; i < repetitions; i++) {
+            if (cascade(dates[i % dates.length]) != null) {
+                recognized++;
+            }
+        }
+        return recognized;
+    }
+
+    private static Date cascade(String body) {
+        for (String datePattern : CASCADE_DATE_FORMATS) {
+            try {
+                SimpleDateFormat parser = new SimpleDateFormat(datePattern, Locale.US);
+                parser.setTimeZone(TimeZone.getTimeZone("GMT"));
+                parser.setLenient(true);
+                return parser.parse(body);
+            } catch (ParseException ignore) {
+            }
+        }
+        return null;
+    }
+
+    private static void report(String name, int repetitions, int recognized, long millis) {
+        double seconds = millis / 1000.0;
+        System.out.printf("  %s: %f sec, %.0f dates/sec, %d%% recognized\n", name, seconds,
+                repetitions / seconds, (int) (100L * recognized / repetitions));
+    }
+
+}
@@ -0,0 +1,105 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.james.mime4j.io.EOLConvertingInputStream;
+import org.apache.james.mime4j.util.ContentUtil;
+
+public class EOLConvertingInputStreamBench {
+
+    public static void main(String[] args) throws Exception {
+        byte[] data = initData(2 * 1024 * 1024);
+
+        OutputStream nullOut = new NullOutputStream();
+
+        // warmup
+
+        for (int i = 0; i < 5; i++) {
+            copy(data, nullOut);
+            readBytes(data);
+        }
+        Thread.sleep(100);
+
+        // test
+
+        final int repetitions = 50;
+
+        long t0 = System.currentTimeMillis();
+        for (int i = 0; i < repetitions; i++) {
+            copy(data, nullOut);
+        }
+        report("read(byte[], int, int)", data, repetitions, System.currentTimeMillis() - t0);
+
+        t0 = System.currentTimeMillis();
+        for (int i = 0; i < repetitions; i++) {
+            readBytes(data);
+        }
+        report("read()", data, repetitions, System.currentTimeMillis() - t0);
+    }
+
+    /**
+     * Creates LF terminated lines of printable characters as found in mbox
+     * and maildir files.
+     */
+    private static byte[] initData(int size) {
+        Random random = new Random(size);
+        byte[] data = new byte[size];
+        int lineLength = 0;
+        for (int i = 0; i < size; i++) {
+            if (lineLength >= 20 && random.nextInt(60) == 0) {
+                data[i] = '\n';
+                lineLength = 0;
+            } else {
+                data[i] = (byte) (32 + random.nextInt(95));
+                lineLength++;
+            }
+        }
+        return data;
+    }
+
+    private static void copy(byte[] data, OutputStream out) throws IOException {
+        InputStream in = new EOLConvertingInputStream(new ByteArrayInputStream(data));
+        ContentUtil.copy(in, out);
+    }
+
+    private static void readBytes(byte[] data) throws IOException {
+        InputStream in = new EOLConvertingInputStream(new ByteArrayInputStream(data));
+        while (in.read() != -1) {
+        }
+    }
+
+    private static void report(String test, byte[] data, int repetitions, long dt) {
+        long totalBytes = data.length * (long) repetitions;
+        double mbPerSec = (totalBytes / 1024.0 / 1024) / (dt / 1000.0);
+
+        System.out.println(test);
+        System.out.println(dt + " ms");
+        System.out.println(totalBytes + " bytes");
+        System.out.println(mbPerSec + " mb/sec");
+    }
+
+}
@@ -25,8 +25,8 @@ import java.io.IOException;
 import java.io.InputStream;
 
 import org.apache.james.mime4j.dom.Header;
-import org.apache.james.mime4j.dom.MessageBuilder;
 import org.apache.james.mime4j.message.DefaultMessageBuilder;
+import org.apache.james.mime4j.message.MessageBuilderPool;
 import org.apache.james.mime4j.message.SimpleContentHandler;
 import org.apache.james.mime4j.parser.AbstractContentHandler;
 import org.apache.james.mime4j.parser.ContentHandler;
@@ -93,6 +93,8 @@ public class LongMultipartReadBench {
             return new SimpleContentHandlerTest();
         case 3:
             return new MessageTest();
+        case 4:
+            return new MessageBuilderPoolTest();
         default:
             return null;
         }
@@ -136,9 +138,9 @@ public class LongMultipartReadBench {
             ContentHandler contentHandler = new AbstractContentHandler() {
             };
 
+            MimeStreamParser parser = new MimeStreamParser();
+            parser.setContentHandler(contentHandler);
             for (int i = 0; i < repetitions; i++) {
-                MimeStreamParser parser = new MimeStreamParser();
-                parser.setContentHandler(contentHandler);
                 parser.parse(new ByteArrayInputStream(content));
             }
         }
@@ -159,10 +161,10 @@ public class LongMultipartReadBench {
                 }
             };
 
+            MimeStreamParser parser = new MimeStreamParser();
+            parser.setContentDecoding(true);
+            parser.setContentHandler(contentHandler);
             for (int i = 0; i < repetitions; i++) {
-                MimeStreamParser parser = new MimeStreamParser();
-                parser.setContentDecoding(true);
-                parser.setContentHandler(contentHandler);
                 parser.parse(new ByteArrayInputStream(content));
             }
         }
@@ -171,7 +173,8 @@ public class LongMultipartReadBench {
     private static final class MessageTest implements Test {
         public void run(byte[] content, int repetitions) throws Exception {
             DefaultStorageProvider.setInstance(new MemoryStorageProvider());
-            MessageBuilder builder = new DefaultMessageBuilder();
+            DefaultMessageBuilder builder = new DefaultMessageBuilder();
+            builder.setReuseParser(true);
 
             for (int i = 0; i < repetitions; i++) {
                 builder.parseMessage(new ByteArrayInputStream(content));
@@ -179,6 +182,17 @@ public class LongMultipartReadBench {
         }
     }
 
+    private static final class MessageBuilderPoolTest implements Test {
+        public void run(byte[] content, int repetitions) throws Exception {
+            DefaultStorageProvider.setInstance(new MemoryStorageProvider());
+            MessageBuilderPool pool = new MessageBuilderPool();
+
+            for (int i = 0; i < repetitions; i++) {
+                pool.parseMessage(new ByteArrayInputStream(content));
+            }
+        }
+    }
+
     /*
     // requires mail.jar and activation.jar to be present
     private static final class MimeMessageTest implements Test {
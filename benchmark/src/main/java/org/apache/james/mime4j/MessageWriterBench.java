@@ -0,0 +1,173 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
+import org.apache.james.mime4j.message.DefaultMessageWriter;
+
+/**
+ * Measures the throughput of writing a multipart message to an unbuffered
+ * file stream and to a file channel. The unstaged case reproduces the
+ * previous behaviour of the writer, which passed every field, line break and
+ * boundary to the target stream separately.
+ */
+public class MessageWriterBench {
+
+    public static void main(String[] args) throws Exception {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+        Message message = new DefaultMessageBuilder().parseMessage(
+                new ByteArrayInputStream(createMessage()));
+        File file = File.createTempFile("mime4j", ".eml");
+        file.deleteOnExit();
+
+        int[] bufferSizes = { 1024, 8192, 65536 };
+
+        System.out.println("Writing a multipart message.");
+        System.out.println("No of repetitions: " + repetitions);
+
+        System.out.print("Warmup... ");
+        long t0 = System.currentTimeMillis();
+        while (System.currentTimeMillis() - t0 < 1500) {
+            DefaultMessageWriter writer = new DefaultMessageWriter();
+            writeUnstaged(writer, message, file, 5);
+            writeStream(writer, message, file, 5);
+            writeChannel(writer, message, file, 5);
+        }
+        System.out.println("done");
+
+        System.out.println("--------------------------------");
+
+        long start = System.currentTimeMillis();
+        writeUnstaged(new DefaultMessageWriter(), message, file, repetitions);
+        report("unstaged stream", start, repetitions);
+
+        for (int bufferSize : bufferSizes) {
+            DefaultMessageWriter writer = new DefaultMessageWriter(bufferSize);
+
+            start = System.currentTimeMillis();
+            writeStream(writer, message, file, repetitions);
+            report("staged stream (" + bufferSize + " bytes)", start, repetitions);
+
+            start = System.currentTimeMillis();
+            writeChannel(writer, message, file, repetitions);
+            report("staged channel (" + bufferSize + " bytes)", start, repetitions);
+        }
+    }
+
+    private static void report(String label, long start, int repetitions) {
+        double seconds = (System.currentTimeMillis() - start) / 1000.0;
+        System.out.printf("%s: %f sec, %.0f messages/sec\n", label, seconds,
+                repetitions / seconds);
+    }
+
+    private static void writeUnstaged(DefaultMessageWriter writer,
+            Message message, File file, int repetitions) throws IOException {
+        for (int i = 0; i < repetitions; i++) {
+            final FileOutputStream out = new FileOutputStream(file);
+            try {
+                // the writer does not stage output to in-memory streams, so
+                // this passes every single write on to the file
+                writer.writeMessage(message, new ByteArrayOutputStream(0) {
+                    @Override
+                    public void write(int b) {
+                        try {
+                            out.write(b);
+                        } catch (IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) {
+                        try {
+                            out.write(b, off, len);
+                        } catch (IOException ex) {
+                            throw new IllegalStateException(ex);
+                        }
+                    }
+                });
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static void writeStream(DefaultMessageWriter writer,
+            Message message, File file, int repetitions) throws IOException {
+        for (int i = 0; i < repetitions; i++) {
+            OutputStream out = new FileOutputStream(file);
+            try {
+                writer.writeMessage(message, out);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static void writeChannel(DefaultMessageWriter writer,
+            Message message, File file, int repetitions) throws IOException {
+        for (int i = 0; i < repetitions; i++) {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                writer.writeMessage(message, out.getChannel());
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static byte[] createMessage() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 30; i++) {
+            sb.append("X-Header-").append(i).append(": value ").append(i).append("\r\n");
+        }
+        sb.append("Content-Type: multipart/mixed; boundary=\"part-boundary\"\r\n");
+        sb.append("\r\n");
+        for (int i = 0; i < 20; i++) {
+            sb.append("--part-boundary\r\n");
+            sb.append("Content-Type: text/plain; charset=us-ascii\r\n");
+            sb.append("Content-Transfer-Encoding: 7bit\r\n");
+            sb.append("Content-Description: part ").append(i).append("\r\n");
+            sb.append("\r\n");
+            for (int j = 0; j < 40; j++) {
+                sb.append("Line ").append(j).append(" of a text part that is long enough to matter.\r\n");
+            }
+        }
+        sb.append("--part-boundary\r\n");
+        sb.append("Content-Type: application/octet-stream\r\n");
+        sb.append("Content-Transfer-Encoding: base64\r\n");
+        sb.append("\r\n");
+        for (int j = 0; j < 400; j++) {
+            sb.append("QUJDREVGR0hJSktMTU5PUFFSU1RVVldYWVphYmNkZWZnaGlqa2xtbm9wcXJzdHV2d3h5\r\n");
+        }
+        sb.append("--part-boundary--\r\n");
+        return sb.toString().getBytes("US-ASCII");
+    }
+
+}
@@ -0,0 +1,101 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.SingleBody;
+import org.apache.james.mime4j.storage.MemoryStorageProvider;
+import org.apache.james.mime4j.storage.StorageBodyFactory;
+
+/**
+ * Measures the throughput of concurrently copying and disposing of bodies
+ * that share one reference counted storage, as happens when one message is
+ * copied per recipient by several delivery threads.
+ */
+public class StorageBodyCopyBench {
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime
+                .getRuntime().availableProcessors();
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1])
+                : 5000000;
+
+        StorageBodyFactory factory = new StorageBodyFactory(
+                new MemoryStorageProvider(), null);
+        BinaryBody body = factory.binaryBody(new ByteArrayInputStream(
+                new byte[1024]));
+
+        System.out.println("Concurrent body copy/dispose.");
+        System.out.println("No of repetitions per thread: " + repetitions);
+
+        System.out.print("Warmup... ");
+        long t0 = System.currentTimeMillis();
+        while (System.currentTimeMillis() - t0 < 1500) {
+            run(body, maxThreads, 10000);
+        }
+        System.out.println("done");
+
+        System.out.println("--------------------------------");
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long start = System.currentTimeMillis();
+            run(body, threads, repetitions);
+            long finish = System.currentTimeMillis();
+
+            double seconds = (finish - start) / 1000.0;
+            double ops = (double) threads * repetitions;
+            System.out.printf("%d thread(s): %f sec, %.0f copies/sec\n",
+                    threads, seconds, ops / seconds);
+        }
+
+        body.dispose();
+    }
+
+    private static void run(final BinaryBody body, int threads,
+            final int repetitions) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < repetitions; j++) {
+                            SingleBody copy = body.copy();
+                            copy.dispose();
+                        }
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        start.countDown();
+        done.await();
+    }
+
+}
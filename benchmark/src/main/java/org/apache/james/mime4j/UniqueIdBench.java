@@ -0,0 +1,94 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.james.mime4j.util.MimeUtil;
+
+/**
+ * Measures the throughput of concurrently creating multipart boundaries and
+ * message identifiers, as happens when several threads build outgoing
+ * messages.
+ */
+public class UniqueIdBench {
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime
+                .getRuntime().availableProcessors();
+        int repetitions = args.length > 1 ? Integer.parseInt(args[1])
+                : 2000000;
+
+        System.out.println("Concurrent boundary and message ID creation.");
+        System.out.println("No of repetitions per thread: " + repetitions);
+
+        System.out.print("Warmup... ");
+        long t0 = System.currentTimeMillis();
+        while (System.currentTimeMillis() - t0 < 1500) {
+            run(maxThreads, 10000);
+        }
+        System.out.println("done");
+
+        System.out.println("--------------------------------");
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            long start = System.currentTimeMillis();
+            run(threads, repetitions);
+            long finish = System.currentTimeMillis();
+
+            double seconds = (finish - start) / 1000.0;
+            double ops = 2.0 * threads * repetitions;
+            System.out.printf("%d thread(s): %f sec, %.0f ids/sec\n",
+                    threads, seconds, ops / seconds);
+        }
+    }
+
+    private static void run(int threads, final int repetitions)
+            throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        int length = 0;
+                        for (int j = 0; j < repetitions; j++) {
+                            length += MimeUtil.createUniqueBoundary().length();
+                            length += MimeUtil.createUniqueMessageId("example.com").length();
+                        }
+                        if (length == 0) {
+                            System.out.println("unexpected");
+                        }
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        start.countDown();
+        done.await();
+    }
+
+}
@@ -0,0 +1,141 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.codec;
+
+/**
+ * A {@link DecodeMonitor} that counts the malformed input reported while
+ * parsing, e.g. to keep per message malformation statistics. All events are
+ * passed on to another monitor which decides whether they are fatal.
+ * <p>
+ * Typed {@link DecodeEvent}s are counted without formatting them. Warnings
+ * reported as strings, e.g. by the parser itself or by the encoded word
+ * decoder, are counted as other warnings.
+ * <p>
+ * Instances are not thread safe. Use one monitor per parser and call
+ * {@link #reset()} before each message.
+ */
+public class AggregatingDecodeMonitor extends DecodeMonitor {
+
+    private static final DecodeEvent[] EVENTS = DecodeEvent.values();
+
+    private final DecodeMonitor monitor;
+    private final int[] counts;
+    private int otherCount;
+
+    /**
+     * Creates a monitor counting events and passing them on to the given
+     * monitor.
+     */
+    public AggregatingDecodeMonitor(final DecodeMonitor monitor) {
+        if (monitor == null) {
+            throw new IllegalArgumentException("Monitor may not be null");
+        }
+        this.monitor = monitor;
+        this.counts = new int[EVENTS.length];
+    }
+
+    /**
+     * Creates a monitor counting events and ignoring them otherwise.
+     */
+    public AggregatingDecodeMonitor() {
+        this(SILENT);
+    }
+
+    @Override
+    public boolean warn(DecodeEvent event, long offset, int value) {
+        counts[event.ordinal()]++;
+        return monitor.warn(event, offset, value);
+    }
+
+    @Override
+    public boolean warn(String error, String dropDesc) {
+        otherCount++;
+        return monitor.warn(error, dropDesc);
+    }
+
+    @Override
+    public boolean isListening() {
+        return true;
+    }
+
+    /**
+     * Returns the number of times the given event has been reported.
+     */
+    public int getCount(DecodeEvent event) {
+        return counts[event.ordinal()];
+    }
+
+    /**
+     * Returns the number of warnings reported as strings.
+     */
+    public int getOtherCount() {
+        return otherCount;
+    }
+
+    /**
+     * Returns the number of all events and warnings reported.
+     */
+    public int getTotalCount() {
+        int total = otherCount;
+        for (int count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns <code>true</code> if any malformed input has been reported.
+     */
+    public boolean isMalformed() {
+        return getTotalCount() > 0;
+    }
+
+    /**
+     * Resets all counts to zero.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        otherCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (DecodeEvent event : EVENTS) {
+            int count = counts[event.ordinal()];
+            if (count > 0) {
+                if (sb.length() > 1) {
+                    sb.append(", ");
+                }
+                sb.append(event).append('=').append(count);
+            }
+        }
+        if (otherCount > 0) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append("OTHER=").append(otherCount);
+        }
+        return sb.append(']').toString();
+    }
+
+}
@@ -51,6 +51,7 @@ public class Base64InputStream extends InputStream {
 
     private int position = 0; // current index into encoded buffer
     private int size = 0; // current size of encoded buffer
+    private long bufferOffset = 0; // offset of the encoded buffer in the stream
 
     private boolean closed = false;
     private boolean eof; // end of file or pad character reached
@@ -169,6 +170,7 @@ public class Base64InputStream extends InputStream {
 
                     return index == off ? EOF : index - off;
                 } else if (n > 0) {
+                    bufferOffset += size;
                     position = 0;
                     size = n;
                 } else {
@@ -189,7 +191,8 @@ public class Base64InputStream extends InputStream {
                 int decoded = BASE64_DECODE[value];
                 if (decoded < 0) { // -1: not a base64 char
                     if (value != 0x0D && value != 0x0A && value != 0x20) {
-                        if (monitor.warn("Unexpected base64 byte: "+(byte) value, "ignoring."))
+                        if (monitor.warn(DecodeEvent.BASE64_UNEXPECTED_BYTE,
+                                bufferOffset + position - 1, value))
                             throw new IOException("Unexpected base64 byte");
                     }
                     continue;
@@ -274,12 +277,13 @@ public class Base64InputStream extends InputStream {
     }
 
     private void handleUnexpectedEof(int sextets) throws IOException {
-        if (monitor.warn("Unexpected end of BASE64 stream", "dropping " + sextets + " sextet(s)"))
+        if (monitor.warn(DecodeEvent.BASE64_UNEXPECTED_END, bufferOffset + size, sextets))
             throw new IOException("Unexpected end of BASE64 stream");
     }
 
     private void handleUnexpecedPad(int sextets) throws IOException {
-        if (monitor.warn("Unexpected padding character", "dropping " + sextets + " sextet(s)"))
+        if (monitor.warn(DecodeEvent.BASE64_UNEXPECTED_PAD,
+                bufferOffset + position - 1, sextets))
             throw new IOException("Unexpected padding character");
     }
 }
@@ -0,0 +1,111 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.codec;
+
+/**
+ * Types of malformed input reported by the decoders through
+ * {@link DecodeMonitor#warn(DecodeEvent, long, int)}. Each event carries an
+ * <code>int</code> value whose meaning depends on the type; the event is only
+ * formatted into a message if a monitor asks for it.
+ */
+public enum DecodeEvent {
+
+    /** A byte that is not part of the base64 alphabet; the value is the byte. */
+    BASE64_UNEXPECTED_BYTE(null, "ignoring.") {
+        @Override
+        public String formatError(int value) {
+            return "Unexpected base64 byte: " + (byte) value;
+        }
+    },
+    /** Encoded data ended within a quantum; the value is the number of dropped sextets. */
+    BASE64_UNEXPECTED_END("Unexpected end of BASE64 stream", null) {
+        @Override
+        public String formatDropDescription(int value) {
+            return "dropping " + value + " sextet(s)";
+        }
+    },
+    /** A pad character at an invalid position; the value is the number of dropped sextets. */
+    BASE64_UNEXPECTED_PAD("Unexpected padding character", null) {
+        @Override
+        public String formatDropDescription(int value) {
+            return "dropping " + value + " sextet(s)";
+        }
+    },
+    /** Whitespace that is not at the end of a line; the value is the number of blanks. */
+    QP_IGNORED_BLANKS("ignored blanks", null) {
+        @Override
+        public String formatDropDescription(int value) {
+            return "dropping " + value + " blank(s)";
+        }
+    },
+    /** A CR not followed by LF. */
+    QP_CR_WITHOUT_LF("Found CR without LF", "Leaving it as is"),
+    /** An LF not preceded by CR. */
+    QP_LF_WITHOUT_CR("Found LF without CR", "Translating to CRLF"),
+    /**
+     * The sequence "==" followed by a line break; the value holds the two
+     * following bytes, the first one in bits 16 to 31 and the second one,
+     * or <code>-1</code> at the end of the data, in bits 0 to 15.
+     */
+    QP_UNEXPECTED_EQ_EOL("Unexpected ==EOL encountered", null) {
+        @Override
+        public String formatDropDescription(int value) {
+            return "== 0x" + (value >> 16) + " 0x" + (short) value;
+        }
+    },
+    /** The sequence "==". */
+    QP_UNEXPECTED_EQ("Unexpected == encountered", "=="),
+    /** A soft line break other than "=" CRLF; the value is the byte following "=". */
+    QP_NON_STANDARD_SOFT_BREAK("Found non-standard soft line break", "Translating to soft line break"),
+    /**
+     * An "=" not followed by two hexadecimal digits; the value holds the two
+     * following bytes, the first one in bits 8 to 15.
+     */
+    QP_MALFORMED_ENCODED_VALUE("Malformed encoded value encountered", null) {
+        @Override
+        public String formatDropDescription(int value) {
+            return "leaving =" + (char) ((value >> 8) & 0xff) + (char) (value & 0xff) + " as is";
+        }
+    };
+
+    private final String error;
+    private final String dropDesc;
+
+    private DecodeEvent(String error, String dropDesc) {
+        this.error = error;
+        this.dropDesc = dropDesc;
+    }
+
+    /**
+     * Formats a description of the error for the given event value.
+     */
+    public String formatError(int value) {
+        return error;
+    }
+
+    /**
+     * Formats a description of how the decoder handles the error for the
+     * given event value.
+     */
+    public String formatDropDescription(int value) {
+        return dropDesc;
+    }
+
+}
@@ -28,6 +28,15 @@ package org.apache.james.mime4j.codec;
  * <li>{@link #STRICT} return "true" on any occurrence</li>
  * <li>{@link #SILENT} ignores any problem</li>
  * </ul>
+ *
+ * Decoders report problems as {@link DecodeEvent}s; the event is formatted
+ * into a message only if the monitor is listening.
+ * <p>
+ * Subclasses that override {@link #warn(String, String)} must also override
+ * {@link #isListening()} to return <code>true</code>, or they will no longer
+ * be notified of problems found by the base64 and quoted-printable decoders,
+ * and their return value will no longer make those decoders fail. Earlier
+ * versions passed every decoder problem to {@link #warn(String, String)}.
  */
 public class DecodeMonitor {
 
@@ -60,4 +69,24 @@ public class DecodeMonitor {
         return false;
     }
 
+    /**
+     * Reports malformed input detected by a decoder. Unlike
+     * {@link #warn(String, String)} this method does not require the caller
+     * to build a message; the default implementation formats the event and
+     * passes it on to {@link #warn(String, String)} only if this monitor
+     * {@link #isListening() is listening}.
+     *
+     * @param event type of the malformed input.
+     * @param offset offset of the malformed input within the encoded data
+     *   or <code>-1</code> if unknown.
+     * @param value event specific value, e.g. the offending byte.
+     * @return <code>true</code> if the decoder should throw an exception.
+     */
+    public boolean warn(DecodeEvent event, long offset, int value) {
+        if (!isListening()) {
+            return false;
+        }
+        return warn(event.formatError(value), event.formatDropDescription(value));
+    }
+
 }
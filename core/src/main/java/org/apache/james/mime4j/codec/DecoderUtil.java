@@ -172,6 +172,11 @@ public class DecoderUtil {
      */
     public static String decodeEncodedWords(String body, DecodeMonitor monitor, Charset fallback)
             throws IllegalArgumentException {
+        if (body.indexOf("=?") == -1) {
+            // no encoded words, spare the regular expression
+            return body;
+        }
+
         int tailIndex = 0;
         boolean lastMatchValid = false;
 
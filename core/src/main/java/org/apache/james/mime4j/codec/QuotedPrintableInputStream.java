@@ -44,6 +44,7 @@ public class QuotedPrintableInputStream extends InputStream {
     private final byte[] encoded;
     private int pos = 0; // current index into encoded buffer
     private int limit = 0; // current size of encoded buffer
+    private long bufferOffset = 0; // offset of the encoded buffer in the stream
 
     private boolean lastWasCR = false;
     private boolean closed;
@@ -88,6 +89,7 @@ public class QuotedPrintableInputStream extends InputStream {
     }
 
     private int fillBuffer() throws IOException {
+        bufferOffset += pos;
         // Compact buffer if needed
         if (pos < limit) {
             System.arraycopy(encoded, pos, encoded, 0, limit - pos);
@@ -110,6 +112,14 @@ public class QuotedPrintableInputStream extends InputStream {
         }
     }
 
+    /**
+     * Returns the offset in the encoded stream of the byte at the given
+     * distance from the current position.
+     */
+    private long offset(int delta) {
+        return bufferOffset + pos + delta;
+    }
+
     private int getnext() {
         if (pos < limit) {
             byte b =  encoded[pos];
@@ -141,9 +151,7 @@ public class QuotedPrintableInputStream extends InputStream {
             }
             blanks.clear();
         } else if (blanks.length() > 0 && !keepblanks) {
-            StringBuilder sb = new StringBuilder(blanks.length() * 3);
-            for (int i = 0; i < blanks.length(); i++) sb.append(" ").append(blanks.byteAt(i));
-            if (monitor.warn("ignored blanks", sb.toString()))
+            if (monitor.warn(DecodeEvent.QP_IGNORED_BLANKS, offset(-1), blanks.length()))
                 throw new IOException("ignored blanks");
         }
         if (b != -1) {
@@ -185,12 +193,12 @@ public class QuotedPrintableInputStream extends InputStream {
                 int b = encoded[pos++] & 0xFF;
 
                 if (lastWasCR && b != LF) {
-                    if (monitor.warn("Found CR without LF", "Leaving it as is")) {
+                    if (monitor.warn(DecodeEvent.QP_CR_WITHOUT_LF, offset(-2), CR)) {
                         throw new IOException("Found CR without LF");
                     }
                     index = transfer(CR, buffer, index, to, false);
                 } else if (!lastWasCR && b == LF) {
-                    if (monitor.warn("Found LF without CR", "Translating to CRLF")) {
+                    if (monitor.warn(DecodeEvent.QP_LF_WITHOUT_CR, offset(-1), b)) {
                         throw new IOException("Found LF without CR");
                     }
                 }
@@ -230,16 +238,16 @@ public class QuotedPrintableInputStream extends InputStream {
                         int bb1 = peek(0);
                         int bb2 = peek(1);
                         if (bb1 == LF || (bb1 == CR && bb2 == LF)) {
-                            monitor.warn("Unexpected ==EOL encountered", "== 0x"+bb1+" 0x"+bb2);
+                            monitor.warn(DecodeEvent.QP_UNEXPECTED_EQ_EOL, offset(-2), (bb1 << 16) | (bb2 & 0xffff));
                             blanks.append(b2);
                         } else {
-                            monitor.warn("Unexpected == encountered", "==");
+                            monitor.warn(DecodeEvent.QP_UNEXPECTED_EQ, offset(-2), b2);
                         }
                     } else if (Character.isWhitespace((char) b2)) {
                         // soft line break
                         int b3 = peek(0);
                         if (!(b2 == CR && b3 == LF)) {
-                            if (monitor.warn("Found non-standard soft line break", "Translating to soft line break")) {
+                            if (monitor.warn(DecodeEvent.QP_NON_STANDARD_SOFT_BREAK, offset(-2), b2)) {
                                 throw new IOException("Non-standard soft line break");
                             }
                         }
@@ -256,7 +264,8 @@ public class QuotedPrintableInputStream extends InputStream {
                         int upper = convert(b2);
                         int lower = convert(b3);
                         if (upper < 0 || lower < 0) {
-                            monitor.warn("Malformed encoded value encountered", "leaving "+((char) EQ)+((char) b2)+((char) b3)+" as is");
+                            monitor.warn(DecodeEvent.QP_MALFORMED_ENCODED_VALUE, offset(-3),
+                                    ((b2 & 0xff) << 8) | (b3 & 0xff));
                             // TODO see MIME4J-160
                             index = transfer(EQ, buffer, index, to, true);
                             index = transfer(b2, buffer, index, to, false);
@@ -28,7 +28,8 @@ import java.io.InputStream;
  * Input buffer that can be used to search for patterns using Quick Search
  * algorithm in data read from an {@link InputStream}.
  */
-public class BufferedLineReaderInputStream extends LineReaderInputStream {
+public class BufferedLineReaderInputStream extends LineReaderInputStream
+        implements LineNumberSource {
 
     private boolean truncated;
 
@@ -43,22 +44,54 @@ public class BufferedLineReaderInputStream extends LineReaderInputStream {
     private int buflen;
 
     private final int maxLineLen;
+    private final boolean countLines;
+
+    // total number of bytes and line feeds read from the underlying stream
+    private long filled;
+    private long linesFilled;
 
     public BufferedLineReaderInputStream(
             final InputStream instream,
             int buffersize,
             int maxLineLen) {
+        this(instream, buffersize, maxLineLen, false);
+    }
+
+    /**
+     * @param countLines
+     *            whether the number of consumed line feeds should be tracked
+     *            so that it can be obtained using {@link #getLineCount()}.
+     */
+    public BufferedLineReaderInputStream(
+            final InputStream instream,
+            int buffersize,
+            int maxLineLen,
+            boolean countLines) {
+        this(instream, newBuffer(buffersize), maxLineLen, countLines);
+    }
+
+    /**
+     * Creates a stream that reads into the given buffer rather than
+     * allocating its own. The buffer may be obtained back for reuse by
+     * {@link #releaseBuffer()} once the stream is no longer needed.
+     */
+    public BufferedLineReaderInputStream(
+            final InputStream instream,
+            byte[] buffer,
+            int maxLineLen,
+            boolean countLines) {
         super(instream);
         if (instream == null) {
             throw new IllegalArgumentException("Input stream may not be null");
         }
-        if (buffersize <= 0) {
-            throw new IllegalArgumentException("Buffer size may not be negative or zero");
+        if (buffer == null || buffer.length == 0) {
+            throw new IllegalArgumentException("Buffer may not be null or empty");
         }
-        this.buffer = new byte[buffersize];
+        this.buffer = buffer;
         this.bufpos = 0;
         this.buflen = 0;
         this.maxLineLen = maxLineLen;
+        this.countLines = countLines;
         this.truncated = false;
     }
 
@@ -68,6 +101,23 @@ public class BufferedLineReaderInputStream extends LineReaderInputStream {
         this(instream, buffersize, -1);
     }
 
+    private static byte[] newBuffer(int buffersize) {
+        if (buffersize <= 0) {
+            throw new IllegalArgumentException("Buffer size may not be negative or zero");
+        }
+        return new byte[buffersize];
+    }
+
+    /**
+     * Returns the internal buffer of this stream so that it can be reused
+     * by another stream. This stream must not be used afterwards.
+     *
+     * @return the buffer of this stream.
+     */
+    public byte[] releaseBuffer() {
+        return this.tempBuffer ? this.origBuffer : this.buffer;
+    }
+
     private void expand(int newlen) {
         byte newbuffer[] = new byte[newlen];
         int len = bufferLen();
@@ -113,10 +163,72 @@ public class BufferedLineReaderInputStream extends LineReaderInputStream {
             return -1;
         } else {
             this.buflen = off + l;
+            this.filled += l;
+            if (this.countLines) {
+                this.linesFilled += countLineFeeds(this.buffer, off, this.buflen);
+            }
             return l;
         }
     }
 
+    /**
+     * Returns the number of bytes consumed from this stream so far, that is
+     * the offset of the next byte to be read relative to the start of the
+     * underlying stream. Bytes that have been pushed back using
+     * {@link #unread(ByteArrayBuffer)} are not counted as consumed.
+     */
+    public long getPosition() {
+        long position = this.filled - bufferLen();
+        if (this.tempBuffer) {
+            position -= this.origBuflen - this.origBufpos;
+        }
+        return position;
+    }
+
+    /**
+     * Returns the number of line feeds consumed from this stream so far. Only
+     * available if line counting has been enabled at construction time.
+     *
+     * @return the number of consumed line feeds or <code>-1</code> if line
+     *         counting is disabled.
+     */
+    public long getLineCount() {
+        if (!this.countLines) {
+            return -1;
+        }
+        long lines = this.linesFilled - countLineFeeds(this.buffer, this.bufpos, this.buflen);
+        if (this.tempBuffer) {
+            lines -= countLineFeeds(this.origBuffer, this.origBufpos, this.origBuflen);
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the number of line feeds read from the underlying stream so far
+     * plus one, like {@link LineNumberInputStream} placed underneath this
+     * stream would. Only available if line counting has been enabled at
+     * construction time.
+     *
+     * @return the line number or <code>-1</code> if line counting is
+     *         disabled.
+     */
+    public int getLineNumber() {
+        if (!this.countLines) {
+            return -1;
+        }
+        return (int) (this.linesFilled + 1);
+    }
+
+    static int countLineFeeds(byte[] b, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (b[i] == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
     private int bufferLen() {
         return this.buflen - this.bufpos;
     }
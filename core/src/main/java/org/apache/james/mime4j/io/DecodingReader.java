@@ -0,0 +1,199 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link Reader} that decodes the content of an {@link InputStream} on demand.
+ * Unlike {@link java.io.InputStreamReader} it does not create a new
+ * {@link CharsetDecoder} for every instance but borrows one from a pool kept
+ * per thread and returns it when the reader is closed.
+ */
+class DecodingReader extends Reader {
+
+    private static final ThreadLocal<Map<Charset, CharsetDecoder>> DECODERS =
+        new ThreadLocal<Map<Charset, CharsetDecoder>>() {
+            @Override
+            protected Map<Charset, CharsetDecoder> initialValue() {
+                return new HashMap<Charset, CharsetDecoder>();
+            }
+        };
+
+    private final InputStream in;
+    private final Charset charset;
+    private final ByteBuffer bbuf;
+    private final char[] pair = new char[2];
+
+    private CharsetDecoder decoder;
+    private int pending = -1;
+    private boolean endOfInput;
+    private boolean flushed;
+
+    DecodingReader(final InputStream in, final Charset charset, int bufferSize) {
+        super();
+        this.in = in;
+        this.charset = charset;
+        this.decoder = borrowDecoder(charset);
+        this.bbuf = ByteBuffer.allocate(bufferSize);
+        this.bbuf.flip();
+    }
+
+    private static CharsetDecoder borrowDecoder(final Charset charset) {
+        CharsetDecoder decoder = DECODERS.get().remove(charset);
+        if (decoder == null) {
+            decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        decoder.reset();
+        return decoder;
+    }
+
+    private static void releaseDecoder(final Charset charset, final CharsetDecoder decoder) {
+        DECODERS.get().put(charset, decoder);
+    }
+
+    /**
+     * Decodes into the given buffer until it is full, no more input is
+     * available without blocking or the end of the input has been reached.
+     */
+    private void decode(final CharBuffer out) throws IOException {
+        final int start = out.position();
+        while (out.hasRemaining() && !this.flushed) {
+            CoderResult result = this.decoder.decode(this.bbuf, out, this.endOfInput);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (this.endOfInput) {
+                if (this.decoder.flush(out).isOverflow()) {
+                    break;
+                }
+                this.flushed = true;
+            } else {
+                if (out.position() > start && this.in.available() <= 0) {
+                    break;
+                }
+                fillBuffer();
+            }
+        }
+    }
+
+    private void fillBuffer() throws IOException {
+        this.bbuf.compact();
+        int n = this.in.read(this.bbuf.array(), this.bbuf.arrayOffset() + this.bbuf.position(),
+                this.bbuf.remaining());
+        if (n == -1) {
+            this.endOfInput = true;
+        } else {
+            this.bbuf.position(this.bbuf.position() + n);
+        }
+        this.bbuf.flip();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (this.decoder == null) {
+            throw new IOException("Reader has been closed");
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        if (this.pending != -1) {
+            int c = this.pending;
+            this.pending = -1;
+            return c;
+        }
+        CharBuffer out = CharBuffer.wrap(this.pair);
+        while (out.position() == 0 && !this.flushed) {
+            decode(out);
+        }
+        if (out.position() == 0) {
+            return -1;
+        }
+        if (out.position() == 2) {
+            this.pending = this.pair[1];
+        }
+        return this.pair[0];
+    }
+
+    @Override
+    public int read(final char[] b, int off, int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        ensureOpen();
+        if (len == 0) {
+            return 0;
+        }
+        if (len == 1) {
+            // a surrogate pair would not fit into the buffer
+            int c = read();
+            if (c == -1) {
+                return -1;
+            }
+            b[off] = (char) c;
+            return 1;
+        }
+        CharBuffer out = CharBuffer.wrap(b, off, len);
+        if (this.pending != -1) {
+            out.put((char) this.pending);
+            this.pending = -1;
+        }
+        while (out.position() == off && !this.flushed) {
+            decode(out);
+        }
+        int charsRead = out.position() - off;
+        return charsRead > 0 ? charsRead : -1;
+    }
+
+    @Override
+    public boolean ready() throws IOException {
+        ensureOpen();
+        return this.pending != -1 || this.bbuf.hasRemaining() || this.in.available() > 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.decoder != null) {
+            releaseDecoder(this.charset, this.decoder);
+            this.decoder = null;
+            this.in.close();
+        }
+    }
+
+}
@@ -21,12 +21,15 @@ package org.apache.james.mime4j.io;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.PushbackInputStream;
 
 /**
  * InputStream which converts <code>\r</code>
  * bytes not followed by <code>\n</code> and <code>\n</code> not
  * preceded by <code>\r</code> to <code>\r\n</code>.
+ * <p>
+ * Input is read and converted block-wise: runs of bytes without line
+ * breaks are copied with {@link System#arraycopy}, and a <code>\r</code>
+ * at the end of a block is resolved when the next block is read.
  */
 public class EOLConvertingInputStream extends InputStream {
     /** Converts single '\r' to '\r\n' */
@@ -36,9 +39,25 @@ public class EOLConvertingInputStream extends InputStream {
     /** Converts single '\r' and '\n' to '\r\n' */
     public static final int CONVERT_BOTH = 3;
 
-    private PushbackInputStream in = null;
-    private int previous = 0;
-    private int flags = CONVERT_BOTH;
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private final InputStream in;
+    private final int flags;
+    private final byte[] buffer;
+    private final byte[] singleByte = new byte[1];
+
+    private int pos = 0; // current index into buffer
+    private int limit = 0; // current size of buffer
+
+    // the last byte read was a CR
+    private boolean lastWasCR = false;
+    // a CR has been converted; an immediately following LF must be dropped
+    private boolean skipLF = false;
+    // an LF has yet to be returned
+    private boolean pendingLF = false;
 
     /**
      * Creates a new <code>EOLConvertingInputStream</code>
@@ -61,8 +80,9 @@ public class EOLConvertingInputStream extends InputStream {
     public EOLConvertingInputStream(InputStream in, int flags) {
         super();
 
-        this.in = new PushbackInputStream(in, 2);
+        this.in = in;
         this.flags = flags;
+        this.buffer = new byte[DEFAULT_BUFFER_SIZE];
     }
 
     /**
@@ -80,28 +100,107 @@ public class EOLConvertingInputStream extends InputStream {
      */
     @Override
     public int read() throws IOException {
-        int b = in.read();
+        if (!pendingLF && pos < limit) {
+            byte c = buffer[pos];
+            if (c != CR && c != LF) {
+                pos++;
+                lastWasCR = false;
+                skipLF = false;
+                return c & 0xff;
+            }
+        }
+        for (;;) {
+            int n = read(singleByte, 0, 1);
+            if (n == -1) {
+                return -1;
+            }
+            if (n == 1) {
+                return singleByte[0] & 0xff;
+            }
+        }
+    }
 
-        if (b == -1) {
-            return -1;
+    /**
+     * @see java.io.InputStream#read(byte[], int, int)
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (b == null) {
+            throw new NullPointerException();
+        }
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
         }
 
-        if ((flags & CONVERT_CR) != 0 && b == '\r') {
-            int c = in.read();
-            if (c != -1) {
-                in.unread(c);
+        int index = off;
+        int end = off + len;
+        while (index < end) {
+            if (pendingLF) {
+                b[index++] = LF;
+                pendingLF = false;
+                continue;
             }
-            if (c != '\n') {
-                in.unread('\n');
+            if (pos == limit) {
+                // do not block if some data can be returned already
+                if (index > off) {
+                    break;
+                }
+                int n = in.read(buffer, 0, buffer.length);
+                if (n == -1) {
+                    return -1;
+                }
+                pos = 0;
+                limit = n;
+                continue;
             }
-        } else if ((flags & CONVERT_LF) != 0 && b == '\n' && previous != '\r') {
-            b = '\r';
-            in.unread('\n');
-        }
 
-        previous = b;
+            // copy bytes up to the next line break
+            int start = pos;
+            int max = Math.min(limit, pos + end - index);
+            while (pos < max) {
+                byte c = buffer[pos];
+                if (c == CR || c == LF) {
+                    break;
+                }
+                pos++;
+            }
+            int run = pos - start;
+            if (run > 0) {
+                System.arraycopy(buffer, start, b, index, run);
+                index += run;
+                lastWasCR = false;
+                skipLF = false;
+                continue;
+            }
+            if (pos == max) {
+                continue;
+            }
 
-        return b;
+            byte c = buffer[pos++];
+            if (c == CR) {
+                b[index++] = CR;
+                if ((flags & CONVERT_CR) != 0) {
+                    pendingLF = true;
+                    skipLF = true;
+                }
+                lastWasCR = true;
+            } else {
+                if (skipLF) {
+                    // already returned after the CR
+                } else if ((flags & CONVERT_LF) != 0 && !lastWasCR) {
+                    b[index++] = CR;
+                    pendingLF = true;
+                } else {
+                    b[index++] = LF;
+                }
+                lastWasCR = false;
+                skipLF = false;
+            }
+        }
+        return index - off;
     }
 
 }
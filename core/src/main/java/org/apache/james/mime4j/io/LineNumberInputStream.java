@@ -57,10 +57,8 @@ public class LineNumberInputStream extends FilterInputStream implements
     @Override
     public int read(byte[] b, int off, int len) throws IOException {
         int n = in.read(b, off, len);
-        for (int i = off; i < off + n; i++) {
-            if (b[i] == '\n') {
-                lineNumber++;
-            }
+        if (n > 0) {
+            lineNumber += BufferedLineReaderInputStream.countLineFeeds(b, off, off + n);
         }
         return n;
     }
@@ -52,6 +52,9 @@ public class MimeBoundaryInputStream extends LineReaderInputStream {
      */
     private int initialLength;
 
+    private long contentEnd = -1;
+    private long contentEndLine = -1;
+
     /**
      * Creates a new MimeBoundaryInputStream.
      *
@@ -297,6 +300,8 @@ public class MimeBoundaryInputStream extends LineReaderInputStream {
     private void skipBoundary() throws IOException {
         if (!completed) {
             completed = true;
+            contentEnd = buffer.getPosition();
+            contentEndLine = buffer.getLineCount();
             buffer.skip(boundaryLen);
             boolean checkForLastPart = true;
             for (;;) {
@@ -332,6 +337,28 @@ public class MimeBoundaryInputStream extends LineReaderInputStream {
         }
     }
 
+    /**
+     * Returns the position in the underlying buffer at which the content of
+     * this stream ended, that is the start of the line break preceding the
+     * boundary, or <code>-1</code> if the end of the content has not been
+     * reached yet.
+     *
+     * @see BufferedLineReaderInputStream#getPosition()
+     */
+    public long getContentEndPosition() {
+        return contentEnd;
+    }
+
+    /**
+     * Returns the number of line feeds the underlying buffer had consumed
+     * when the content of this stream ended, or <code>-1</code> if not known.
+     *
+     * @see BufferedLineReaderInputStream#getLineCount()
+     */
+    public long getContentEndLineCount() {
+        return contentEndLine;
+    }
+
     public boolean isLastPart() {
         return lastPart;
     }
@@ -0,0 +1,44 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.io;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+import org.apache.james.mime4j.Charsets;
+
+/**
+ * Factory methods for {@link Reader} instances that decode binary content on
+ * demand, reusing charset decoders where possible.
+ */
+public final class Readers {
+
+    private Readers() {
+    }
+
+    public static Reader create(final InputStream in, final Charset charset) {
+        if (in == null) {
+            throw new IllegalArgumentException("Input stream may not be null");
+        }
+        return new DecodingReader(in, charset != null ? charset : Charsets.DEFAULT_CHARSET, 4096);
+    }
+
+}
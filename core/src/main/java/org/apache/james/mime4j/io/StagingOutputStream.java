@@ -0,0 +1,220 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Output stream that stages small writes in an internal buffer and passes
+ * them on to the underlying stream or channel in large chunks. Writes that
+ * do not fit into the buffer are handed over directly; if the target is a
+ * {@link GatheringByteChannel} the staged bytes and the large write are
+ * passed on together in a single gathering write.
+ * <p>
+ * Content can be copied from an input stream straight into the staging
+ * buffer using {@link #transferFrom(InputStream)}, which avoids an
+ * additional copy buffer.
+ * <p>
+ * Channels passed to this class are expected to be in blocking mode.
+ */
+public class StagingOutputStream extends OutputStream {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+    private final byte[] buffer;
+    private final ByteBuffer[] gather;
+    private int count;
+    private boolean closed;
+
+    public StagingOutputStream(OutputStream out, int bufferSize) {
+        if (out == null) {
+            throw new IllegalArgumentException("Output stream may not be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size may not be negative or zero");
+        }
+        this.out = out;
+        this.channel = null;
+        this.buffer = new byte[bufferSize];
+        this.gather = null;
+    }
+
+    public StagingOutputStream(OutputStream out) {
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public StagingOutputStream(WritableByteChannel channel, int bufferSize) {
+        if (channel == null) {
+            throw new IllegalArgumentException("Channel may not be null");
+        }
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size may not be negative or zero");
+        }
+        this.out = null;
+        this.channel = channel;
+        this.buffer = new byte[bufferSize];
+        this.gather = channel instanceof GatheringByteChannel ? new ByteBuffer[2] : null;
+    }
+
+    public StagingOutputStream(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public int getBufferSize() {
+        return buffer.length;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len >= buffer.length) {
+            if (gather != null && count > 0) {
+                gather[0] = ByteBuffer.wrap(buffer, 0, count);
+                gather[1] = ByteBuffer.wrap(b, off, len);
+                writeFully((GatheringByteChannel) channel, gather, count + (long) len);
+                gather[0] = null;
+                gather[1] = null;
+                count = 0;
+            } else {
+                flushBuffer();
+                writeThrough(b, off, len);
+            }
+            return;
+        }
+        if (len > buffer.length - count) {
+            flushBuffer();
+        }
+        System.arraycopy(b, off, buffer, count, len);
+        count += len;
+    }
+
+    /**
+     * Copies the remaining content of the given input stream to this stream,
+     * reading directly into the staging buffer. The input stream is not
+     * closed.
+     *
+     * @param in
+     *            the stream to copy from.
+     * @return the number of bytes copied.
+     * @throws IOException
+     *             in case of an I/O error.
+     */
+    public long transferFrom(InputStream in) throws IOException {
+        ensureOpen();
+        long total = 0;
+        while (true) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            int n = in.read(buffer, count, buffer.length - count);
+            if (n == -1) {
+                return total;
+            }
+            count += n;
+            total += n;
+        }
+    }
+
+    /**
+     * Passes the staged bytes on to the underlying stream or channel without
+     * flushing the underlying stream.
+     *
+     * @throws IOException
+     *             in case of an I/O error.
+     */
+    public void flushBuffer() throws IOException {
+        if (count > 0) {
+            int n = count;
+            count = 0;
+            writeThrough(buffer, 0, n);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        flushBuffer();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flushBuffer();
+        } finally {
+            closed = true;
+            if (out != null) {
+                out.close();
+            } else {
+                channel.close();
+            }
+        }
+    }
+
+    private void writeThrough(byte[] b, int off, int len) throws IOException {
+        if (out != null) {
+            out.write(b, off, len);
+        } else {
+            ByteBuffer src = ByteBuffer.wrap(b, off, len);
+            while (src.hasRemaining()) {
+                channel.write(src);
+            }
+        }
+    }
+
+    private static void writeFully(GatheringByteChannel channel, ByteBuffer[] srcs,
+            long total) throws IOException {
+        long written = 0;
+        while (written < total) {
+            written += channel.write(srcs);
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream has been closed");
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.parser;
+
+import java.util.List;
+
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.stream.Field;
+
+/**
+ * A {@link ContentHandler} that receives the header of each entity in a
+ * single call. When the handler of a {@link MimeStreamParser} implements
+ * this interface, the parser collects the fields of a header and reports
+ * them through {@link #header(List)} instead of calling
+ * {@link #startHeader()}, {@link #field(Field)} and {@link #endHeader()}.
+ */
+public interface BatchContentHandler extends ContentHandler {
+
+    /**
+     * Called with all fields of the header of the current entity, in the
+     * order in which they appear. The fields are the raw fields produced by
+     * the parser.
+     * <p>
+     * The list is reused by the parser and is only valid for the duration
+     * of the call; implementations have to copy it if they retain it.
+     *
+     * @param fields the fields of the header.
+     * @throws MimeException on processing errors
+     */
+    void header(List<Field> fields) throws MimeException;
+
+}
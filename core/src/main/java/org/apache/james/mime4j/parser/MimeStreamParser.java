@@ -21,21 +21,27 @@ package org.apache.james.mime4j.parser;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.codec.DecodeMonitor;
 import org.apache.james.mime4j.stream.BodyDescriptor;
 import org.apache.james.mime4j.stream.BodyDescriptorBuilder;
+import org.apache.james.mime4j.stream.EntityFilter;
 import org.apache.james.mime4j.stream.EntityState;
 import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.stream.MimeConfig;
+import org.apache.james.mime4j.stream.MimeMetrics;
 import org.apache.james.mime4j.stream.MimeTokenStream;
 import org.apache.james.mime4j.stream.RecursionMode;
+import org.apache.james.mime4j.stream.StructureIndex;
 
 /**
  * <p>
  * Parses MIME (or RFC822) message streams of bytes or characters and reports
- * parsing events to a {@link ContentHandler} instance.
+ * parsing events to a {@link ContentHandler} instance. Headers are reported
+ * in one call to handlers implementing {@link BatchContentHandler}.
  * </p>
  * <p>
  * Typical usage:<br>
@@ -109,13 +115,22 @@ public class MimeStreamParser {
      */
     public void parse(InputStream instream) throws MimeException, IOException {
         MimeConfig config = mimeTokenStream.getConfig();
+        BatchContentHandler batch = handler instanceof BatchContentHandler
+                ? (BatchContentHandler) handler : null;
+        List<Field> fields = batch != null ? new ArrayList<Field>() : null;
         if (config.getHeadlessParsing() != null) {
             Field contentType = mimeTokenStream.parseHeadless(
                     instream, config.getHeadlessParsing());
             handler.startMessage();
-            handler.startHeader();
-            handler.field(contentType);
-            handler.endHeader();
+            if (batch != null) {
+                fields.add(contentType);
+                batch.header(fields);
+                fields.clear();
+            } else {
+                handler.startHeader();
+                handler.field(contentType);
+                handler.endHeader();
+            }
         } else {
             mimeTokenStream.parse(instream);
         }
@@ -136,7 +151,12 @@ public class MimeStreamParser {
                     handler.endBodyPart();
                     break;
                 case T_END_HEADER:
-                    handler.endHeader();
+                    if (batch != null) {
+                        batch.header(fields);
+                        fields.clear();
+                    } else {
+                        handler.endHeader();
+                    }
                     break;
                 case T_END_MESSAGE:
                     handler.endMessage();
@@ -150,7 +170,11 @@ public class MimeStreamParser {
                     handler.epilogue(mimeTokenStream.getInputStream());
                     break;
                 case T_FIELD:
-                    handler.field(mimeTokenStream.getField());
+                    if (batch != null) {
+                        fields.add(mimeTokenStream.getField());
+                    } else {
+                        handler.field(mimeTokenStream.getField());
+                    }
                     break;
                 case T_PREAMBLE:
                     handler.preamble(mimeTokenStream.getInputStream());
@@ -162,7 +186,9 @@ public class MimeStreamParser {
                     handler.startBodyPart();
                     break;
                 case T_START_HEADER:
-                    handler.startHeader();
+                    if (batch == null) {
+                        handler.startHeader();
+                    }
                     break;
                 case T_START_MESSAGE:
                     handler.startMessage();
@@ -215,6 +241,29 @@ public class MimeStreamParser {
         mimeTokenStream.setRecursionMode(RecursionMode.M_RECURSE);
     }
 
+    /**
+     * Sets the filter deciding which body parts and embedded messages are
+     * parsed. No events are reported for the bodies of rejected entities.
+     *
+     * @param entityFilter the entity filter or <code>null</code> to parse
+     *   all entities.
+     * @see EntityFilter
+     */
+    public void setEntityFilter(EntityFilter entityFilter) {
+        mimeTokenStream.setEntityFilter(entityFilter);
+    }
+
+    /**
+     * Sets the metrics receiving the counters and timings of this parser.
+     *
+     * @param metrics the metrics or <code>null</code> to disable
+     *   instrumentation.
+     * @see MimeMetrics
+     */
+    public void setMetrics(MimeMetrics metrics) {
+        mimeTokenStream.setMetrics(metrics);
+    }
+
     /**
      * Finishes the parsing and stops reading lines.
      * NOTE: No more lines will be parsed but the parser
@@ -231,6 +280,17 @@ public class MimeStreamParser {
         mimeTokenStream.stop();
     }
 
+    /**
+     * Returns the structure index of the last parsed message if enabled by
+     * {@link MimeConfig#isBuildStructureIndex()}.
+     *
+     * @return the structure index or <code>null</code> if disabled.
+     * @see MimeTokenStream#getStructureIndex()
+     */
+    public StructureIndex getStructureIndex() {
+        return mimeTokenStream.getStructureIndex();
+    }
+
     /**
      * Sets the <code>ContentHandler</code> to use when reporting
      * parsing events.
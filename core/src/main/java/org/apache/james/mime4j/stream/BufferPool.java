@@ -0,0 +1,58 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+/**
+ * Recycles the read buffers of the entities parsed by a
+ * {@link MimeTokenStream}, so that parsing a stream of messages with the
+ * same token stream does not allocate a new buffer per entity. Confined to
+ * the token stream it belongs to and therefore not thread safe.
+ */
+final class BufferPool {
+
+    private static final int MAX_BUFFERS = 8;
+
+    private final int bufferSize;
+    private final byte[][] buffers;
+    private int count;
+
+    BufferPool(int bufferSize) {
+        this.bufferSize = bufferSize;
+        this.buffers = new byte[MAX_BUFFERS][];
+        this.count = 0;
+    }
+
+    byte[] acquire() {
+        if (count == 0) {
+            return new byte[bufferSize];
+        }
+        byte[] buffer = buffers[--count];
+        buffers[count] = null;
+        return buffer;
+    }
+
+    void release(byte[] buffer) {
+        // buffers expanded for long lines are not worth keeping
+        if (buffer != null && buffer.length == bufferSize && count < MAX_BUFFERS) {
+            buffers[count++] = buffer;
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.james.mime4j.codec.DecodeEvent;
+
+/**
+ * {@link MimeMetrics} keeping running totals in memory. Instances are thread
+ * safe and may be shared between parsers; the totals can be polled
+ * periodically and exported to a monitoring system.
+ */
+public class CountingMimeMetrics extends MimeMetrics {
+
+    private final boolean timing;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray nanos;
+    private final ConcurrentMap<Event, AtomicLong> events;
+    private final AtomicLongArray decodeEvents;
+
+    /**
+     * Creates metrics counting values and, if <code>timing</code> is
+     * <code>true</code>, phase timings.
+     */
+    public CountingMimeMetrics(boolean timing) {
+        this.timing = timing;
+        this.counts = new AtomicLongArray(Counter.values().length);
+        this.nanos = new AtomicLongArray(Phase.values().length);
+        this.events = new ConcurrentHashMap<Event, AtomicLong>();
+        this.decodeEvents = new AtomicLongArray(DecodeEvent.values().length);
+    }
+
+    /**
+     * Creates metrics counting values but no phase timings.
+     */
+    public CountingMimeMetrics() {
+        this(false);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public boolean isTimingEnabled() {
+        return timing;
+    }
+
+    @Override
+    public void count(Counter counter, long amount) {
+        counts.addAndGet(counter.ordinal(), amount);
+    }
+
+    @Override
+    public void event(Event event) {
+        AtomicLong count = events.get(event);
+        if (count == null) {
+            AtomicLong newCount = new AtomicLong();
+            count = events.putIfAbsent(event, newCount);
+            if (count == null) {
+                count = newCount;
+            }
+        }
+        count.incrementAndGet();
+    }
+
+    @Override
+    public void event(DecodeEvent event) {
+        decodeEvents.incrementAndGet(event.ordinal());
+    }
+
+    @Override
+    public void time(Phase phase, long nanos) {
+        this.nanos.addAndGet(phase.ordinal(), nanos);
+    }
+
+    public long getCount(Counter counter) {
+        return counts.get(counter.ordinal());
+    }
+
+    /**
+     * Returns the number of times the given event has been reported.
+     */
+    public long getEventCount(Event event) {
+        AtomicLong count = events.get(event);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * Returns the number of times the given decoder event has been reported.
+     */
+    public long getEventCount(DecodeEvent event) {
+        return decodeEvents.get(event.ordinal());
+    }
+
+    /**
+     * Returns a snapshot of the reported parser events and their counts.
+     */
+    public Map<Event, Long> getEventCounts() {
+        Map<Event, Long> map = new HashMap<Event, Long>();
+        for (Map.Entry<Event, AtomicLong> entry : events.entrySet()) {
+            map.put(entry.getKey(), entry.getValue().get());
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * Returns the total time spent in the given phase in nanoseconds.
+     */
+    public long getNanos(Phase phase) {
+        return nanos.get(phase.ordinal());
+    }
+
+    /**
+     * Resets all totals to zero.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        for (int i = 0; i < nanos.length(); i++) {
+            nanos.set(i, 0);
+        }
+        for (int i = 0; i < decodeEvents.length(); i++) {
+            decodeEvents.set(i, 0);
+        }
+        events.clear();
+    }
+
+}
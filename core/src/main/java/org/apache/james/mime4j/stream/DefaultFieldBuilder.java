@@ -24,6 +24,7 @@ import java.util.BitSet;
 import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.io.MaxHeaderLengthLimitException;
 import org.apache.james.mime4j.util.ByteArrayBuffer;
+import org.apache.james.mime4j.util.ByteArraySlice;
 
 /**
  * Default implementation of {@link FieldBuilder}.
@@ -42,8 +43,14 @@ public class DefaultFieldBuilder implements FieldBuilder {
         }
     }
 
-    private final ByteArrayBuffer buf;
+    /**
+     * Once this many bytes have been handed out a new block is started.
+     */
+    private static final int BLOCK_SIZE = 4096;
+
     private final int maxlen;
+    private ByteArrayBuffer buf;
+    private int start;
 
     public DefaultFieldBuilder(int maxlen) {
         this.buf = new ByteArrayBuffer(1024);
@@ -51,7 +58,13 @@ public class DefaultFieldBuilder implements FieldBuilder {
     }
 
     public void reset() {
-        this.buf.clear();
+        if (this.start >= BLOCK_SIZE) {
+            // fields built so far keep referencing the old block
+            this.buf = new ByteArrayBuffer(BLOCK_SIZE);
+            this.start = 0;
+        } else {
+            this.buf.setLength(this.start);
+        }
     }
 
     public void append(final ByteArrayBuffer line) throws MaxHeaderLengthLimitException {
@@ -59,37 +72,60 @@ public class DefaultFieldBuilder implements FieldBuilder {
             return;
         }
         int len = line.length();
-        if (this.maxlen > 0 && this.buf.length() + len >= this.maxlen) {
+        if (this.maxlen > 0 && this.buf.length() - this.start + len >= this.maxlen) {
             throw new MaxHeaderLengthLimitException("Maximum header length limit (" + this.maxlen + ") exceeded");
         }
         this.buf.append(line.buffer(), 0, line.length());
     }
 
+    /**
+     * Builds a field backed by a slice of the block shared by consecutive
+     * fields rather than by a copy of its bytes. Name and body of the field
+     * are only created when requested.
+     */
     public RawField build() throws MimeException {
         int len = this.buf.length();
-        if (len > 0) {
+        if (len > this.start) {
             if (this.buf.byteAt(len - 1) == '\n') {
                 len --;
             }
-            if (this.buf.byteAt(len - 1) == '\r') {
+            if (len > this.start && this.buf.byteAt(len - 1) == '\r') {
                 len --;
             }
         }
-        ByteArrayBuffer copy = new ByteArrayBuffer(this.buf.buffer(), len, false);
-        RawField field = RawFieldParser.DEFAULT.parseField(copy);
-        String name = field.getName();
-        for (int i = 0; i < name.length(); i++) {
-            char ch = name.charAt(i);
-            if (!FIELD_CHARS.get(ch)) {
-                throw new MimeException("MIME field name contains illegal characters: "
-                        + field.getName());
+        ByteArraySlice slice = new ByteArraySlice(this.buf.buffer(), this.start, len - this.start);
+        RawField field = RawFieldParser.DEFAULT.parseField(slice);
+        int end = field.plainNameEnd();
+        if (end >= 0) {
+            for (int i = field.plainNameStart(); i < end; i++) {
+                if (!FIELD_CHARS.get(slice.byteAt(i) & 0xff)) {
+                    throw new MimeException("MIME field name contains illegal characters: "
+                            + field.getName());
+                }
+            }
+        } else {
+            String name = field.getName();
+            for (int i = 0; i < name.length(); i++) {
+                char ch = name.charAt(i);
+                if (!FIELD_CHARS.get(ch)) {
+                    throw new MimeException("MIME field name contains illegal characters: "
+                            + field.getName());
+                }
             }
         }
+        // the slice must not be overwritten by subsequent fields
+        this.start = this.buf.length();
         return field;
     }
 
+    /**
+     * Returns a copy of the content of the current field.
+     */
     public ByteArrayBuffer getRaw() {
-        return this.buf;
+        int len = this.buf.length() - this.start;
+        ByteArrayBuffer raw = new ByteArrayBuffer(len);
+        raw.append(this.buf.buffer(), this.start, len);
+        return raw;
     }
 
 }
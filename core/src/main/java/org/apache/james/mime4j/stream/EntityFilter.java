@@ -0,0 +1,44 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+/**
+ * Decides which nested entities of a message are parsed. The filter is
+ * consulted once the header of a body part or an embedded message has been
+ * read. The body of a rejected entity is skipped without being decoded and
+ * no events are generated for it or any of its descendants; the
+ * corresponding end event follows the end of its header immediately.
+ * <p>
+ * Note that composite entities such as <code>multipart/*</code> parts have
+ * to be accepted for the filter to be consulted on their children.
+ */
+public interface EntityFilter {
+
+    /**
+     * Determines whether the body of the entity with the given descriptor
+     * should be parsed.
+     *
+     * @param descriptor descriptor of the entity whose header has been read.
+     * @return <code>true</code> to parse the body of the entity,
+     *   <code>false</code> to skip it.
+     */
+    boolean accept(BodyDescriptor descriptor);
+
+}
@@ -117,9 +117,7 @@ class FallbackBodyDescriptorBuilder implements BodyDescriptorBuilder {
      * @param field the MIME field.
      */
     public Field addField(RawField field) throws MimeException {
-        String name = field.getName().toLowerCase(Locale.US);
-
-        if (name.equals("content-transfer-encoding") && transferEncoding == null) {
+        if (field.hasName("content-transfer-encoding") && transferEncoding == null) {
             String value = field.getBody();
             if (value != null) {
                 value = value.trim().toLowerCase(Locale.US);
@@ -127,7 +125,7 @@ class FallbackBodyDescriptorBuilder implements BodyDescriptorBuilder {
                     transferEncoding = value;
                 }
             }
-        } else if (name.equals("content-length") && contentLength == -1) {
+        } else if (field.hasName("content-length") && contentLength == -1) {
             String value = field.getBody();
             if (value != null) {
                 value = value.trim();
@@ -140,7 +138,7 @@ class FallbackBodyDescriptorBuilder implements BodyDescriptorBuilder {
                     }
                 }
             }
-        } else if (name.equals("content-type") && mimeType == null) {
+        } else if (field.hasName("content-type") && mimeType == null) {
             parseContentType(field);
         }
         return null;
@@ -0,0 +1,120 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.james.mime4j.codec.DecodeEvent;
+import org.apache.james.mime4j.codec.DecodeMonitor;
+
+/**
+ * Reports the bytes read from the wrapped stream and, if timing is enabled,
+ * the time spent reading them to {@link MimeMetrics}.
+ */
+final class MeteredInputStream extends FilterInputStream {
+
+    private final MimeMetrics metrics;
+    private final MimeMetrics.Counter counter;
+    private final MimeMetrics.Phase phase;
+
+    MeteredInputStream(InputStream in, MimeMetrics metrics,
+            MimeMetrics.Counter counter, MimeMetrics.Phase phase) {
+        super(in);
+        this.metrics = metrics;
+        this.counter = counter;
+        this.phase = metrics.isTimingEnabled() ? phase : null;
+    }
+
+    @Override
+    public int read() throws IOException {
+        long start = phase != null ? System.nanoTime() : 0;
+        int b = in.read();
+        if (phase != null) {
+            metrics.time(phase, System.nanoTime() - start);
+        }
+        if (b != -1) {
+            metrics.count(counter, 1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        long start = phase != null ? System.nanoTime() : 0;
+        int n = in.read(b, off, len);
+        if (phase != null) {
+            metrics.time(phase, System.nanoTime() - start);
+        }
+        if (n > 0) {
+            metrics.count(counter, n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = in.skip(n);
+        if (skipped > 0) {
+            metrics.count(counter, skipped);
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Counts the warnings of a decoder before passing them on.
+     */
+    static final class CountingDecodeMonitor extends DecodeMonitor {
+
+        private final DecodeMonitor monitor;
+        private final MimeMetrics metrics;
+
+        CountingDecodeMonitor(DecodeMonitor monitor, MimeMetrics metrics) {
+            this.monitor = monitor;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public boolean warn(DecodeEvent event, long offset, int value) {
+            metrics.count(MimeMetrics.Counter.MALFORMED_ENCODED_DATA, 1);
+            metrics.event(event);
+            return monitor.warn(event, offset, value);
+        }
+
+        @Override
+        public boolean warn(String error, String dropDesc) {
+            metrics.count(MimeMetrics.Counter.MALFORMED_ENCODED_DATA, 1);
+            return monitor.warn(error, dropDesc);
+        }
+
+        @Override
+        public boolean isListening() {
+            return true;
+        }
+
+    }
+
+}
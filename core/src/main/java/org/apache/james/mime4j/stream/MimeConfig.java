@@ -20,6 +20,7 @@
 package org.apache.james.mime4j.stream;
 
 import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.io.MaxMessageLimitException;
 
 /**
  * Properties used to configure the behavior of MIME stream parsers.
@@ -46,6 +47,11 @@ public final class MimeConfig {
     private final boolean countLineNumbers;
     private final String headlessParsing;
     private final boolean malformedHeaderStartsBody;
+    private final boolean buildStructureIndex;
+    private final int maxEntityCount;
+    private final int maxNestingDepth;
+    private final long maxTotalHeaderLen;
+    private final long maxMessageLen;
 
     MimeConfig(
             boolean strictParsing,
@@ -55,7 +61,12 @@ public final class MimeConfig {
             long maxContentLen,
             boolean countLineNumbers,
             String headlessParsing,
-            boolean malformedHeaderStartsBody) {
+            boolean malformedHeaderStartsBody,
+            boolean buildStructureIndex,
+            int maxEntityCount,
+            int maxNestingDepth,
+            long maxTotalHeaderLen,
+            long maxMessageLen) {
         this.strictParsing = strictParsing;
         this.countLineNumbers = countLineNumbers;
         this.malformedHeaderStartsBody = malformedHeaderStartsBody;
@@ -64,6 +75,11 @@ public final class MimeConfig {
         this.maxHeaderLen = maxHeaderLen;
         this.maxContentLen = maxContentLen;
         this.headlessParsing = headlessParsing;
+        this.buildStructureIndex = buildStructureIndex;
+        this.maxEntityCount = maxEntityCount;
+        this.maxNestingDepth = maxNestingDepth;
+        this.maxTotalHeaderLen = maxTotalHeaderLen;
+        this.maxMessageLen = maxMessageLen;
     }
 
     /**
@@ -151,6 +167,61 @@ public final class MimeConfig {
         return headlessParsing;
     }
 
+    /**
+     * Returns whether the parser builds a {@link StructureIndex}.
+     *
+     * @see Builder#setBuildStructureIndex(boolean)
+     *
+     * @return <code>true</code> if a structure index is built.
+     */
+    public boolean isBuildStructureIndex() {
+        return buildStructureIndex;
+    }
+
+    /**
+     * Returns the maximum number of entities per message
+     *
+     * @see Builder#setMaxEntityCount(int)
+     *
+     * @return value of the maximum entity count limit
+     */
+    public int getMaxEntityCount() {
+        return maxEntityCount;
+    }
+
+    /**
+     * Returns the maximum nesting depth of entities
+     *
+     * @see Builder#setMaxNestingDepth(int)
+     *
+     * @return value of the maximum nesting depth limit
+     */
+    public int getMaxNestingDepth() {
+        return maxNestingDepth;
+    }
+
+    /**
+     * Returns the maximum length of all headers of a message
+     *
+     * @see Builder#setMaxTotalHeaderLen(long)
+     *
+     * @return value of the maximum total header length limit
+     */
+    public long getMaxTotalHeaderLen() {
+        return maxTotalHeaderLen;
+    }
+
+    /**
+     * Returns the maximum message length limit
+     *
+     * @see Builder#setMaxMessageLen(long)
+     *
+     * @return value of the maximum message length limit
+     */
+    public long getMaxMessageLen() {
+        return maxMessageLen;
+    }
+
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder();
@@ -162,6 +233,11 @@ public final class MimeConfig {
                 .append(", countLineNumbers=").append(countLineNumbers)
                 .append(", headlessParsing=").append(headlessParsing)
                 .append(", malformedHeaderStartsBody=").append(malformedHeaderStartsBody)
+                .append(", buildStructureIndex=").append(buildStructureIndex)
+                .append(", maxEntityCount=").append(maxEntityCount)
+                .append(", maxNestingDepth=").append(maxNestingDepth)
+                .append(", maxTotalHeaderLen=").append(maxTotalHeaderLen)
+                .append(", maxMessageLen=").append(maxMessageLen)
                 .append("]");
         return b.toString();
     }
@@ -182,7 +258,12 @@ public final class MimeConfig {
             .setMaxContentLen(config.getMaxContentLen())
             .setCountLineNumbers(config.isCountLineNumbers())
             .setHeadlessParsing(config.getHeadlessParsing())
-            .setMalformedHeaderStartsBody(config.isMalformedHeaderStartsBody());
+            .setMalformedHeaderStartsBody(config.isMalformedHeaderStartsBody())
+            .setBuildStructureIndex(config.isBuildStructureIndex())
+            .setMaxEntityCount(config.getMaxEntityCount())
+            .setMaxNestingDepth(config.getMaxNestingDepth())
+            .setMaxTotalHeaderLen(config.getMaxTotalHeaderLen())
+            .setMaxMessageLen(config.getMaxMessageLen());
     }
 
     public static class Builder {
@@ -195,6 +276,11 @@ public final class MimeConfig {
         private boolean countLineNumbers;
         private String headlessParsing;
         private boolean malformedHeaderStartsBody;
+        private boolean buildStructureIndex;
+        private int maxEntityCount;
+        private int maxNestingDepth;
+        private long maxTotalHeaderLen;
+        private long maxMessageLen;
 
         public Builder() {
             this.strictParsing = false;
@@ -205,6 +291,10 @@ public final class MimeConfig {
             this.maxHeaderLen = 10000;
             this.maxContentLen = -1;
             this.headlessParsing = null;
+            this.maxEntityCount = -1;
+            this.maxNestingDepth = -1;
+            this.maxTotalHeaderLen = -1;
+            this.maxMessageLen = -1;
         }
 
         /**
@@ -339,6 +429,97 @@ public final class MimeConfig {
             return this;
         }
 
+        /**
+         * Defines whether the parser should record the byte offsets, line
+         * counts and content types of all entities in a
+         * {@link StructureIndex}, available from
+         * {@link MimeTokenStream#getStructureIndex()} once the end of the
+         * stream has been reached. Enabling the index makes the parser read
+         * the input up to its end even if the content of the last entity is
+         * not consumed.
+         * <p>
+         * Default value: <code>false</code>
+         *
+         * @param buildStructureIndex
+         *            whether to build a structure index.
+         */
+        public Builder setBuildStructureIndex(boolean buildStructureIndex) {
+            this.buildStructureIndex = buildStructureIndex;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of entities, i.e. the message itself, its
+         * body parts and embedded messages at any level, of a message.
+         * Parsing is terminated with a {@link MaxMessageLimitException} as
+         * soon as the limit is exceeded. If this parameter is set to a
+         * negative value the check will be disabled.
+         * <p>
+         * Default value: <code>-1</code>
+         *
+         * @param maxEntityCount
+         *            maximum entity count limit
+         */
+        public Builder setMaxEntityCount(int maxEntityCount) {
+            this.maxEntityCount = maxEntityCount;
+            return this;
+        }
+
+        /**
+         * Sets the maximum nesting depth of entities. The body parts of a
+         * multipart message and the body of an embedded message are one
+         * level deeper than their parent. Parsing is terminated with a
+         * {@link MaxMessageLimitException} as soon as the limit is exceeded.
+         * If this parameter is set to a negative value the check will be
+         * disabled.
+         * <p>
+         * Default value: <code>-1</code>
+         *
+         * @param maxNestingDepth
+         *            maximum nesting depth limit
+         */
+        public Builder setMaxNestingDepth(int maxNestingDepth) {
+            this.maxNestingDepth = maxNestingDepth;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of all header fields of a message
+         * including those of its body parts and embedded messages. The length
+         * of a field is counted like for {@link #setMaxHeaderLen(int)} but
+         * without the line terminator ending the field. Parsing is
+         * terminated with a {@link MaxMessageLimitException} as soon as the
+         * limit is exceeded. If this parameter is set to a negative value the
+         * check will be disabled.
+         * <p>
+         * Default value: <code>-1</code>
+         *
+         * @param maxTotalHeaderLen
+         *            maximum total header length limit
+         */
+        public Builder setMaxTotalHeaderLen(long maxTotalHeaderLen) {
+            this.maxTotalHeaderLen = maxTotalHeaderLen;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of a message. Reading beyond the limit
+         * fails with a {@link org.apache.james.mime4j.MimeIOException} caused
+         * by a {@link MaxMessageLimitException}. As the length of all content
+         * is bounded by the length of the message, this also bounds what a
+         * message builder stores. If this parameter is set to a negative
+         * value the check will be disabled.
+         * <p>
+         * Default value: <code>-1</code>
+         *
+         * @param maxMessageLen
+         *            maximum message length limit
+         */
+        public Builder setMaxMessageLen(long maxMessageLen) {
+            this.maxMessageLen = maxMessageLen;
+            return this;
+        }
+
         public MimeConfig build() {
             return new MimeConfig(
                     strictParsing,
@@ -348,7 +529,12 @@ public final class MimeConfig {
                     maxContentLen,
                     countLineNumbers,
                     headlessParsing,
-                    malformedHeaderStartsBody);
+                    malformedHeaderStartsBody,
+                    buildStructureIndex,
+                    maxEntityCount,
+                    maxNestingDepth,
+                    maxTotalHeaderLen,
+                    maxMessageLen);
         }
 
     }
@@ -57,12 +57,27 @@ class MimeEntity implements EntityStateMachine {
     private Field field;
     private BodyDescriptor body;
 
+    static final int BUFFER_SIZE = 4 * 1024;
+
+    private final BufferPool bufferPool;
     private RecursionMode recursionMode;
+    private EntityFilter entityFilter;
+    private MimeMetrics metrics = MimeMetrics.NONE;
+    private boolean nested;
     private MimeBoundaryInputStream currentMimePartStream;
     private LineReaderInputStreamAdaptor dataStream;
 
     private byte[] tmpbuf;
 
+    // structure index; null unless enabled
+    private StructureIndex index;
+    private StructureIndex.Part indexPart;
+    private StructureIndex.Part currentIndexChild;
+    private int indexChildCount;
+    // raw offset and line of the first byte of the input stream, -1 if unknown
+    private long sourceOffset;
+    private long sourceLine;
+
     MimeEntity(
             LineNumberSource lineSource,
             InputStream instream,
@@ -72,6 +87,20 @@ class MimeEntity implements EntityStateMachine {
             DecodeMonitor monitor,
             FieldBuilder fieldBuilder,
             BodyDescriptorBuilder bodyDescBuilder) {
+        this(lineSource, instream, config, startState, endState, monitor, fieldBuilder,
+                bodyDescBuilder, null);
+    }
+
+    MimeEntity(
+            LineNumberSource lineSource,
+            InputStream instream,
+            MimeConfig config,
+            EntityState startState,
+            EntityState endState,
+            DecodeMonitor monitor,
+            FieldBuilder fieldBuilder,
+            BodyDescriptorBuilder bodyDescBuilder,
+            BufferPool bufferPool) {
         super();
         this.config = config;
         this.state = startState;
@@ -83,11 +112,16 @@ class MimeEntity implements EntityStateMachine {
         this.lineCount = 0;
         this.endOfHeader = false;
         this.headerCount = 0;
-        this.lineSource = lineSource;
+        this.bufferPool = bufferPool;
+        // without a line number source the entity counts the lines it reads
+        // itself, saving a LineNumberInputStream between input and buffer
+        boolean countLineNumbers = lineSource == null && config.isCountLineNumbers();
         this.inbuffer = new BufferedLineReaderInputStream(
                 instream,
-                4 * 1024,
-                config.getMaxLineLen());
+                bufferPool != null ? bufferPool.acquire() : new byte[BUFFER_SIZE],
+                config.getMaxLineLen(),
+                config.isBuildStructureIndex() || countLineNumbers);
+        this.lineSource = countLineNumbers ? inbuffer : lineSource;
         this.dataStream = new LineReaderInputStreamAdaptor(
                 inbuffer,
                 config.getMaxLineLen());
@@ -145,6 +179,55 @@ class MimeEntity implements EntityStateMachine {
         return state;
     }
 
+    /**
+     * Makes this entity record its location and content type in the given
+     * part of a structure index.
+     *
+     * @param sourceOffset
+     *            offset of the first byte of the input stream within the raw
+     *            message or <code>-1</code> if the input stream does not
+     *            consist of raw message bytes.
+     * @param sourceLine
+     *            number of line feeds preceding the first byte of the input
+     *            stream or <code>-1</code> if unknown.
+     */
+    void setIndexPart(StructureIndex index, StructureIndex.Part part,
+            long sourceOffset, long sourceLine) {
+        this.index = index;
+        this.indexPart = part;
+        this.sourceOffset = sourceOffset;
+        this.sourceLine = sourceLine;
+        part.setHeaderStart(sourceOffset, sourceLine);
+        if (state == EntityState.T_END_HEADER) {
+            // headless parsing
+            part.setBodyStart(sourceOffset, sourceLine);
+        }
+    }
+
+    /**
+     * Consumes the remaining input and records the end of this entity in the
+     * structure index.
+     */
+    void completeIndex() throws IOException {
+        if (indexPart == null) {
+            return;
+        }
+        if (tmpbuf == null) {
+            tmpbuf = new byte[2048];
+        }
+        while (inbuffer.read(tmpbuf) != -1) {
+        }
+        indexPart.setEnd(rawPosition(), rawLine());
+    }
+
+    private long rawPosition() {
+        return sourceOffset < 0 ? -1 : sourceOffset + inbuffer.getPosition();
+    }
+
+    private long rawLine() {
+        return sourceLine < 0 ? -1 : sourceLine + inbuffer.getLineCount();
+    }
+
     public RecursionMode getRecursionMode() {
         return recursionMode;
     }
@@ -153,10 +236,39 @@ class MimeEntity implements EntityStateMachine {
         this.recursionMode = recursionMode;
     }
 
+    public EntityFilter getEntityFilter() {
+        return entityFilter;
+    }
+
+    /**
+     * Sets the filter consulted for the nested entities of this entity.
+     */
+    public void setEntityFilter(EntityFilter entityFilter) {
+        this.entityFilter = entityFilter;
+    }
+
+    /**
+     * Sets the metrics receiving the counters of this entity and its nested
+     * entities.
+     */
+    void setMetrics(MimeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public void stop() {
         this.inbuffer.truncate();
     }
 
+    /**
+     * Returns the read buffer of this entity to the pool it was taken from.
+     * Must only be called once the entity has been parsed completely.
+     */
+    void releaseBuffer() {
+        if (bufferPool != null) {
+            bufferPool.release(inbuffer.releaseBuffer());
+        }
+    }
+
     private int getLineNumber() {
         if (lineSource == null)
             return -1;
@@ -191,6 +303,9 @@ class MimeEntity implements EntityStateMachine {
     }
 
     protected void monitor(Event event) throws MimeException, IOException {
+        if (metrics.isEnabled()) {
+            metrics.event(event);
+        }
         if (monitor.isListening()) {
             String message = message(event);
             if (monitor.warn(message, "ignoring")) {
@@ -261,11 +376,14 @@ class MimeEntity implements EntityStateMachine {
                 if (rawfield == null) {
                     continue;
                 }
-                if (rawfield.getDelimiterIdx() != rawfield.getName().length()) {
+                if (rawfield.getDelimiterIdx() != rawfield.getNameLength()) {
                     monitor(Event.OBSOLETE_HEADER);
                 }
                 Field parsedField = bodyDescBuilder.addField(rawfield);
                 field = parsedField != null ? parsedField : rawfield;
+                if (metrics.isEnabled()) {
+                    metrics.count(MimeMetrics.Counter.FIELDS, 1);
+                }
                 return true;
             } catch (MimeException e) {
                 monitor(Event.INVALID_HEADER);
@@ -285,20 +403,37 @@ class MimeEntity implements EntityStateMachine {
     public EntityStateMachine advance() throws IOException, MimeException {
         switch (state) {
         case T_START_MESSAGE:
-            state = EntityState.T_START_HEADER;
-            break;
         case T_START_BODYPART:
+            if (metrics.isEnabled()) {
+                metrics.count(MimeMetrics.Counter.ENTITIES, 1);
+            }
             state = EntityState.T_START_HEADER;
             break;
         case T_START_HEADER:
             bodyDescBuilder.reset();
         case T_FIELD:
-            state = nextField() ? EntityState.T_FIELD : EntityState.T_END_HEADER;
+            if (metrics.isTimingEnabled()) {
+                long start = System.nanoTime();
+                boolean hasField = nextField();
+                metrics.time(MimeMetrics.Phase.HEADER, System.nanoTime() - start);
+                state = hasField ? EntityState.T_FIELD : EntityState.T_END_HEADER;
+            } else {
+                state = nextField() ? EntityState.T_FIELD : EntityState.T_END_HEADER;
+            }
+            if (indexPart != null && state == EntityState.T_END_HEADER) {
+                indexPart.setBodyStart(rawPosition(), rawLine());
+            }
             break;
         case T_END_HEADER:
             body = bodyDescBuilder.build();
+            if (indexPart != null) {
+                indexPart.setContentType(body);
+            }
             String mimeType = body.getMimeType();
-            if (recursionMode == RecursionMode.M_FLAT) {
+            if (nested && entityFilter != null && !entityFilter.accept(body)) {
+                // leave the body to be skipped by the enclosing entity
+                state = endState;
+            } else if (recursionMode == RecursionMode.M_FLAT) {
                 state = EntityState.T_BODY;
             } else if (MimeUtil.isMultipart(mimeType)) {
                 state = EntityState.T_START_MULTIPART;
@@ -329,6 +464,12 @@ class MimeEntity implements EntityStateMachine {
             // better handle missing parts.
             // Removed the T_IN_BODYPART state (always use T_PREAMBLE)
             advanceToBoundary();
+            if (currentIndexChild != null) {
+                currentIndexChild.setEnd(
+                        toRawPosition(currentMimePartStream.getContentEndPosition()),
+                        toRawLine(currentMimePartStream.getContentEndLineCount()));
+                currentIndexChild = null;
+            }
             if (currentMimePartStream.eof() && !currentMimePartStream.isLastPart()) {
                 monitor(Event.MIME_BODY_PREMATURE_END);
             } else {
@@ -389,22 +530,43 @@ class MimeEntity implements EntityStateMachine {
             if (tmpbuf == null) {
                 tmpbuf = new byte[2048];
             }
+            long start = metrics.isTimingEnabled() ? System.nanoTime() : 0;
             InputStream instream = getLimitedContentStream();
             while (instream.read(tmpbuf)!= -1) {
             }
+            if (metrics.isTimingEnabled()) {
+                metrics.time(MimeMetrics.Phase.BOUNDARY_SCAN, System.nanoTime() - start);
+            }
         }
     }
 
+    private long toRawPosition(long position) {
+        return sourceOffset < 0 || position < 0 ? -1 : sourceOffset + position;
+    }
+
+    private long toRawLine(long line) {
+        return sourceLine < 0 || line < 0 ? -1 : sourceLine + line;
+    }
+
     private EntityStateMachine nextMessage() {
         // optimize nesting of streams returning the "lower" stream instead of
         // always return dataStream (that would add a LineReaderInputStreamAdaptor in the chain)
-        InputStream instream = currentMimePartStream != null ? currentMimePartStream : inbuffer;
-        instream = decodedStream(instream);
-        return nextMimeEntity(EntityState.T_START_MESSAGE, EntityState.T_END_MESSAGE, instream);
+        InputStream rawstream = currentMimePartStream != null ? currentMimePartStream : inbuffer;
+        InputStream instream = decodedStream(rawstream);
+        EntityStateMachine next = nextMimeEntity(EntityState.T_START_MESSAGE, EntityState.T_END_MESSAGE, instream);
+        if (indexPart != null && next instanceof MimeEntity) {
+            boolean raw = instream == rawstream;
+            ((MimeEntity) next).setIndexPart(index, index.addEmbeddedMessage(indexPart),
+                    raw ? rawPosition() : -1, raw ? rawLine() : -1);
+        }
+        return next;
     }
 
     private InputStream decodedStream(InputStream instream) {
         String transferEncoding = body.getTransferEncoding();
+        if (metrics.isEnabled()) {
+            return meteredDecodedStream(instream, transferEncoding);
+        }
         if (MimeUtil.isBase64Encoding(transferEncoding)) {
             instream = new Base64InputStream(instream, monitor);
         } else if (MimeUtil.isQuotedPrintableEncoded(transferEncoding)) {
@@ -413,8 +575,25 @@ class MimeEntity implements EntityStateMachine {
         return instream;
     }
 
+    private InputStream meteredDecodedStream(InputStream instream, String transferEncoding) {
+        DecodeMonitor mon = new MeteredInputStream.CountingDecodeMonitor(monitor, metrics);
+        if (MimeUtil.isBase64Encoding(transferEncoding)) {
+            return new MeteredInputStream(new Base64InputStream(instream, mon), metrics,
+                    MimeMetrics.Counter.BYTES_DECODED_BASE64, MimeMetrics.Phase.DECODE);
+        } else if (MimeUtil.isQuotedPrintableEncoded(transferEncoding)) {
+            return new MeteredInputStream(new QuotedPrintableInputStream(instream, mon), metrics,
+                    MimeMetrics.Counter.BYTES_DECODED_QUOTED_PRINTABLE, MimeMetrics.Phase.DECODE);
+        }
+        return instream;
+    }
+
     private EntityStateMachine nextMimeEntity() {
-        return nextMimeEntity(EntityState.T_START_BODYPART, EntityState.T_END_BODYPART, currentMimePartStream);
+        EntityStateMachine next = nextMimeEntity(EntityState.T_START_BODYPART, EntityState.T_END_BODYPART, currentMimePartStream);
+        if (indexPart != null && next instanceof MimeEntity) {
+            currentIndexChild = index.addBodyPart(indexPart, ++indexChildCount);
+            ((MimeEntity) next).setIndexPart(index, currentIndexChild, rawPosition(), rawLine());
+        }
+        return next;
     }
 
     private EntityStateMachine nextMimeEntity(EntityState startState, EntityState endState, InputStream instream) {
@@ -429,8 +608,12 @@ class MimeEntity implements EntityStateMachine {
                     endState,
                     monitor,
                     fieldBuilder,
-                    bodyDescBuilder.newChild());
+                    bodyDescBuilder.newChild(),
+                    bufferPool);
             mimeentity.setRecursionMode(recursionMode);
+            mimeentity.setEntityFilter(entityFilter);
+            mimeentity.metrics = metrics;
+            mimeentity.nested = true;
             return mimeentity;
         }
     }
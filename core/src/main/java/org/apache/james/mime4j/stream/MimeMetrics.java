@@ -0,0 +1,151 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import org.apache.james.mime4j.codec.DecodeEvent;
+
+/**
+ * Receives counters and optional phase timings from the parser, the decoding
+ * streams, the message builder and the storage providers.
+ * <p>
+ * The default implementation ignores everything; {@link #NONE} is used when
+ * no metrics are configured, in which case the parser does not look at the
+ * clock and does not wrap any streams. Subclasses override the methods they
+ * are interested in and may forward the values to a metrics registry such as
+ * JMX or Micrometer. {@link CountingMimeMetrics} keeps totals in memory.
+ * <p>
+ * Implementations may be called from several threads if they are shared
+ * between parsers.
+ */
+public class MimeMetrics {
+
+    /**
+     * Counted quantities.
+     */
+    public enum Counter {
+        /** Top level messages parsed. */
+        MESSAGES("messages"),
+        /** Messages, body parts and embedded messages parsed. */
+        ENTITIES("entities"),
+        /** Header fields parsed. */
+        FIELDS("fields"),
+        /** Bytes read from the input of the parser. */
+        BYTES_SCANNED("bytes.scanned"),
+        /** Bytes produced by base64 decoding. */
+        BYTES_DECODED_BASE64("bytes.decoded.base64"),
+        /** Bytes produced by quoted-printable decoding. */
+        BYTES_DECODED_QUOTED_PRINTABLE("bytes.decoded.quoted-printable"),
+        /** Bytes written to a storage provider. */
+        BYTES_STORED("bytes.stored"),
+        /** Malformed data reported by the base64 and quoted-printable decoders. */
+        MALFORMED_ENCODED_DATA("malformed.encoded-data");
+
+        private final String name;
+
+        private Counter(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns a dotted name suitable for metrics registries.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Timed phases. Timings are wall clock nanoseconds spent inside the
+     * library and include the time spent reading the underlying input.
+     */
+    public enum Phase {
+        /** Reading and parsing header fields. */
+        HEADER("header"),
+        /** Skipping body content up to the next boundary. */
+        BOUNDARY_SCAN("boundary-scan"),
+        /** Reading from base64 and quoted-printable decoding streams. */
+        DECODE("decode"),
+        /** Building a message object from a stream. */
+        BUILD("build"),
+        /** Writing content to a storage provider. */
+        STORE("store");
+
+        private final String name;
+
+        private Phase(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Returns a name suitable for metrics registries.
+         */
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * Metrics that ignore all values.
+     */
+    public static final MimeMetrics NONE = new MimeMetrics();
+
+    /**
+     * Returns <code>true</code> if this instance wants to receive values.
+     * Callers skip all instrumentation if this method returns
+     * <code>false</code>.
+     */
+    public boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * Returns <code>true</code> if this instance wants to receive phase
+     * timings. Callers only read the clock if this method returns
+     * <code>true</code>.
+     */
+    public boolean isTimingEnabled() {
+        return false;
+    }
+
+    /**
+     * Adds the given amount to a counter.
+     */
+    public void count(Counter counter, long amount) {
+    }
+
+    /**
+     * Counts an occurrence of malformed input detected by the parser.
+     */
+    public void event(Event event) {
+    }
+
+    /**
+     * Counts an occurrence of malformed input detected by a decoder.
+     */
+    public void event(DecodeEvent event) {
+    }
+
+    /**
+     * Adds time spent in a phase.
+     */
+    public void time(Phase phase, long nanos) {
+    }
+
+}
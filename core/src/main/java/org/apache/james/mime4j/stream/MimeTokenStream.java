@@ -30,7 +30,8 @@ import java.util.LinkedList;
 import org.apache.james.mime4j.Charsets;
 import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.codec.DecodeMonitor;
-import org.apache.james.mime4j.io.LineNumberInputStream;
+import org.apache.james.mime4j.io.MaxMessageLimitException;
+import org.apache.james.mime4j.util.ByteSequence;
 import org.apache.james.mime4j.util.CharsetUtil;
 
 /**
@@ -83,11 +84,17 @@ public class MimeTokenStream {
     private final FieldBuilder fieldBuilder;
     private final BodyDescriptorBuilder bodyDescBuilder;
     private final LinkedList<EntityStateMachine> entities = new LinkedList<EntityStateMachine>();
+    private final BufferPool bufferPool = new BufferPool(MimeEntity.BUFFER_SIZE);
 
     private EntityState state = EntityState.T_END_OF_STREAM;
     private EntityStateMachine currentStateMachine;
     private RecursionMode recursionMode = RecursionMode.M_RECURSE;
+    private EntityFilter entityFilter;
+    private MimeMetrics metrics = MimeMetrics.NONE;
+    private int entityCount;
+    private long totalHeaderLen;
     private MimeEntity rootentity;
+    private StructureIndex structureIndex;
 
     /**
      * Constructs a standard (lax) stream.
@@ -179,30 +186,37 @@ public class MimeTokenStream {
     }
 
     private void doParse(InputStream stream, EntityState start) {
-        if (config.isCountLineNumbers()) {
-            LineNumberInputStream lnstream = new LineNumberInputStream(stream);
-            rootentity = new MimeEntity(
-                    lnstream,
-                    lnstream,
-                    config,
-                    start,
-                    EntityState.T_END_MESSAGE,
-                    monitor,
-                    fieldBuilder,
-                    bodyDescBuilder);
-        } else {
-            rootentity = new MimeEntity(
-                    null,
-                    stream,
-                    config,
-                    start,
-                    EntityState.T_END_MESSAGE,
-                    monitor,
-                    fieldBuilder,
-                    bodyDescBuilder);
+        if (config.getMaxMessageLen() >= 0) {
+            stream = new MessageLengthLimitInputStream(stream, config.getMaxMessageLen());
+        }
+        entityCount = 1;
+        totalHeaderLen = 0;
+        if (metrics.isEnabled()) {
+            metrics.count(MimeMetrics.Counter.MESSAGES, 1);
+            stream = new MeteredInputStream(stream, metrics,
+                    MimeMetrics.Counter.BYTES_SCANNED, null);
         }
+        // the root entity counts line numbers itself if so configured
+        rootentity = new MimeEntity(
+                null,
+                stream,
+                config,
+                start,
+                EntityState.T_END_MESSAGE,
+                monitor,
+                fieldBuilder,
+                bodyDescBuilder,
+                bufferPool);
 
         rootentity.setRecursionMode(recursionMode);
+        rootentity.setEntityFilter(entityFilter);
+        rootentity.setMetrics(metrics);
+        if (config.isBuildStructureIndex()) {
+            structureIndex = new StructureIndex();
+            rootentity.setIndexPart(structureIndex, structureIndex.addRoot(), 0, 0);
+        } else {
+            structureIndex = null;
+        }
         currentStateMachine = rootentity;
         entities.clear();
         entities.add(currentStateMachine);
@@ -251,6 +265,76 @@ public class MimeTokenStream {
         }
     }
 
+    /**
+     * Gets the filter deciding which nested entities are parsed.
+     *
+     * @return the entity filter or <code>null</code> if all entities are
+     *   parsed.
+     */
+    public EntityFilter getEntityFilter() {
+        return entityFilter;
+    }
+
+    /**
+     * Sets the filter deciding which body parts and embedded messages are
+     * parsed. Bodies of rejected entities are skipped without decoding and
+     * no events are reported for their contents. The filter takes effect
+     * with the next call to {@link #parse(InputStream)}.
+     *
+     * @param entityFilter the entity filter or <code>null</code> to parse
+     *   all entities.
+     * @see EntityFilter
+     */
+    public void setEntityFilter(EntityFilter entityFilter) {
+        this.entityFilter = entityFilter;
+    }
+
+    private void checkEntityLimits() throws MaxMessageLimitException {
+        int maxEntityCount = config.getMaxEntityCount();
+        if (maxEntityCount >= 0 && ++entityCount > maxEntityCount) {
+            throw new MaxMessageLimitException("Maximum entity count limit ("
+                    + maxEntityCount + ") exceeded");
+        }
+        int maxNestingDepth = config.getMaxNestingDepth();
+        if (maxNestingDepth >= 0 && entities.size() - 1 > maxNestingDepth) {
+            throw new MaxMessageLimitException("Maximum nesting depth limit ("
+                    + maxNestingDepth + ") exceeded");
+        }
+    }
+
+    private void checkTotalHeaderLen(Field field) throws MaxMessageLimitException {
+        ByteSequence raw = field.getRaw();
+        totalHeaderLen += raw != null ? raw.length()
+                : field.getName().length() + field.getBody().length() + 2;
+        long maxTotalHeaderLen = config.getMaxTotalHeaderLen();
+        if (totalHeaderLen > maxTotalHeaderLen) {
+            throw new MaxMessageLimitException("Maximum total header length limit ("
+                    + maxTotalHeaderLen + ") exceeded");
+        }
+    }
+
+    /**
+     * Gets the metrics receiving the counters of this stream.
+     *
+     * @return the metrics, {@link MimeMetrics#NONE} by default.
+     */
+    public MimeMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the metrics receiving message, entity, field and byte counters,
+     * malformed input events and, if enabled, phase timings. The metrics
+     * take effect with the next call to {@link #parse(InputStream)}.
+     *
+     * @param metrics the metrics or <code>null</code> to disable
+     *   instrumentation.
+     * @see MimeMetrics
+     */
+    public void setMetrics(MimeMetrics metrics) {
+        this.metrics = metrics != null ? metrics : MimeMetrics.NONE;
+    }
+
     /**
      * Finishes the parsing and stops reading lines.
      * NOTE: No more lines will be parsed but the parser
@@ -375,15 +459,24 @@ public class MimeTokenStream {
             if (next != null) {
                 entities.add(next);
                 currentStateMachine = next;
+                checkEntityLimits();
             }
             state = currentStateMachine.getState();
+            if (state == EntityState.T_FIELD && config.getMaxTotalHeaderLen() >= 0) {
+                checkTotalHeaderLen(currentStateMachine.getField());
+            }
             if (state != EntityState.T_END_OF_STREAM) {
                 return state;
             }
             entities.removeLast();
             if (entities.isEmpty()) {
+                rootentity.completeIndex();
+                rootentity.releaseBuffer();
                 currentStateMachine = null;
             } else {
+                if (currentStateMachine instanceof MimeEntity) {
+                    ((MimeEntity) currentStateMachine).releaseBuffer();
+                }
                 currentStateMachine = entities.getLast();
                 currentStateMachine.setRecursionMode(recursionMode);
             }
@@ -402,6 +495,18 @@ public class MimeTokenStream {
     }
 
 
+    /**
+     * Returns the structure index of the message being parsed if
+     * {@link MimeConfig#isBuildStructureIndex()} is enabled. The index is
+     * complete once {@link #next()} has returned
+     * {@link EntityState#T_END_OF_STREAM}.
+     *
+     * @return the structure index or <code>null</code> if disabled.
+     */
+    public StructureIndex getStructureIndex() {
+        return structureIndex;
+    }
+
     public MimeConfig getConfig() {
         return config;
     }
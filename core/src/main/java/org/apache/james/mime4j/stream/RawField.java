@@ -37,8 +37,8 @@ public final class RawField implements Field {
 
     private final ByteSequence raw;
     private final int delimiterIdx;
-    private final String name;
-    private final String body;
+    private String name;
+    private String body;
 
     RawField(ByteSequence raw, int delimiterIdx, String name, String body) {
         if (name == null) {
@@ -50,6 +50,18 @@ public final class RawField implements Field {
         this.body = body;
     }
 
+    /**
+     * Creates a field whose name and body are extracted from the raw bytes
+     * when first requested.
+     */
+    RawField(ByteSequence raw, int delimiterIdx) {
+        if (raw == null) {
+            throw new IllegalArgumentException("Raw field data may not be null");
+        }
+        this.raw = raw;
+        this.delimiterIdx = delimiterIdx;
+    }
+
     public RawField(String name, String body) {
         this(null, -1, name, body);
     }
@@ -59,7 +71,86 @@ public final class RawField implements Field {
     }
 
     public String getName() {
-        return name;
+        String s = name;
+        if (s == null) {
+            s = RawFieldParser.DEFAULT.parseToken(raw, new ParserCursor(0, delimiterIdx), null);
+            name = s;
+        }
+        return s;
+    }
+
+    /**
+     * Determines whether the name of this field equals the given name
+     * ignoring case. Plain field names are compared with the raw bytes
+     * without creating a string.
+     *
+     * @param name
+     *            the name to compare with, for example one of the constants
+     *            in <code>FieldName</code>.
+     * @return <code>true</code> if the names are equal.
+     */
+    public boolean hasName(final String name) {
+        int end = plainNameEnd();
+        if (end < 0) {
+            return getName().equalsIgnoreCase(name);
+        }
+        int start = plainNameStart();
+        if (end - start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            char c1 = (char) (raw.byteAt(start + i) & 0xff);
+            char c2 = name.charAt(i);
+            if (c1 != c2 && Character.toUpperCase(c1) != Character.toUpperCase(c2)
+                    && Character.toLowerCase(c1) != Character.toLowerCase(c2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the length of the field name without creating it if possible.
+     */
+    int getNameLength() {
+        int end = plainNameEnd();
+        if (end < 0) {
+            return getName().length();
+        }
+        return end - plainNameStart();
+    }
+
+    /**
+     * Returns the index of the first byte of a plain field name.
+     */
+    int plainNameStart() {
+        int start = 0;
+        while (start < delimiterIdx && CharsetUtil.isWhitespace((char) (raw.byteAt(start) & 0xff))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Returns the end index of the field name if it can be taken verbatim
+     * from the raw bytes, that is if it contains neither whitespace nor
+     * comments, or -1 otherwise.
+     */
+    int plainNameEnd() {
+        if (name != null || raw == null) {
+            return -1;
+        }
+        int end = delimiterIdx;
+        while (end > 0 && CharsetUtil.isWhitespace((char) (raw.byteAt(end - 1) & 0xff))) {
+            end--;
+        }
+        for (int i = plainNameStart(); i < end; i++) {
+            char ch = (char) (raw.byteAt(i) & 0xff);
+            if (ch == '(' || CharsetUtil.isWhitespace(ch)) {
+                return -1;
+            }
+        }
+        return end;
     }
 
     public String getBody() {
@@ -72,7 +163,9 @@ public final class RawField implements Field {
             if (len > off + 1 && (CharsetUtil.isWhitespace((char) (raw.byteAt(off) & 0xff)))) {
                 off++;
             }
-            return MimeUtil.unfold(ContentUtil.decode(raw, off, len - off));
+            String s = MimeUtil.unfold(raw, off, len - off);
+            body = s;
+            return s;
         }
         return null;
     }
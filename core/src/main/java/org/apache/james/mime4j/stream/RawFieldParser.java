@@ -62,6 +62,17 @@ public class RawFieldParser {
         if (raw == null) {
             return null;
         }
+        int len = raw.length();
+        for (int i = 0; i < len; i++) {
+            int ch = raw.byteAt(i);
+            if (ch == ':') {
+                // the name is created from the raw bytes when first requested
+                return new RawField(raw, i);
+            } else if (ch == '(') {
+                // comments in the name may hide the delimiter
+                break;
+            }
+        }
         ParserCursor cursor = new ParserCursor(0, raw.length());
         String name = parseToken(raw, cursor, COLON);
         if (cursor.atEnd()) {
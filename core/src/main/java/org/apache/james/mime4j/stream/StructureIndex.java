@@ -0,0 +1,258 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Map of the structure of a parsed message that records, for every entity,
+ * the byte offsets of its header and body within the raw message along with
+ * its content type information. The index is built by
+ * {@link MimeTokenStream} during a single parse if
+ * {@link MimeConfig#isBuildStructureIndex()} is enabled and makes it possible
+ * to access individual parts of a stored message without parsing it again.
+ * <p>
+ * Parts are identified by paths following the IMAP section numbering: the
+ * root entity has the empty path, the body parts of a multipart are numbered
+ * from <code>1</code> and nested parts are separated by dots
+ * (<code>2.1</code>). The message embedded in a <code>message/rfc822</code>
+ * part shares the path of that part and is available through
+ * {@link Part#getEmbeddedMessage()}; its body parts continue the numbering
+ * of the enclosing part.
+ * <p>
+ * Offsets of entities nested inside a base64 or quoted-printable encoded
+ * <code>message/rfc822</code> body cannot be expressed in terms of the raw
+ * message and are reported as <code>-1</code>.
+ */
+public final class StructureIndex implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Part> parts = new ArrayList<Part>();
+    private final Map<String, Part> partsByPath = new HashMap<String, Part>();
+
+    StructureIndex() {
+    }
+
+    /**
+     * Returns the root entity or <code>null</code> if nothing has been
+     * parsed.
+     */
+    public Part getRoot() {
+        return parts.isEmpty() ? null : parts.get(0);
+    }
+
+    /**
+     * Returns the part with the given path or <code>null</code> if there is
+     * no such part.
+     */
+    public Part getPart(String path) {
+        return partsByPath.get(path);
+    }
+
+    /**
+     * Returns all entities in the order they appear in the message.
+     */
+    public List<Part> getParts() {
+        return Collections.unmodifiableList(parts);
+    }
+
+    Part addRoot() {
+        Part part = new Part("");
+        add(part);
+        return part;
+    }
+
+    Part addBodyPart(Part parent, int number) {
+        String path = parent.path.length() == 0 ? Integer.toString(number)
+                : parent.path + "." + number;
+        Part part = new Part(path);
+        parent.children.add(part);
+        add(part);
+        return part;
+    }
+
+    Part addEmbeddedMessage(Part parent) {
+        Part part = new Part(parent.path);
+        parent.message = part;
+        parts.add(part);
+        return part;
+    }
+
+    private void add(Part part) {
+        parts.add(part);
+        partsByPath.put(part.path, part);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        for (Part part : parts) {
+            buffer.append(part).append('\n');
+        }
+        return buffer.toString();
+    }
+
+    /**
+     * Location and content type information of a single entity.
+     */
+    public static final class Part implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+        private final List<Part> children = new ArrayList<Part>(2);
+        private Part message;
+
+        private long headerOffset = -1;
+        private long headerLine = -1;
+        private long bodyOffset = -1;
+        private long bodyLine = -1;
+        private long endOffset = -1;
+        private long endLine = -1;
+
+        private String mimeType;
+        private String transferEncoding;
+        private String charset;
+
+        Part(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Returns the body parts if this entity is a multipart.
+         */
+        public List<Part> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * Returns the embedded message if this entity is of type
+         * <code>message/rfc822</code> and has been parsed recursively.
+         */
+        public Part getEmbeddedMessage() {
+            return message;
+        }
+
+        /**
+         * Returns the offset of the first byte of the header.
+         */
+        public long getHeaderOffset() {
+            return headerOffset;
+        }
+
+        /**
+         * Returns the offset of the first byte of the body, which follows the
+         * empty line terminating the header.
+         */
+        public long getBodyOffset() {
+            return bodyOffset;
+        }
+
+        /**
+         * Returns the offset following the last byte of the body. For body
+         * parts of a multipart this excludes the line break that precedes
+         * the next boundary.
+         */
+        public long getEndOffset() {
+            return endOffset;
+        }
+
+        public long getHeaderSize() {
+            return headerOffset >= 0 && bodyOffset >= 0 ? bodyOffset - headerOffset : -1;
+        }
+
+        public long getBodySize() {
+            return bodyOffset >= 0 && endOffset >= 0 ? endOffset - bodyOffset : -1;
+        }
+
+        /**
+         * Returns the number of lines of the header including the empty line
+         * terminating it.
+         */
+        public long getHeaderLines() {
+            return headerLine >= 0 && bodyLine >= 0 ? bodyLine - headerLine : -1;
+        }
+
+        /**
+         * Returns the number of line feeds in the body.
+         */
+        public long getBodyLines() {
+            return bodyLine >= 0 && endLine >= 0 ? endLine - bodyLine : -1;
+        }
+
+        public String getMimeType() {
+            return mimeType;
+        }
+
+        public String getTransferEncoding() {
+            return transferEncoding;
+        }
+
+        public String getCharset() {
+            return charset;
+        }
+
+        void setHeaderStart(long offset, long line) {
+            this.headerOffset = offset;
+            this.headerLine = line;
+        }
+
+        void setBodyStart(long offset, long line) {
+            this.bodyOffset = offset;
+            this.bodyLine = line;
+        }
+
+        void setEnd(long offset, long line) {
+            this.endOffset = offset;
+            this.endLine = line;
+            // an embedded message extends to the end of the enclosing body
+            if (message != null && message.headerOffset >= 0) {
+                message.setEnd(offset, line);
+            }
+        }
+
+        void setContentType(BodyDescriptor descriptor) {
+            this.mimeType = descriptor.getMimeType();
+            this.transferEncoding = descriptor.getTransferEncoding();
+            this.charset = descriptor.getCharset();
+        }
+
+        @Override
+        public String toString() {
+            return "[path=" + path + ", headerOffset=" + headerOffset
+                    + ", bodyOffset=" + bodyOffset + ", endOffset=" + endOffset
+                    + ", bodyLines=" + getBodyLines() + ", mimeType=" + mimeType
+                    + ", transferEncoding=" + transferEncoding
+                    + ", charset=" + charset + "]";
+        }
+
+    }
+
+}
@@ -32,6 +32,7 @@ import java.nio.CharBuffer;
 import java.nio.charset.Charset;
 
 import org.apache.james.mime4j.Charsets;
+import org.apache.james.mime4j.io.StagingOutputStream;
 
 /**
  * Utility methods for converting textual content of a message.
@@ -50,6 +51,10 @@ public class ContentUtil {
      * @throws IOException
      */
     public static void copy(final InputStream in, final OutputStream out) throws IOException {
+        if (out instanceof StagingOutputStream) {
+            ((StagingOutputStream) out).transferFrom(in);
+            return;
+        }
         final byte[] buffer = new byte[DEFAULT_COPY_BUFFER_SIZE];
         int inputLength;
         while (-1 != (inputLength = in.read(buffer))) {
@@ -208,6 +213,9 @@ public class ContentUtil {
         if (byteSequence instanceof ByteArrayBuffer) {
             ByteArrayBuffer bab = (ByteArrayBuffer) byteSequence;
             return decode(charset, bab.buffer(), offset, length);
+        } else if (byteSequence instanceof ByteArraySlice) {
+            ByteArraySlice slice = (ByteArraySlice) byteSequence;
+            return decode(charset, slice.buffer(), slice.offset() + offset, length);
         } else {
             byte[] bytes = byteSequence.toByteArray();
             return decode(charset, bytes, offset, length);
@@ -27,6 +27,7 @@ import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.Random;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.james.mime4j.codec.DecodeMonitor;
 import org.apache.james.mime4j.codec.DecoderUtil;
@@ -58,10 +59,14 @@ public final class MimeUtil {
     public static final String ENC_7BIT = "7bit";
 
     // used to create unique ids
-    private static final Random random = new Random();
+    private static final AtomicInteger counter = new AtomicInteger();
 
-    // used to create unique ids
-    private static int counter = 0;
+    private static final ThreadLocal<UniqueIdBuilder> UNIQUE_ID_BUILDER = new ThreadLocal<UniqueIdBuilder>() {
+        @Override
+        protected UniqueIdBuilder initialValue() {
+            return new UniqueIdBuilder();
+        }
+    };
 
     private MimeUtil() {
         // this is an utility class to be used statically.
@@ -120,15 +125,16 @@ public final class MimeUtil {
      * RFC 2046.)
      */
     public static String createUniqueBoundary() {
-        StringBuilder sb = new StringBuilder();
+        UniqueIdBuilder sb = UNIQUE_ID_BUILDER.get();
+        sb.reset();
         sb.append("-=Part.");
-        sb.append(Integer.toHexString(nextCounterValue()));
+        sb.appendHex(counter.getAndIncrement() & 0xffffffffL);
         sb.append('.');
-        sb.append(Long.toHexString(random.nextLong()));
+        sb.appendHex(sb.nextRandom());
         sb.append('.');
-        sb.append(Long.toHexString(System.currentTimeMillis()));
+        sb.appendHex(System.currentTimeMillis());
         sb.append('.');
-        sb.append(Long.toHexString(random.nextLong()));
+        sb.appendHex(sb.nextRandom());
         sb.append("=-");
         return sb.toString();
     }
@@ -146,12 +152,14 @@ public final class MimeUtil {
      * @return a new unique message identifier.
      */
     public static String createUniqueMessageId(String hostName) {
-        StringBuilder sb = new StringBuilder("<Mime4j.");
-        sb.append(Integer.toHexString(nextCounterValue()));
+        UniqueIdBuilder sb = UNIQUE_ID_BUILDER.get();
+        sb.reset();
+        sb.append("<Mime4j.");
+        sb.appendHex(counter.getAndIncrement() & 0xffffffffL);
         sb.append('.');
-        sb.append(Long.toHexString(random.nextLong()));
+        sb.appendHex(sb.nextRandom());
         sb.append('.');
-        sb.append(Long.toHexString(System.currentTimeMillis()));
+        sb.appendHex(System.currentTimeMillis());
         if (hostName != null) {
             sb.append('@');
             sb.append(hostName);
@@ -227,6 +235,51 @@ public final class MimeUtil {
         }
     }
 
+    /**
+     * Byte-level counterpart of {@link #fold(String, int)}. Folds the
+     * specified sequence of bytes and appends the result to the given
+     * buffer without creating any intermediate strings. Line breaks are
+     * inserted at exactly the same positions as by
+     * {@link #fold(String, int)}.
+     *
+     * @param s
+     *            sequence of bytes to split.
+     * @param usedCharacters
+     *            number of characters already used up. Usually the number of
+     *            characters for header field name plus colon and one space.
+     * @param dst
+     *            buffer the folded representation is appended to.
+     */
+    public static void fold(ByteSequence s, int usedCharacters, ByteArrayBuffer dst) {
+        final int maxCharacters = 76;
+
+        final int length = s.length();
+        if (usedCharacters + length <= maxCharacters) {
+            append(s, 0, length, dst);
+            return;
+        }
+
+        int lastLineBreak = -usedCharacters;
+        int wspIdx = indexOfWsp(s, 0);
+        while (true) {
+            if (wspIdx == length) {
+                append(s, Math.max(0, lastLineBreak), length, dst);
+                return;
+            }
+
+            int nextWspIdx = indexOfWsp(s, wspIdx + 1);
+
+            if (nextWspIdx - lastLineBreak > maxCharacters) {
+                append(s, Math.max(0, lastLineBreak), wspIdx, dst);
+                dst.append('\r');
+                dst.append('\n');
+                lastLineBreak = wspIdx;
+            }
+
+            wspIdx = nextWspIdx;
+        }
+    }
+
     /**
      * Unfold a multiple-line representation into a single line.
      *
@@ -246,6 +299,79 @@ public final class MimeUtil {
         return s;
     }
 
+    /**
+     * Byte-level counterpart of {@link #unfold(String)}. Removes all line
+     * break characters from the given region of the byte sequence and
+     * appends the remaining bytes to the given buffer.
+     *
+     * @param s
+     *            sequence of bytes to unfold.
+     * @param offset
+     *            offset into the byte sequence.
+     * @param length
+     *            number of bytes.
+     * @param dst
+     *            buffer the unfolded bytes are appended to.
+     */
+    public static void unfold(ByteSequence s, int offset, int length, ByteArrayBuffer dst) {
+        final int end = offset + length;
+        int start = offset;
+        for (int idx = offset; idx < end; idx++) {
+            byte b = s.byteAt(idx);
+            if (b == '\r' || b == '\n') {
+                append(s, start, idx, dst);
+                start = idx + 1;
+            }
+        }
+        append(s, start, end, dst);
+    }
+
+    /**
+     * Unfolds the given region of the byte sequence and decodes it using the
+     * US-ASCII charset in a single pass. The result is equal to
+     * <code>unfold(ContentUtil.decode(s, offset, length))</code> but no
+     * intermediate string is created.
+     *
+     * @param s
+     *            sequence of bytes to unfold.
+     * @param offset
+     *            offset into the byte sequence.
+     * @param length
+     *            number of bytes.
+     * @return unfolded string.
+     */
+    public static String unfold(ByteSequence s, int offset, int length) {
+        final char[] chars = new char[length];
+        int n = 0;
+        if (s instanceof ByteArraySlice || s instanceof ByteArrayBuffer) {
+            final byte[] buf;
+            final int base;
+            if (s instanceof ByteArraySlice) {
+                buf = ((ByteArraySlice) s).buffer();
+                base = ((ByteArraySlice) s).offset();
+            } else {
+                buf = ((ByteArrayBuffer) s).buffer();
+                base = 0;
+            }
+            final int end = base + offset + length;
+            for (int idx = base + offset; idx < end; idx++) {
+                int b = buf[idx] & 0xff;
+                if (b != '\r' && b != '\n') {
+                    chars[n++] = (char) b;
+                }
+            }
+        } else {
+            final int end = offset + length;
+            for (int idx = offset; idx < end; idx++) {
+                int b = s.byteAt(idx) & 0xff;
+                if (b != '\r' && b != '\n') {
+                    chars[n++] = (char) b;
+                }
+            }
+        }
+        return new String(chars, 0, n);
+    }
+
     /**
     Unfold and decode header value
      */
@@ -283,8 +409,90 @@ public final class MimeUtil {
         return len;
     }
 
-    private static synchronized int nextCounterValue() {
-        return counter++;
+    private static int indexOfWsp(ByteSequence s, int fromIndex) {
+        final int len = s.length();
+        for (int index = fromIndex; index < len; index++) {
+            byte b = s.byteAt(index);
+            if (b == ' ' || b == '\t')
+                return index;
+        }
+        return len;
+    }
+
+    private static void append(ByteSequence s, int from, int to, ByteArrayBuffer dst) {
+        if (s instanceof ByteArrayBuffer) {
+            dst.append(((ByteArrayBuffer) s).buffer(), from, to - from);
+        } else if (s instanceof ByteArraySlice) {
+            ByteArraySlice slice = (ByteArraySlice) s;
+            dst.append(slice.buffer(), slice.offset() + from, to - from);
+        } else {
+            for (int i = from; i < to; i++) {
+                dst.append(s.byteAt(i));
+            }
+        }
+    }
+
+    /**
+     * Per-thread state used to create unique identifiers: a random number
+     * generator that is not shared between threads and a reusable character
+     * buffer. Uniqueness across threads is guaranteed by the atomic counter
+     * included in every identifier.
+     */
+    private static final class UniqueIdBuilder {
+
+        private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+        private final Random random = new Random();
+        private char[] buf = new char[64];
+        private int len;
+
+        void reset() {
+            len = 0;
+        }
+
+        long nextRandom() {
+            return random.nextLong();
+        }
+
+        void append(char ch) {
+            ensureCapacity(1);
+            buf[len++] = ch;
+        }
+
+        void append(String s) {
+            int n = s.length();
+            ensureCapacity(n);
+            s.getChars(0, n, buf, len);
+            len += n;
+        }
+
+        /**
+         * Appends the given value as an unsigned hexadecimal number without
+         * leading zeros, like <code>Long.toHexString</code>.
+         */
+        void appendHex(long value) {
+            int digits = Math.max(1, (67 - Long.numberOfLeadingZeros(value)) / 4);
+            ensureCapacity(digits);
+            for (int i = len + digits - 1; i >= len; i--) {
+                buf[i] = HEX_DIGITS[(int) (value & 0xf)];
+                value >>>= 4;
+            }
+            len += digits;
+        }
+
+        private void ensureCapacity(int n) {
+            if (len + n > buf.length) {
+                char[] newbuf = new char[Math.max(buf.length << 1, len + n)];
+                System.arraycopy(buf, 0, newbuf, 0, len);
+                buf = newbuf;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf, 0, len);
+        }
+
     }
 
     private static final ThreadLocal<DateFormat> RFC822_DATE_FORMAT = new ThreadLocal<DateFormat>() {
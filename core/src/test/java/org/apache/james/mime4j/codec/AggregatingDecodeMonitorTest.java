@@ -0,0 +1,145 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.james.mime4j.io.InputStreams;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AggregatingDecodeMonitorTest {
+
+    @Test
+    public void testBase64Events() throws Exception {
+        RecordingMonitor recorder = new RecordingMonitor(true);
+        AggregatingDecodeMonitor monitor = new AggregatingDecodeMonitor(recorder);
+        decode(new Base64InputStream(InputStreams.createAscii("VGhp!cyBp\r\ncy?B0ZXN"), monitor));
+
+        Assert.assertEquals(2, monitor.getCount(DecodeEvent.BASE64_UNEXPECTED_BYTE));
+        Assert.assertEquals(1, monitor.getCount(DecodeEvent.BASE64_UNEXPECTED_END));
+        Assert.assertEquals(3, monitor.getTotalCount());
+        Assert.assertTrue(monitor.isMalformed());
+        Assert.assertEquals("[BASE64_UNEXPECTED_BYTE=2, BASE64_UNEXPECTED_END=1]", monitor.toString());
+
+        Assert.assertEquals(3, recorder.offsets.size());
+        Assert.assertEquals(Long.valueOf(4), recorder.offsets.get(0));
+        Assert.assertEquals(Long.valueOf(13), recorder.offsets.get(1));
+        Assert.assertEquals(Long.valueOf(19), recorder.offsets.get(2));
+        Assert.assertEquals("Unexpected base64 byte: 33", recorder.errors.get(0));
+        Assert.assertEquals("dropping 3 sextet(s)", recorder.dropDescs.get(2));
+
+        monitor.reset();
+        Assert.assertEquals(0, monitor.getTotalCount());
+        Assert.assertFalse(monitor.isMalformed());
+        Assert.assertEquals("[]", monitor.toString());
+    }
+
+    @Test
+    public void testQuotedPrintableEvents() throws Exception {
+        RecordingMonitor recorder = new RecordingMonitor(true);
+        AggregatingDecodeMonitor monitor = new AggregatingDecodeMonitor(recorder);
+        decode(new QuotedPrintableInputStream(
+                InputStreams.createAscii("abc=ZZdef\r\nx==y\nz"), monitor));
+
+        Assert.assertEquals(1, monitor.getCount(DecodeEvent.QP_MALFORMED_ENCODED_VALUE));
+        Assert.assertEquals(1, monitor.getCount(DecodeEvent.QP_UNEXPECTED_EQ));
+        Assert.assertEquals(1, monitor.getCount(DecodeEvent.QP_LF_WITHOUT_CR));
+        Assert.assertEquals(Long.valueOf(3), recorder.offsets.get(0));
+        Assert.assertEquals("leaving =ZZ as is", recorder.dropDescs.get(0));
+        Assert.assertEquals(Long.valueOf(12), recorder.offsets.get(1));
+        Assert.assertEquals(Long.valueOf(15), recorder.offsets.get(2));
+    }
+
+    @Test
+    public void testUnexpectedEqualsAtEndOfLine() throws Exception {
+        RecordingMonitor recorder = new RecordingMonitor(true);
+        AggregatingDecodeMonitor monitor = new AggregatingDecodeMonitor(recorder);
+        decode(new QuotedPrintableInputStream(
+                InputStreams.createAscii("a==\r\nb==\n"), monitor));
+
+        Assert.assertEquals(2, monitor.getCount(DecodeEvent.QP_UNEXPECTED_EQ_EOL));
+        Assert.assertEquals("Unexpected ==EOL encountered", recorder.errors.get(0));
+        Assert.assertEquals("== 0x13 0x10", recorder.dropDescs.get(0));
+        Assert.assertEquals("== 0x10 0x-1", recorder.dropDescs.get(1));
+    }
+
+    @Test
+    public void testOtherWarnings() throws Exception {
+        AggregatingDecodeMonitor monitor = new AggregatingDecodeMonitor();
+        DecoderUtil.decodeEncodedWords("=?x-unknown?Q?abc?=", monitor);
+        Assert.assertEquals(1, monitor.getOtherCount());
+        Assert.assertEquals(1, monitor.getTotalCount());
+        Assert.assertEquals("[OTHER=1]", monitor.toString());
+    }
+
+    @Test
+    public void testNotListening() throws Exception {
+        RecordingMonitor recorder = new RecordingMonitor(false);
+        decode(new Base64InputStream(InputStreams.createAscii("VGhp!cyBp"), recorder));
+        Assert.assertTrue(recorder.errors.isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testStrict() throws Exception {
+        AggregatingDecodeMonitor monitor = new AggregatingDecodeMonitor(DecodeMonitor.STRICT);
+        decode(new Base64InputStream(InputStreams.createAscii("VGhp!cyBp"), monitor));
+    }
+
+    private static void decode(InputStream in) throws IOException {
+        ContentUtil.buffer(in);
+    }
+
+    private static final class RecordingMonitor extends DecodeMonitor {
+
+        private final boolean listening;
+        final List<Long> offsets = new ArrayList<Long>();
+        final List<String> errors = new ArrayList<String>();
+        final List<String> dropDescs = new ArrayList<String>();
+
+        RecordingMonitor(boolean listening) {
+            this.listening = listening;
+        }
+
+        @Override
+        public boolean warn(DecodeEvent event, long offset, int value) {
+            offsets.add(offset);
+            return super.warn(event, offset, value);
+        }
+
+        @Override
+        public boolean warn(String error, String dropDesc) {
+            errors.add(error);
+            dropDescs.add(dropDesc);
+            return false;
+        }
+
+        @Override
+        public boolean isListening() {
+            return listening;
+        }
+
+    }
+
+}
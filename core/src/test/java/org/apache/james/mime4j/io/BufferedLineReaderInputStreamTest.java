@@ -38,6 +38,26 @@ public class BufferedLineReaderInputStreamTest {
         return new BufferedLineReaderInputStream(InputStreams.create(b), bufSize, maxLen);
     }
 
+    @Test
+    public void testLineNumber() throws Exception {
+        byte[] text = ContentUtil.toAsciiByteArray("a\r\nbb\r\n\r\nccc\nd\r\n");
+        BufferedLineReaderInputStream instream = new BufferedLineReaderInputStream(
+                InputStreams.create(text), 4, -1, true);
+        LineNumberInputStream reference = new LineNumberInputStream(InputStreams.create(text));
+        BufferedLineReaderInputStream refstream = new BufferedLineReaderInputStream(
+                reference, 4, -1);
+
+        Assert.assertEquals(1, instream.getLineNumber());
+        ByteArrayBuffer buf = new ByteArrayBuffer(16);
+        while (instream.readLine(buf) != -1) {
+            refstream.readLine(buf);
+            Assert.assertEquals(reference.getLineNumber(), instream.getLineNumber());
+        }
+        Assert.assertEquals(6, instream.getLineNumber());
+
+        Assert.assertEquals(-1, create(text, 4).getLineNumber());
+    }
+
     @Test
     public void testBasicOperations() throws Exception {
         String text = "ah blahblah";
@@ -19,7 +19,11 @@
 
 package org.apache.james.mime4j.io;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
 
 import org.apache.james.mime4j.util.ContentUtil;
 import org.junit.Assert;
@@ -62,6 +66,89 @@ public class EOLConvertingInputStreamTest {
         testConvertLF("", "");
     }
 
+    @Test
+    public void testBulkReadAcrossBufferBoundaries() throws IOException {
+        Random random = new Random(4711);
+        byte[] alphabet = { '\r', '\n', 'a', 'b' };
+        int[] flags = { EOLConvertingInputStream.CONVERT_CR,
+                EOLConvertingInputStream.CONVERT_LF,
+                EOLConvertingInputStream.CONVERT_BOTH };
+        for (int i = 0; i < 200; i++) {
+            byte[] data = new byte[random.nextInt(10000)];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            for (int flag : flags) {
+                byte[] expected = convert(data, flag);
+                int chunk = 1 + random.nextInt(5000);
+                InputStream in = new EOLConvertingInputStream(
+                        new SlowInputStream(data, 1 + random.nextInt(5000)), flag);
+                Assert.assertArrayEquals(expected, readAll(in, chunk));
+
+                in = new EOLConvertingInputStream(new ByteArrayInputStream(data), flag);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                for (int b = in.read(); b != -1; b = in.read()) {
+                    out.write(b);
+                }
+                Assert.assertArrayEquals(expected, out.toByteArray());
+            }
+        }
+    }
+
+    private static byte[] readAll(InputStream in, int chunk) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[chunk];
+        int n;
+        while ((n = in.read(buf, 0, buf.length)) != -1) {
+            Assert.assertTrue(n > 0);
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    // the per-byte conversion of the original implementation
+    private static byte[] convert(byte[] data, int flags) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int previous = 0;
+        for (int i = 0; i < data.length; i++) {
+            int b = data[i];
+            if ((flags & EOLConvertingInputStream.CONVERT_CR) != 0 && b == '\r') {
+                out.write(b);
+                if (i + 1 >= data.length || data[i + 1] != '\n') {
+                    out.write('\n');
+                    b = '\n';
+                }
+            } else if ((flags & EOLConvertingInputStream.CONVERT_LF) != 0 && b == '\n'
+                    && previous != '\r') {
+                out.write('\r');
+                out.write('\n');
+            } else {
+                out.write(b);
+            }
+            previous = b;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns at most the given number of bytes per read.
+     */
+    private static final class SlowInputStream extends ByteArrayInputStream {
+
+        private final int max;
+
+        SlowInputStream(byte[] data, int max) {
+            super(data);
+            this.max = max;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, max));
+        }
+
+    }
+
     private void testConvertBoth(String s1, String s2) throws IOException {
         byte[] bytes = new byte[1024];
 
@@ -0,0 +1,140 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+
+import org.apache.james.mime4j.Charsets;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ReadersTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static String read(Reader reader, int bufSize) throws IOException {
+        StringWriter out = new StringWriter();
+        char[] buf = new char[bufSize];
+        int n;
+        while ((n = reader.read(buf)) != -1) {
+            out.write(buf, 0, n);
+        }
+        reader.close();
+        return out.toString();
+    }
+
+    private static String readSingle(Reader reader) throws IOException {
+        StringWriter out = new StringWriter();
+        int c;
+        while ((c = reader.read()) != -1) {
+            out.write(c);
+        }
+        reader.close();
+        return out.toString();
+    }
+
+    @Test
+    public void testDecodeUtf8() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 3000; i++) {
+            sb.append("Grüezi € 𝄞 ");
+        }
+        String s = sb.toString();
+        byte[] b = s.getBytes("UTF-8");
+
+        Assert.assertEquals(s, read(Readers.create(new ByteArrayInputStream(b), UTF_8), 1024));
+        Assert.assertEquals(s, read(Readers.create(new ByteArrayInputStream(b), UTF_8), 2));
+        Assert.assertEquals(s, read(Readers.create(new ByteArrayInputStream(b), UTF_8), 1));
+        Assert.assertEquals(s, readSingle(Readers.create(new ByteArrayInputStream(b), UTF_8)));
+    }
+
+    @Test
+    public void testDecodeFromSlowStream() throws Exception {
+        String s = "äöü 𝄞 €";
+        final byte[] b = s.getBytes("UTF-8");
+        InputStream slow = new InputStream() {
+            private int pos;
+
+            @Override
+            public int read() throws IOException {
+                return pos < b.length ? b[pos++] & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] buf, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                int c = read();
+                if (c == -1) {
+                    return -1;
+                }
+                buf[off] = (byte) c;
+                return 1;
+            }
+        };
+        Assert.assertEquals(s, read(Readers.create(slow, UTF_8), 16));
+    }
+
+    @Test
+    public void testMalformedInputIsReplaced() throws Exception {
+        byte[] b = new byte[] { 'a', (byte) 0xff, 'b', (byte) 0xc3 };
+        Assert.assertEquals("a�b�", read(Readers.create(new ByteArrayInputStream(b), UTF_8), 16));
+    }
+
+    @Test
+    public void testEmptyInput() throws Exception {
+        Reader reader = Readers.create(new ByteArrayInputStream(new byte[0]), Charsets.US_ASCII);
+        Assert.assertEquals(-1, reader.read());
+        Assert.assertEquals(-1, reader.read(new char[10], 0, 10));
+        reader.close();
+    }
+
+    @Test
+    public void testConcurrentReadersOnSameThread() throws Exception {
+        Reader r1 = Readers.create(new ByteArrayInputStream("ää".getBytes("UTF-8")), UTF_8);
+        Reader r2 = Readers.create(new ByteArrayInputStream("öö".getBytes("UTF-8")), UTF_8);
+        Assert.assertEquals('ä', r1.read());
+        Assert.assertEquals('ö', r2.read());
+        Assert.assertEquals('ä', r1.read());
+        Assert.assertEquals('ö', r2.read());
+        r1.close();
+        r2.close();
+
+        // decoders returned to the pool are reset before being used again
+        Reader r3 = Readers.create(new ByteArrayInputStream(new byte[] { (byte) 0xc3 }), UTF_8);
+        Assert.assertEquals("�", read(r3, 4));
+        Reader r4 = Readers.create(new ByteArrayInputStream("x".getBytes("UTF-8")), UTF_8);
+        Assert.assertEquals("x", read(r4, 4));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadAfterClose() throws Exception {
+        Reader reader = Readers.create(new ByteArrayInputStream(new byte[1]), Charsets.US_ASCII);
+        reader.close();
+        reader.read();
+    }
+
+}
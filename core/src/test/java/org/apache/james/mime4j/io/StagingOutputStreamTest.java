@@ -0,0 +1,139 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StagingOutputStreamTest {
+
+    @Test
+    public void testSmallWritesAreStaged() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        StagingOutputStream out = new StagingOutputStream(target, 8);
+        out.write('a');
+        out.write(new byte[] { 'b', 'c', 'd' }, 0, 3);
+        Assert.assertEquals(0, target.size());
+        out.write(new byte[] { 'e', 'f', 'g', 'h', 'i' }, 0, 5);
+        Assert.assertEquals("abcd", target.toString("US-ASCII"));
+        out.flushBuffer();
+        Assert.assertEquals("abcdefghi", target.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testLargeWritesBypassBuffer() throws IOException {
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        StagingOutputStream out = new StagingOutputStream(target, 4);
+        out.write('x');
+        out.write("0123456789".getBytes("US-ASCII"), 2, 6);
+        Assert.assertEquals("x234567", target.toString("US-ASCII"));
+    }
+
+    @Test
+    public void testTransferFrom() throws IOException {
+        byte[] data = new byte[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        ByteArrayOutputStream target = new ByteArrayOutputStream();
+        StagingOutputStream out = new StagingOutputStream(Channels.newChannel(target), 64);
+        out.write('x');
+        Assert.assertEquals(data.length, out.transferFrom(InputStreams.create(data)));
+        out.flush();
+        byte[] written = target.toByteArray();
+        Assert.assertEquals(data.length + 1, written.length);
+        Assert.assertEquals('x', written[0]);
+        for (int i = 0; i < data.length; i++) {
+            Assert.assertEquals(data[i], written[i + 1]);
+        }
+    }
+
+    @Test
+    public void testGatheringWrite() throws IOException {
+        RecordingChannel channel = new RecordingChannel();
+        StagingOutputStream out = new StagingOutputStream(channel, 4);
+        out.write("ab".getBytes("US-ASCII"));
+        out.write("0123456789".getBytes("US-ASCII"));
+        out.flushBuffer();
+        Assert.assertEquals("ab0123456789", channel.content.toString("US-ASCII"));
+        Assert.assertEquals(1, channel.gatheringWrites);
+        Assert.assertEquals(0, channel.plainWrites);
+    }
+
+    @Test
+    public void testClosed() throws IOException {
+        StagingOutputStream out = new StagingOutputStream(new ByteArrayOutputStream());
+        out.close();
+        out.close();
+        try {
+            out.write('a');
+            Assert.fail("IOException should have been thrown");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static class RecordingChannel implements GatheringByteChannel {
+
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        int gatheringWrites;
+        int plainWrites;
+
+        public int write(ByteBuffer src) {
+            plainWrites++;
+            return drain(src);
+        }
+
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            gatheringWrites++;
+            long n = 0;
+            for (int i = offset; i < offset + length; i++) {
+                n += drain(srcs[i]);
+            }
+            return n;
+        }
+
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        private int drain(ByteBuffer src) {
+            int n = src.remaining();
+            while (src.hasRemaining()) {
+                content.write(src.get());
+            }
+            return n;
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+
+    }
+
+}
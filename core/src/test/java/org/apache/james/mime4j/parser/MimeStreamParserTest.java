@@ -21,6 +21,7 @@ package org.apache.james.mime4j.parser;
 
 import org.apache.james.mime4j.stream.BodyDescriptor;
 import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.stream.MimeConfig;
 import org.apache.james.mime4j.util.ByteSequence;
 import org.apache.james.mime4j.util.ContentUtil;
 import org.junit.Assert;
@@ -29,7 +30,9 @@ import org.junit.Test;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 
 public class MimeStreamParserTest {
 
@@ -430,6 +433,79 @@ public class MimeStreamParserTest {
         Assert.assertEquals(expected, result);
     }
 
+    @Test
+    public void testBatchContentHandler() throws Exception {
+        String msg = "Subject: Yada yada\r\n"
+                + "Content-Type: multipart/mixed; boundary=foo\r\n"
+                + "\r\n"
+                + "--foo\r\n"
+                + "Content-Type: text/plain\r\n"
+                + "Content-Language: en\r\n"
+                + "\r\n"
+                + "first\r\n"
+                + "--foo\r\n"
+                + "\r\n"
+                + "second\r\n"
+                + "--foo--\r\n";
+
+        final StringBuilder sb = new StringBuilder();
+        MimeStreamParser parser = new MimeStreamParser();
+        parser.setContentHandler(new BatchHandler(sb));
+        parser.parse(new ByteArrayInputStream(msg.getBytes()));
+
+        Assert.assertEquals("[Subject, Content-Type]"
+                + "[Content-Type, Content-Language]first"
+                + "[]second", sb.toString());
+    }
+
+    @Test
+    public void testBatchContentHandlerHeadless() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        MimeStreamParser parser = new MimeStreamParser(MimeConfig.custom()
+                .setHeadlessParsing("text/plain").build());
+        parser.setContentHandler(new BatchHandler(sb));
+        parser.parse(new ByteArrayInputStream("body".getBytes()));
+
+        Assert.assertEquals("[Content-Type]body", sb.toString());
+    }
+
+    static class BatchHandler extends AbstractContentHandler implements BatchContentHandler {
+
+        private final StringBuilder sb;
+
+        BatchHandler(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        public void header(List<Field> fields) {
+            List<String> names = new ArrayList<String>();
+            for (Field field : fields) {
+                names.add(field.getName());
+            }
+            sb.append(names);
+        }
+
+        @Override
+        public void startHeader() {
+            Assert.fail();
+        }
+
+        @Override
+        public void field(Field field) {
+            Assert.fail();
+        }
+
+        @Override
+        public void endHeader() {
+            Assert.fail();
+        }
+
+        @Override
+        public void body(BodyDescriptor bd, InputStream is) throws IOException {
+            sb.append(ContentUtil.toAsciiString(ContentUtil.buffer(is)));
+        }
+    }
+
     protected String decode(ByteSequence byteSequence) {
         return ContentUtil.decode(byteSequence);
     }
@@ -19,8 +19,12 @@
 
 package org.apache.james.mime4j.stream;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.util.ByteArrayBuffer;
+import org.apache.james.mime4j.util.ByteArraySlice;
 import org.apache.james.mime4j.util.ByteSequence;
 
 import junit.framework.TestCase;
@@ -133,4 +137,51 @@ public class DefaultFieldBuilderTest extends TestCase {
         }
     }
 
+    public void testFieldsShareBlock() throws Exception {
+        DefaultFieldBuilder builder = new DefaultFieldBuilder(0);
+        builder.reset();
+        builder.append(line("Subject: first\r\n"));
+        RawField field1 = builder.build();
+        builder.reset();
+        builder.append(line("Content-Type: text/plain;\r\n"));
+        builder.append(line(" charset=us-ascii\r\n"));
+        RawField field2 = builder.build();
+        builder.reset();
+        builder.append(line("X-Discarded: value\r\n"));
+        builder.reset();
+        builder.append(line("To: someone\r\n"));
+        RawField field3 = builder.build();
+
+        assertTrue(field1.getRaw() instanceof ByteArraySlice);
+        assertSame(((ByteArraySlice) field1.getRaw()).buffer(),
+                ((ByteArraySlice) field3.getRaw()).buffer());
+        assertEquals("Subject: first", field1.toString());
+        assertEquals("Content-Type: text/plain;\r\n charset=us-ascii", field2.toString());
+        assertEquals("To: someone", field3.toString());
+        assertTrue(field2.hasName("content-type"));
+        assertEquals("text/plain; charset=us-ascii", field2.getBody());
+        assertEquals("To", field3.getName());
+    }
+
+    public void testNewBlockWhenFull() throws Exception {
+        DefaultFieldBuilder builder = new DefaultFieldBuilder(0);
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            value.append("0123456789");
+        }
+        List<RawField> fields = new ArrayList<RawField>();
+        for (int i = 0; i < 10; i++) {
+            builder.reset();
+            builder.append(line("X-Field-" + i + ": " + value + "\r\n"));
+            fields.add(builder.build());
+        }
+        for (int i = 0; i < 10; i++) {
+            RawField field = fields.get(i);
+            assertEquals("X-Field-" + i, field.getName());
+            assertEquals(value.toString(), field.getBody());
+        }
+        assertNotSame(((ByteArraySlice) fields.get(0).getRaw()).buffer(),
+                ((ByteArraySlice) fields.get(9).getRaw()).buffer());
+    }
+
 }
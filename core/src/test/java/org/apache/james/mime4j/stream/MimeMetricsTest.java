@@ -0,0 +1,110 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.james.mime4j.codec.DecodeEvent;
+
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MimeMetricsTest {
+
+    private static final String MAIL =
+        "From: someone@example.com\r\n" +
+        "Content-Type: multipart/mixed; boundary=xx\r\n" +
+        "\r\n" +
+        "--xx\r\n" +
+        "Content-Transfer-Encoding: base64\r\n" +
+        "\r\n" +
+        "aGVsbG8=\r\n" +
+        "--xx\r\n" +
+        "Content-Transfer-Encoding: quoted-printable\r\n" +
+        "Bogus header\r\n" +
+        "\r\n" +
+        "a=3Db=ZZ\r\n" +
+        "--xx--\r\n";
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        MimeTokenStream stream = new MimeTokenStream();
+        Assert.assertSame(MimeMetrics.NONE, stream.getMetrics());
+        stream.setMetrics(new CountingMimeMetrics());
+        stream.setMetrics(null);
+        Assert.assertSame(MimeMetrics.NONE, stream.getMetrics());
+    }
+
+    @Test
+    public void testCounters() throws Exception {
+        CountingMimeMetrics metrics = new CountingMimeMetrics();
+        MimeTokenStream stream = new MimeTokenStream();
+        stream.setMetrics(metrics);
+        parse(stream, true);
+
+        Assert.assertEquals(1, metrics.getCount(MimeMetrics.Counter.MESSAGES));
+        Assert.assertEquals(3, metrics.getCount(MimeMetrics.Counter.ENTITIES));
+        Assert.assertEquals(4, metrics.getCount(MimeMetrics.Counter.FIELDS));
+        Assert.assertEquals(MAIL.length(), metrics.getCount(MimeMetrics.Counter.BYTES_SCANNED));
+        Assert.assertEquals(5, metrics.getCount(MimeMetrics.Counter.BYTES_DECODED_BASE64));
+        Assert.assertEquals(6, metrics.getCount(MimeMetrics.Counter.BYTES_DECODED_QUOTED_PRINTABLE));
+        Assert.assertEquals(1, metrics.getCount(MimeMetrics.Counter.MALFORMED_ENCODED_DATA));
+        Assert.assertEquals(1, metrics.getEventCount(DecodeEvent.QP_MALFORMED_ENCODED_VALUE));
+        Assert.assertEquals(1, metrics.getEventCount(Event.INVALID_HEADER));
+        Assert.assertEquals(1, metrics.getEventCounts().size());
+        Assert.assertEquals(0, metrics.getNanos(MimeMetrics.Phase.HEADER));
+
+        parse(stream, true);
+        Assert.assertEquals(2, metrics.getCount(MimeMetrics.Counter.MESSAGES));
+        Assert.assertEquals(2, metrics.getEventCount(Event.INVALID_HEADER));
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getCount(MimeMetrics.Counter.MESSAGES));
+        Assert.assertEquals(0, metrics.getEventCount(Event.INVALID_HEADER));
+    }
+
+    @Test
+    public void testTimings() throws Exception {
+        CountingMimeMetrics metrics = new CountingMimeMetrics(true);
+        MimeTokenStream stream = new MimeTokenStream();
+        stream.setMetrics(metrics);
+        parse(stream, false);
+
+        Assert.assertTrue(metrics.getNanos(MimeMetrics.Phase.HEADER) > 0);
+        Assert.assertTrue(metrics.getNanos(MimeMetrics.Phase.BOUNDARY_SCAN) > 0);
+        Assert.assertEquals(0, metrics.getNanos(MimeMetrics.Phase.DECODE));
+        Assert.assertEquals(0, metrics.getCount(MimeMetrics.Counter.BYTES_DECODED_BASE64));
+
+        parse(stream, true);
+        Assert.assertTrue(metrics.getNanos(MimeMetrics.Phase.DECODE) > 0);
+    }
+
+    private static void parse(MimeTokenStream stream, boolean decode) throws Exception {
+        stream.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(MAIL)));
+        for (EntityState state = stream.getState(); state != EntityState.T_END_OF_STREAM;
+                state = stream.next()) {
+            if (decode && state == EntityState.T_BODY) {
+                ContentUtil.buffer(stream.getDecodedInputStream());
+            }
+        }
+    }
+
+}
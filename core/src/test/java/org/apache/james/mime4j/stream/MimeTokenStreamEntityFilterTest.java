@@ -0,0 +1,172 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.james.mime4j.parser.AbstractContentHandler;
+import org.apache.james.mime4j.parser.MimeStreamParser;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.apache.james.mime4j.util.MimeUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MimeTokenStreamEntityFilterTest {
+
+    private static final String MAIL =
+        "Subject: filtered\r\n" +
+        "Content-Type: multipart/mixed; boundary=outer\r\n" +
+        "\r\n" +
+        "--outer\r\n" +
+        "Content-Type: text/plain\r\n" +
+        "\r\n" +
+        "first text\r\n" +
+        "--outer\r\n" +
+        "Content-Type: image/gif\r\n" +
+        "Content-Transfer-Encoding: base64\r\n" +
+        "\r\n" +
+        "R0lGODlhAQABAIAAAP///wAAACwAAAAAAQABAAACAkQBADs=\r\n" +
+        "--outer\r\n" +
+        "Content-Type: multipart/related; boundary=inner\r\n" +
+        "\r\n" +
+        "--inner\r\n" +
+        "Content-Type: text/html\r\n" +
+        "\r\n" +
+        "<p>inner text</p>\r\n" +
+        "--inner\r\n" +
+        "Content-Type: application/zip\r\n" +
+        "\r\n" +
+        "PK\r\n" +
+        "--inner--\r\n" +
+        "--outer\r\n" +
+        "Content-Type: message/rfc822\r\n" +
+        "\r\n" +
+        "Subject: embedded\r\n" +
+        "\r\n" +
+        "embedded text\r\n" +
+        "--outer--\r\n";
+
+    private static final EntityFilter TEXT_ONLY = new EntityFilter() {
+        public boolean accept(BodyDescriptor descriptor) {
+            String mimeType = descriptor.getMimeType();
+            return mimeType.startsWith("text/") || MimeUtil.isMultipart(mimeType);
+        }
+    };
+
+    @Test
+    public void testRejectedBodiesAreSkipped() throws Exception {
+        MimeTokenStream stream = new MimeTokenStream();
+        stream.setEntityFilter(TEXT_ONLY);
+        stream.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(MAIL)));
+        Assert.assertEquals(
+                "[text/plain:first text, text/html:<p>inner text</p>]",
+                bodies(stream).toString());
+    }
+
+    @Test
+    public void testRejectedEntitiesHaveNoEvents() throws Exception {
+        MimeTokenStream stream = new MimeTokenStream();
+        stream.setEntityFilter(TEXT_ONLY);
+        stream.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(MAIL)));
+        List<EntityState> states = new ArrayList<EntityState>();
+        for (EntityState state = stream.getState(); state != EntityState.T_END_OF_STREAM;
+                state = stream.next()) {
+            states.add(state);
+        }
+        int messages = 0;
+        int multiparts = 0;
+        int parts = 0;
+        for (EntityState state : states) {
+            if (state == EntityState.T_START_MESSAGE) {
+                messages++;
+            } else if (state == EntityState.T_START_MULTIPART) {
+                multiparts++;
+            } else if (state == EntityState.T_START_BODYPART) {
+                parts++;
+            }
+        }
+        // the embedded message is never started
+        Assert.assertEquals(1, messages);
+        Assert.assertEquals(2, multiparts);
+        // rejected parts still report their header
+        Assert.assertEquals(6, parts);
+    }
+
+    @Test
+    public void testRejectedSubtree() throws Exception {
+        MimeTokenStream stream = new MimeTokenStream();
+        stream.setEntityFilter(new EntityFilter() {
+            public boolean accept(BodyDescriptor descriptor) {
+                return !"related".equals(descriptor.getSubType());
+            }
+        });
+        stream.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(MAIL)));
+        Assert.assertEquals(
+                "[text/plain:first text, image/gif, text/plain:embedded text]",
+                bodies(stream).toString());
+    }
+
+    @Test
+    public void testStructureIndexOfFilteredParse() throws Exception {
+        MimeTokenStream stream = new MimeTokenStream(
+                MimeConfig.custom().setBuildStructureIndex(true).build());
+        stream.setEntityFilter(TEXT_ONLY);
+        stream.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(MAIL)));
+        bodies(stream);
+        StructureIndex.Part gif = stream.getStructureIndex().getPart("2");
+        Assert.assertEquals("image/gif", gif.getMimeType());
+        Assert.assertEquals("R0lGODlhAQABAIAAAP///wAAACwAAAAAAQABAAACAkQBADs=",
+                MAIL.substring((int) gif.getBodyOffset(), (int) gif.getEndOffset()));
+        Assert.assertNull(stream.getStructureIndex().getPart("2.1"));
+    }
+
+    @Test
+    public void testMimeStreamParser() throws Exception {
+        final List<String> mimeTypes = new ArrayList<String>();
+        MimeStreamParser parser = new MimeStreamParser();
+        parser.setEntityFilter(TEXT_ONLY);
+        parser.setContentHandler(new AbstractContentHandler() {
+            @Override
+            public void body(BodyDescriptor bd, InputStream is) {
+                mimeTypes.add(bd.getMimeType());
+            }
+        });
+        parser.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(MAIL)));
+        Assert.assertEquals("[text/plain, text/html]", mimeTypes.toString());
+    }
+
+    private static List<String> bodies(MimeTokenStream stream) throws Exception {
+        List<String> bodies = new ArrayList<String>();
+        for (EntityState state = stream.getState(); state != EntityState.T_END_OF_STREAM;
+                state = stream.next()) {
+            if (state == EntityState.T_BODY) {
+                String mimeType = stream.getBodyDescriptor().getMimeType();
+                bodies.add(mimeType.startsWith("text/")
+                        ? mimeType + ":" + ContentUtil.buffer(stream.getReader())
+                        : mimeType);
+            }
+        }
+        return bodies;
+    }
+
+}
@@ -0,0 +1,145 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.james.mime4j.MimeIOException;
+import org.apache.james.mime4j.io.MaxMessageLimitException;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MimeTokenStreamLimitsTest {
+
+    // 7 entities, nested 3 levels deep
+    private static final String MAIL =
+        "Subject: nested\r\n" +
+        "Content-Type: multipart/mixed; boundary=a\r\n" +
+        "\r\n" +
+        "--a\r\n" +
+        "Content-Type: text/plain\r\n" +
+        "\r\n" +
+        "first\r\n" +
+        "--a\r\n" +
+        "Content-Type: multipart/alternative; boundary=b\r\n" +
+        "\r\n" +
+        "--b\r\n" +
+        "\r\n" +
+        "second\r\n" +
+        "--b\r\n" +
+        "Content-Type: message/rfc822\r\n" +
+        "\r\n" +
+        "Subject: embedded\r\n" +
+        "\r\n" +
+        "third\r\n" +
+        "--b--\r\n" +
+        "--a\r\n" +
+        "\r\n" +
+        "fourth\r\n" +
+        "--a--\r\n";
+
+    @Test
+    public void testNoLimitsByDefault() throws Exception {
+        Assert.assertEquals(-1, MimeConfig.DEFAULT.getMaxEntityCount());
+        Assert.assertEquals(-1, MimeConfig.DEFAULT.getMaxNestingDepth());
+        Assert.assertEquals(-1, MimeConfig.DEFAULT.getMaxTotalHeaderLen());
+        Assert.assertEquals(-1, MimeConfig.DEFAULT.getMaxMessageLen());
+        parse(MimeConfig.DEFAULT);
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        MimeConfig config = MimeConfig.custom()
+                .setMaxEntityCount(1)
+                .setMaxNestingDepth(2)
+                .setMaxTotalHeaderLen(3)
+                .setMaxMessageLen(4)
+                .build();
+        MimeConfig copy = MimeConfig.copy(config).build();
+        Assert.assertEquals(1, copy.getMaxEntityCount());
+        Assert.assertEquals(2, copy.getMaxNestingDepth());
+        Assert.assertEquals(3, copy.getMaxTotalHeaderLen());
+        Assert.assertEquals(4, copy.getMaxMessageLen());
+    }
+
+    @Test
+    public void testMaxEntityCount() throws Exception {
+        parse(MimeConfig.custom().setMaxEntityCount(7).build());
+        assertLimitExceeded(MimeConfig.custom().setMaxEntityCount(6).build(),
+                "Maximum entity count limit (6) exceeded");
+    }
+
+    @Test
+    public void testMaxNestingDepth() throws Exception {
+        parse(MimeConfig.custom().setMaxNestingDepth(3).build());
+        assertLimitExceeded(MimeConfig.custom().setMaxNestingDepth(2).build(),
+                "Maximum nesting depth limit (2) exceeded");
+        assertLimitExceeded(MimeConfig.custom().setMaxNestingDepth(0).build(),
+                "Maximum nesting depth limit (0) exceeded");
+    }
+
+    @Test
+    public void testMaxTotalHeaderLen() throws Exception {
+        // sum of all header fields without their terminating line breaks
+        int len = 0;
+        for (String line : MAIL.split("\r\n")) {
+            if (line.startsWith("Subject:") || line.startsWith("Content-Type:")) {
+                len += line.length();
+            }
+        }
+        parse(MimeConfig.custom().setMaxTotalHeaderLen(len).build());
+        assertLimitExceeded(MimeConfig.custom().setMaxTotalHeaderLen(len - 1).build(),
+                "Maximum total header length limit (" + (len - 1) + ") exceeded");
+    }
+
+    @Test
+    public void testMaxMessageLen() throws Exception {
+        parse(MimeConfig.custom().setMaxMessageLen(MAIL.length()).build());
+        try {
+            parse(MimeConfig.custom().setMaxMessageLen(MAIL.length() - 1).build());
+            Assert.fail("MimeIOException expected");
+        } catch (MimeIOException expected) {
+            Assert.assertTrue(expected.getCause() instanceof MaxMessageLimitException);
+        }
+    }
+
+    private static void assertLimitExceeded(MimeConfig config, String message) throws Exception {
+        try {
+            parse(config);
+            Assert.fail("MaxMessageLimitException expected");
+        } catch (MaxMessageLimitException expected) {
+            Assert.assertEquals(message, expected.getMessage());
+        }
+    }
+
+    private static void parse(MimeConfig config) throws Exception {
+        MimeTokenStream stream = new MimeTokenStream(config);
+        stream.setRecursionMode(RecursionMode.M_RECURSE);
+        stream.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(MAIL)));
+        for (EntityState state = stream.getState(); state != EntityState.T_END_OF_STREAM;
+                state = stream.next()) {
+            if (state == EntityState.T_BODY) {
+                ContentUtil.buffer(stream.getInputStream());
+            }
+        }
+    }
+
+}
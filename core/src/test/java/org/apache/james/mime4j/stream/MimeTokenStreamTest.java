@@ -20,11 +20,15 @@
 package org.apache.james.mime4j.stream;
 
 import org.apache.james.mime4j.ExampleMail;
+import org.apache.james.mime4j.codec.DecodeMonitor;
+import org.apache.james.mime4j.util.ContentUtil;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
 
 public class MimeTokenStreamTest {
 
@@ -78,6 +82,71 @@ public class MimeTokenStreamTest {
         checkNextIs(EntityState.T_END_OF_STREAM);
     }
 
+    @Test
+    public void testReuse() throws Exception {
+        byte[][] samples = { ExampleMail.MIME_MULTIPART_EMBEDDED_MESSAGES_BYTES,
+                ExampleMail.MAIL_WITH_RFC822_PART_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES };
+        String[] expected = new String[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            expected[i] = trace(new MimeTokenStream(), samples[i]);
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < samples.length; i++) {
+                Assert.assertEquals(expected[i], trace(stream, samples[i]));
+            }
+            // abandon a parse half way through
+            stream.parse(new ByteArrayInputStream(samples[0]));
+            for (int i = 0; i < 20; i++) {
+                stream.next();
+            }
+        }
+    }
+
+    @Test
+    public void testLineNumbers() throws Exception {
+        final List<String> warnings = new ArrayList<String>();
+        DecodeMonitor monitor = new DecodeMonitor() {
+            @Override
+            public boolean warn(String error, String dropDesc) {
+                warnings.add(error);
+                return false;
+            }
+
+            @Override
+            public boolean isListening() {
+                return true;
+            }
+        };
+        String mail = "Subject: test\r\n\tcontinued\r\ninvalid\r\n\r\nbody\r\n";
+        for (boolean count : new boolean[] { true, false }) {
+            MimeConfig config = MimeConfig.custom().setCountLineNumbers(count).build();
+            MimeTokenStream stream = new MimeTokenStream(config, monitor, null);
+            stream.parse(new ByteArrayInputStream(ContentUtil.toAsciiByteArray(mail)));
+            while (stream.next() != EntityState.T_END_OF_STREAM) {
+            }
+        }
+        Assert.assertEquals(2, warnings.size());
+        // the line number reflects the input read ahead into the buffer
+        Assert.assertEquals("Line 6: " + Event.INVALID_HEADER, warnings.get(0));
+        Assert.assertEquals(Event.INVALID_HEADER.toString(), warnings.get(1));
+    }
+
+    private static String trace(MimeTokenStream stream, byte[] sample) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        stream.parse(new ByteArrayInputStream(sample));
+        for (EntityState state = stream.getState(); state != EntityState.T_END_OF_STREAM;
+                state = stream.next()) {
+            sb.append(MimeTokenStream.stateToString(state)).append('\n');
+            if (state == EntityState.T_FIELD) {
+                sb.append(stream.getField()).append('\n');
+            } else if (state == EntityState.T_BODY) {
+                sb.append(ContentUtil.toAsciiString(ContentUtil.buffer(stream.getInputStream())));
+            }
+        }
+        return sb.toString();
+    }
+
     private void checkNextIs(EntityState expected) throws Exception {
         Assert.assertEquals(MimeTokenStream.stateToString(expected), MimeTokenStream.stateToString(stream.next()));
     }
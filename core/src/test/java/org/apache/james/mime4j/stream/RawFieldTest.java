@@ -63,4 +63,29 @@ public class RawFieldTest {
         Assert.assertEquals(s, field.toString());
     }
 
+    @Test
+    public void testLazyName() throws Exception {
+        RawField field = RawFieldParser.DEFAULT.parseField(ContentUtil.encode("Content-Type : text/plain"));
+        Assert.assertTrue(field.hasName("content-type"));
+        Assert.assertTrue(field.hasName("CONTENT-TYPE"));
+        Assert.assertFalse(field.hasName("Content-Typ"));
+        Assert.assertFalse(field.hasName("Content-Length"));
+        Assert.assertEquals(12, field.getNameLength());
+        Assert.assertEquals(13, field.getDelimiterIdx());
+        Assert.assertEquals("Content-Type", field.getName());
+        Assert.assertTrue(field.hasName("Content-Type"));
+    }
+
+    @Test
+    public void testNameWithComment() throws Exception {
+        RawField field = RawFieldParser.DEFAULT.parseField(ContentUtil.encode("Sub(:)ject: stuff"));
+        Assert.assertEquals("Subject", field.getName());
+        Assert.assertTrue(field.hasName("subject"));
+        Assert.assertEquals(7, field.getNameLength());
+        Assert.assertEquals("stuff", field.getBody());
+
+        field = new RawField("Subject", "stuff");
+        Assert.assertTrue(field.hasName("SUBJECT"));
+    }
+
 }
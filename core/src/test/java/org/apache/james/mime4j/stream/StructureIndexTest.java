@@ -0,0 +1,209 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.stream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StructureIndexTest {
+
+    private static final String NESTED =
+        "From: someone\r\n" +
+        "Content-Type: multipart/mixed; boundary=outer\r\n" +
+        "\r\n" +
+        "preamble\r\n" +
+        "--outer\r\n" +
+        "Content-Type: text/plain; charset=ISO-8859-1\r\n" +
+        "\r\n" +
+        "line 1\r\n" +
+        "line 2\r\n" +
+        "--outer\r\n" +
+        "Content-Type: multipart/alternative; boundary=inner\r\n" +
+        "\r\n" +
+        "--inner\r\n" +
+        "\r\n" +
+        "plain\r\n" +
+        "--inner\r\n" +
+        "Content-Type: text/html\r\n" +
+        "Content-Transfer-Encoding: quoted-printable\r\n" +
+        "\r\n" +
+        "<p>html</p>\r\n" +
+        "--inner--\r\n" +
+        "--outer\r\n" +
+        "Content-Type: message/rfc822\r\n" +
+        "\r\n" +
+        "Subject: embedded\r\n" +
+        "Content-Type: multipart/mixed; boundary=deep\r\n" +
+        "\r\n" +
+        "--deep\r\n" +
+        "\r\n" +
+        "deep body\r\n" +
+        "--deep--\r\n" +
+        "\r\n" +
+        "--outer--\r\n" +
+        "epilogue\r\n";
+
+    @Test
+    public void testNestedStructure() throws Exception {
+        StructureIndex index = parse(NESTED, false);
+        String msg = NESTED;
+
+        StructureIndex.Part root = index.getRoot();
+        Assert.assertEquals("", root.getPath());
+        Assert.assertEquals(0, root.getHeaderOffset());
+        Assert.assertEquals(msg.indexOf("preamble"), root.getBodyOffset());
+        Assert.assertEquals(msg.length(), root.getEndOffset());
+        Assert.assertEquals("multipart/mixed", root.getMimeType());
+        Assert.assertEquals(3, root.getHeaderLines());
+        Assert.assertEquals(3, root.getChildren().size());
+
+        StructureIndex.Part part1 = index.getPart("1");
+        int part1Start = msg.indexOf("--outer\r\n") + 9;
+        Assert.assertEquals(part1Start, part1.getHeaderOffset());
+        Assert.assertEquals(msg.indexOf("line 1"), part1.getBodyOffset());
+        Assert.assertEquals("line 1\r\nline 2", content(msg, part1));
+        Assert.assertEquals(1, part1.getBodyLines());
+        Assert.assertEquals("text/plain", part1.getMimeType());
+        Assert.assertEquals("iso-8859-1", part1.getCharset().toLowerCase());
+        Assert.assertEquals("7bit", part1.getTransferEncoding());
+
+        StructureIndex.Part part21 = index.getPart("2.1");
+        Assert.assertEquals(part21.getHeaderOffset(), part21.getBodyOffset() - 2);
+        Assert.assertEquals("plain", content(msg, part21));
+
+        StructureIndex.Part part22 = index.getPart("2.2");
+        Assert.assertEquals("<p>html</p>", content(msg, part22));
+        Assert.assertEquals("quoted-printable", part22.getTransferEncoding());
+        Assert.assertEquals(0, part22.getBodyLines());
+
+        StructureIndex.Part part2 = index.getPart("2");
+        Assert.assertEquals(msg.indexOf("--inner\r\n"), part2.getBodyOffset());
+        Assert.assertEquals("--inner--", msg.substring(
+                (int) part2.getEndOffset() - 9, (int) part2.getEndOffset()));
+
+        StructureIndex.Part part3 = index.getPart("3");
+        Assert.assertEquals("message/rfc822", part3.getMimeType());
+        StructureIndex.Part embedded = part3.getEmbeddedMessage();
+        Assert.assertNotNull(embedded);
+        Assert.assertEquals("3", embedded.getPath());
+        Assert.assertEquals(part3.getBodyOffset(), embedded.getHeaderOffset());
+        Assert.assertEquals(part3.getEndOffset(), embedded.getEndOffset());
+        Assert.assertEquals(msg.indexOf("--deep\r\n"), embedded.getBodyOffset());
+
+        StructureIndex.Part part31 = index.getPart("3.1");
+        Assert.assertEquals("deep body", content(msg, part31));
+
+        Assert.assertEquals(8, index.getParts().size());
+    }
+
+    @Test
+    public void testConsumedContent() throws Exception {
+        Assert.assertEquals(parse(NESTED, false).toString(), parse(NESTED, true).toString());
+    }
+
+    @Test
+    public void testLfLineEndings() throws Exception {
+        String msg = NESTED.replace("\r\n", "\n");
+        StructureIndex index = parse(msg, false);
+        Assert.assertEquals(msg.length(), index.getRoot().getEndOffset());
+        Assert.assertEquals("line 1\nline 2", content(msg, index.getPart("1")));
+        Assert.assertEquals("deep body", content(msg, index.getPart("3.1")));
+    }
+
+    @Test
+    public void testSimpleMessage() throws Exception {
+        String msg = "Subject: test\r\n\r\nbody line 1\r\nbody line 2\r\n";
+        StructureIndex index = parse(msg, false);
+        StructureIndex.Part root = index.getRoot();
+        Assert.assertEquals(0, root.getHeaderOffset());
+        Assert.assertEquals(17, root.getBodyOffset());
+        Assert.assertEquals(msg.length(), root.getEndOffset());
+        Assert.assertEquals(2, root.getBodyLines());
+        Assert.assertEquals("text/plain", root.getMimeType());
+        Assert.assertEquals(1, index.getParts().size());
+    }
+
+    @Test
+    public void testEncodedEmbeddedMessage() throws Exception {
+        String msg =
+            "Content-Type: message/rfc822\r\n" +
+            "Content-Transfer-Encoding: base64\r\n" +
+            "\r\n" +
+            "U3ViamVjdDogZW1iZWRkZWQNCg0KYm9keQ0K\r\n";
+        StructureIndex index = parse(msg, false);
+        StructureIndex.Part embedded = index.getRoot().getEmbeddedMessage();
+        Assert.assertNotNull(embedded);
+        Assert.assertEquals(-1, embedded.getHeaderOffset());
+        Assert.assertEquals(-1, embedded.getBodyOffset());
+        Assert.assertEquals(-1, embedded.getEndOffset());
+        Assert.assertEquals(msg.length(), index.getRoot().getEndOffset());
+    }
+
+    @Test
+    public void testSerializable() throws Exception {
+        StructureIndex index = parse(NESTED, false);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(buffer);
+        out.writeObject(index);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+        StructureIndex copy = (StructureIndex) in.readObject();
+        Assert.assertEquals(index.toString(), copy.toString());
+        Assert.assertEquals(index.getPart("2.2").getBodyOffset(), copy.getPart("2.2").getBodyOffset());
+    }
+
+    @Test
+    public void testDisabledByDefault() throws Exception {
+        MimeTokenStream stream = new MimeTokenStream();
+        stream.parse(new ByteArrayInputStream("Subject: test\r\n\r\nbody".getBytes("US-ASCII")));
+        while (stream.next() != EntityState.T_END_OF_STREAM) {
+        }
+        Assert.assertNull(stream.getStructureIndex());
+    }
+
+    private static String content(String msg, StructureIndex.Part part) {
+        return msg.substring((int) part.getBodyOffset(), (int) part.getEndOffset());
+    }
+
+    private static StructureIndex parse(String msg, boolean consume) throws Exception {
+        MimeConfig config = MimeConfig.custom().setBuildStructureIndex(true).build();
+        MimeTokenStream stream = new MimeTokenStream(config);
+        stream.parse(new ByteArrayInputStream(msg.getBytes("US-ASCII")));
+        byte[] tmp = new byte[3];
+        for (EntityState state = stream.getState();
+                state != EntityState.T_END_OF_STREAM;
+                state = stream.next()) {
+            if (consume && (state == EntityState.T_BODY || state == EntityState.T_PREAMBLE
+                    || state == EntityState.T_EPILOGUE)) {
+                InputStream in = stream.getInputStream();
+                while (in.read(tmp) != -1) {
+                }
+            }
+        }
+        return stream.getStructureIndex();
+    }
+
+}
@@ -19,6 +19,11 @@
 
 package org.apache.james.mime4j.util;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -71,4 +76,94 @@ public class MimeUtilTest {
                 .unfold("this\r\n is\r\n a\r\n test"));
     }
 
+    @Test
+    public void testFoldBytesMatchesFoldString() throws Exception {
+        String ninety = "1234567890123456789012345678901234567890"
+                + "12345678901234567890123456789012345678901234567890";
+        String[] inputs = { "", "this is a test", "this     is a test",
+                String.format("testing 1 2 %s testing %s", ninety, ninety),
+                "a\tb " + ninety + "\t" + ninety + " c" };
+        for (String input : inputs) {
+            for (int used = 0; used < 80; used += 7) {
+                ByteArrayBuffer dst = new ByteArrayBuffer(16);
+                dst.append('x');
+                MimeUtil.fold(ContentUtil.encode(input), used, dst);
+                Assert.assertEquals("x" + MimeUtil.fold(input, used),
+                        ContentUtil.decode(dst));
+
+                byte[] padded = ("--" + input + "--").getBytes("US-ASCII");
+                ByteArrayBuffer dst2 = new ByteArrayBuffer(16);
+                MimeUtil.fold(new ByteArraySlice(padded, 2, input.length()), used, dst2);
+                Assert.assertEquals(MimeUtil.fold(input, used), ContentUtil.decode(dst2));
+            }
+        }
+    }
+
+    @Test
+    public void testUnfoldBytes() throws Exception {
+        String[] inputs = { "", "x", "\r\n", " \r\n", "\r\n ",
+                "this  \r\n   is a test", "this\r\n is\r\n a\r\n test\r" };
+        for (String input : inputs) {
+            String expected = MimeUtil.unfold(input);
+            ByteSequence bytes = ContentUtil.encode(input);
+            Assert.assertEquals(expected, MimeUtil.unfold(bytes, 0, bytes.length()));
+
+            ByteArrayBuffer dst = new ByteArrayBuffer(16);
+            MimeUtil.unfold(bytes, 0, bytes.length(), dst);
+            Assert.assertEquals(expected, ContentUtil.decode(dst));
+
+            byte[] padded = ("\r\n" + input + "\r\n").getBytes("US-ASCII");
+            ByteArraySlice slice = new ByteArraySlice(padded, 1, input.length() + 2);
+            Assert.assertEquals(expected, MimeUtil.unfold(slice, 1, input.length()));
+        }
+        ByteSequence latin1 = new ByteArrayBuffer(new byte[] { 'a', (byte) 0xe9, '\r', '\n', ' ', 'b' }, true);
+        Assert.assertEquals("a\u00e9 b", MimeUtil.unfold(latin1, 0, latin1.length()));
+    }
+
+    @Test
+    public void testCreateUniqueBoundary() throws Exception {
+        String boundary = MimeUtil.createUniqueBoundary();
+        Assert.assertTrue(boundary, boundary.matches("-=Part\\.[0-9a-f]+\\.[0-9a-f]+\\.[0-9a-f]+\\.[0-9a-f]+=-"));
+        Assert.assertFalse(boundary.equals(MimeUtil.createUniqueBoundary()));
+    }
+
+    @Test
+    public void testCreateUniqueMessageId() throws Exception {
+        String id = MimeUtil.createUniqueMessageId("host.example.com");
+        Assert.assertTrue(id, id.matches("<Mime4j\\.[0-9a-f]+\\.[0-9a-f]+\\.[0-9a-f]+@host\\.example\\.com>"));
+        id = MimeUtil.createUniqueMessageId(null);
+        Assert.assertTrue(id, id.matches("<Mime4j\\.[0-9a-f]+\\.[0-9a-f]+\\.[0-9a-f]+>"));
+    }
+
+    @Test
+    public void testUniqueIdsAcrossThreads() throws Exception {
+        final int threads = 4;
+        final int count = 5000;
+        final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    for (int j = 0; j < count; j++) {
+                        ids.add(MimeUtil.createUniqueBoundary());
+                        ids.add(MimeUtil.createUniqueMessageId(null));
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        Assert.assertEquals(threads * count * 2, ids.size());
+    }
+
 }
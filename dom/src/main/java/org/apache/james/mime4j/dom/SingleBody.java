@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.apache.james.mime4j.io.StagingOutputStream;
+
 /**
  * Abstract implementation of a single message body; that is, a body that does
  * not contain (directly or indirectly) any other child bodies. It also provides
@@ -129,6 +131,10 @@ public abstract class SingleBody implements Body {
      * @throws IOException
      */
     private static void copy(final InputStream in, final OutputStream out) throws IOException {
+        if (out instanceof StagingOutputStream) {
+            ((StagingOutputStream) out).transferFrom(in);
+            return;
+        }
         final byte[] buffer = new byte[DEFAULT_ENCODING_BUFFER_SIZE];
         int inputLength;
         while (-1 != (inputLength = in.read(buffer))) {
@@ -50,4 +50,29 @@ public abstract class TextBody extends SingleBody {
      */
     public abstract Reader getReader() throws IOException;
 
+    /**
+     * Returns the length of the contents of this body in characters.
+     * <p>
+     * This implementation decodes the whole content through
+     * {@link #getReader()}; subclasses are encouraged to cache the result.
+     *
+     * @return the number of characters of this body.
+     * @throws IOException
+     *             on I/O errors.
+     */
+    public long length() throws IOException {
+        Reader reader = getReader();
+        try {
+            char[] buffer = new char[4096];
+            long length = 0;
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                length += n;
+            }
+            return length;
+        } finally {
+            reader.close();
+        }
+    }
+
 }
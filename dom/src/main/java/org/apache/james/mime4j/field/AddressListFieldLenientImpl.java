@@ -42,8 +42,12 @@ public class AddressListFieldLenientImpl extends AbstractField implements Addres
 
     private AddressList addressList;
 
-    AddressListFieldLenientImpl(final Field rawField, final DecodeMonitor monitor) {
+    private final LenientAddressParser addressParser;
+
+    AddressListFieldLenientImpl(final Field rawField, final DecodeMonitor monitor,
+            final LenientAddressParser addressParser) {
         super(rawField, monitor);
+        this.addressParser = addressParser;
     }
 
     public AddressList getAddressList() {
@@ -68,15 +72,29 @@ public class AddressListFieldLenientImpl extends AbstractField implements Addres
             pos = 0;
         }
         ParserCursor cursor = new ParserCursor(pos, buf.length());
-        addressList = LenientAddressParser.DEFAULT.parseAddressList(buf, cursor);
+        addressList = addressParser.parseAddressList(buf, cursor);
     }
 
-    public static final FieldParser<AddressListField> PARSER = new FieldParser<AddressListField>() {
+    public static final FieldParser<AddressListField> PARSER = createParser(LenientAddressParser.DEFAULT);
 
-        public AddressListField parse(final Field rawField, final DecodeMonitor monitor) {
-            return new AddressListFieldLenientImpl(rawField, monitor);
+    /**
+     * Creates a parser for address list fields whose addresses are parsed by the given
+     * address parser, e.g. one that caches recurring mailboxes.
+     *
+     * @param addressParser the address parser.
+     * @return a parser for address list fields.
+     */
+    public static FieldParser<AddressListField> createParser(final LenientAddressParser addressParser) {
+        if (addressParser == null) {
+            throw new IllegalArgumentException("Address parser may not be null");
         }
+        return new FieldParser<AddressListField>() {
+
+            public AddressListField parse(final Field rawField, final DecodeMonitor monitor) {
+                return new AddressListFieldLenientImpl(rawField, monitor, addressParser);
+            }
 
-    };
+        };
+    }
 
 }
@@ -35,6 +35,7 @@ import org.apache.james.mime4j.field.contentdisposition.parser.ParseException;
 import org.apache.james.mime4j.field.contentdisposition.parser.TokenMgrError;
 import org.apache.james.mime4j.field.datetime.parser.DateTimeParser;
 import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.stream.NameValuePair;
 
 /**
  * Represents a <code>Content-Disposition</code> field.
@@ -215,6 +216,16 @@ public class ContentDispositionFieldImpl extends AbstractField implements Conten
     }
 
     private void parse() {
+        RawParameterizedValueParser rawParser = new RawParameterizedValueParser(false);
+        if (rawParser.parse(rawField)) {
+            dispositionType = rawParser.getType().toLowerCase(Locale.US);
+            for (NameValuePair param : rawParser.getParams()) {
+                parameters.put(param.getName().toLowerCase(Locale.US), param.getValue());
+            }
+            parsed = true;
+            return;
+        }
+
         String body = getBody();
 
         ContentDispositionParser parser = new ContentDispositionParser(
@@ -32,6 +32,7 @@ import org.apache.james.mime4j.field.contenttype.parser.ContentTypeParser;
 import org.apache.james.mime4j.field.contenttype.parser.ParseException;
 import org.apache.james.mime4j.field.contenttype.parser.TokenMgrError;
 import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.stream.NameValuePair;
 
 /**
  * Represents a <code>Content-Type</code> field.
@@ -189,6 +190,18 @@ public class ContentTypeFieldImpl extends AbstractField implements ContentTypeFi
     }
 
     private void parse() {
+        RawParameterizedValueParser rawParser = new RawParameterizedValueParser(true);
+        if (rawParser.parse(rawField)) {
+            mediaType = rawParser.getType();
+            subType = rawParser.getSubType();
+            mimeType = (mediaType + "/" + subType).toLowerCase();
+            for (NameValuePair param : rawParser.getParams()) {
+                parameters.put(param.getName().toLowerCase(), param.getValue());
+            }
+            parsed = true;
+            return;
+        }
+
         String body = getBody();
 
         ContentTypeParser parser = new ContentTypeParser(new StringReader(body));
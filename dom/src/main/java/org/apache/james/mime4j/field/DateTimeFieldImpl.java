@@ -25,6 +25,7 @@ import java.util.Date;
 import org.apache.james.mime4j.codec.DecodeMonitor;
 import org.apache.james.mime4j.dom.FieldParser;
 import org.apache.james.mime4j.dom.field.DateTimeField;
+import org.apache.james.mime4j.field.datetime.DateTimeScanner;
 import org.apache.james.mime4j.field.datetime.parser.DateTimeParser;
 import org.apache.james.mime4j.field.datetime.parser.ParseException;
 import org.apache.james.mime4j.field.datetime.parser.TokenMgrError;
@@ -67,6 +68,15 @@ public class DateTimeFieldImpl extends AbstractField implements DateTimeField {
     private void parse() {
         String body = getBody();
 
+        long time = DateTimeScanner.scan(body, true);
+        if (time != DateTimeScanner.NO_DATE) {
+            date = new Date(time);
+            parsed = true;
+            return;
+        }
+
+        // comments, unusual digit counts and malformed values are left to
+        // the generated parser, which also reports the parse exception
         try {
             date = new DateTimeParser(new StringReader(body)).parseAll()
                     .getDate();
@@ -31,10 +31,14 @@ import java.util.TimeZone;
 import org.apache.james.mime4j.codec.DecodeMonitor;
 import org.apache.james.mime4j.dom.FieldParser;
 import org.apache.james.mime4j.dom.field.DateTimeField;
+import org.apache.james.mime4j.field.datetime.DateTimeScanner;
 import org.apache.james.mime4j.stream.Field;
 
 /**
  * Date-time field such as <code>Date</code> or <code>Resent-Date</code>.
+ * <p>
+ * Values recognized by {@link DateTimeScanner} interpret two digit years
+ * according to RFC 5322 rather than relative to the current date.
  */
 public class DateTimeFieldLenientImpl extends AbstractField implements DateTimeField {
 
@@ -81,6 +85,11 @@ public class DateTimeFieldLenientImpl extends AbstractField implements DateTimeF
         if (body != null) {
             body = body.trim();
         }
+        long time = DateTimeScanner.scan(body, false);
+        if (time != DateTimeScanner.NO_DATE) {
+            date = new Date(time);
+            return;
+        }
         for (String datePattern : datePatterns) {
             try {
                 SimpleDateFormat parser = new SimpleDateFormat(datePattern, Locale.US);
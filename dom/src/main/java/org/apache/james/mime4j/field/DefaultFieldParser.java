@@ -121,7 +121,17 @@ public class DefaultFieldParser extends DelegatingFieldParser {
     }
 
     public DefaultFieldParser() {
-        super(UnstructuredFieldImpl.PARSER);
+        this(null);
+    }
+
+    /**
+     * Creates a new parser that shares the parsed representation of
+     * frequently repeated fields through the given cache.
+     *
+     * @param cache cache of parsed fields or <code>null</code>
+     */
+    public DefaultFieldParser(final ParsedFieldCache cache) {
+        super(UnstructuredFieldImpl.PARSER, cache);
         setFieldParser(FieldName.CONTENT_TYPE,
                 ContentTypeFieldImpl.PARSER);
         setFieldParser(FieldName.CONTENT_LENGTH,
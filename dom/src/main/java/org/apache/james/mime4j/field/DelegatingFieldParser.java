@@ -31,11 +31,25 @@ public class DelegatingFieldParser implements FieldParser<ParsedField> {
 
     private final FieldParser<? extends ParsedField> defaultParser;
     private final Map<String, FieldParser<? extends ParsedField>> parsers;
+    private final ParsedFieldCache cache;
 
     public DelegatingFieldParser(final FieldParser<? extends ParsedField> defaultParser) {
+        this(defaultParser, null);
+    }
+
+    /**
+     * Creates a new parser that looks up frequently repeated fields in the
+     * given cache before parsing them.
+     *
+     * @param defaultParser the parser for fields without a specific parser
+     * @param cache cache of parsed fields or <code>null</code>
+     */
+    public DelegatingFieldParser(final FieldParser<? extends ParsedField> defaultParser,
+            final ParsedFieldCache cache) {
         super();
         this.defaultParser = defaultParser;
         this.parsers = new HashMap<String, FieldParser<? extends ParsedField>>();
+        this.cache = cache;
     }
 
     /**
@@ -57,6 +71,9 @@ public class DelegatingFieldParser implements FieldParser<ParsedField> {
 
     public ParsedField parse(final Field rawField, final DecodeMonitor monitor) {
         final FieldParser<? extends ParsedField> parser = getParser(rawField.getName());
+        if (cache != null) {
+            return cache.parse(parser, rawField, monitor);
+        }
         return parser.parse(rawField, monitor);
     }
 }
@@ -39,6 +39,7 @@ import org.apache.james.mime4j.dom.field.MailboxListField;
 import org.apache.james.mime4j.dom.field.MimeVersionField;
 import org.apache.james.mime4j.dom.field.ParsedField;
 import org.apache.james.mime4j.dom.field.UnstructuredField;
+import org.apache.james.mime4j.field.address.LenientAddressParser;
 import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.stream.RawField;
 import org.apache.james.mime4j.stream.RawFieldParser;
@@ -131,7 +132,30 @@ public class LenientFieldParser extends DelegatingFieldParser {
     }
 
     public LenientFieldParser() {
-        super(UnstructuredFieldImpl.PARSER);
+        this(null);
+    }
+
+    /**
+     * Creates a new parser that shares the parsed representation of
+     * frequently repeated fields through the given cache.
+     *
+     * @param cache cache of parsed fields or <code>null</code>
+     */
+    public LenientFieldParser(final ParsedFieldCache cache) {
+        this(cache, LenientAddressParser.DEFAULT);
+    }
+
+    /**
+     * Creates a new parser that parses the addresses of address and mailbox
+     * fields with the given address parser. Passing a parser created by
+     * {@link LenientAddressParser#LenientAddressParser(DecodeMonitor, int)}
+     * lets the parsed mailboxes of recurring senders and recipients be shared.
+     *
+     * @param cache cache of parsed fields or <code>null</code>
+     * @param addressParser parser of addresses and mailboxes
+     */
+    public LenientFieldParser(final ParsedFieldCache cache, final LenientAddressParser addressParser) {
+        super(UnstructuredFieldImpl.PARSER, cache);
         setFieldParser(FieldName.CONTENT_TYPE,
                 ContentTypeFieldLenientImpl.PARSER);        // lenient
         setFieldParser(FieldName.CONTENT_LENGTH,
@@ -157,15 +181,15 @@ public class LenientFieldParser extends DelegatingFieldParser {
         setFieldParser(FieldName.DATE, dateTimeParser);
         setFieldParser(FieldName.RESENT_DATE, dateTimeParser);
 
-        FieldParser<MailboxListField> mailboxListParser = MailboxListFieldLenientImpl.PARSER;
+        FieldParser<MailboxListField> mailboxListParser = MailboxListFieldLenientImpl.createParser(addressParser);
         setFieldParser(FieldName.FROM, mailboxListParser);
         setFieldParser(FieldName.RESENT_FROM, mailboxListParser);
 
-        FieldParser<MailboxField> mailboxParser = MailboxFieldLenientImpl.PARSER;
+        FieldParser<MailboxField> mailboxParser = MailboxFieldLenientImpl.createParser(addressParser);
         setFieldParser(FieldName.SENDER, mailboxParser);
         setFieldParser(FieldName.RESENT_SENDER, mailboxParser);
 
-        FieldParser<AddressListField> addressListParser = AddressListFieldLenientImpl.PARSER;
+        FieldParser<AddressListField> addressListParser = AddressListFieldLenientImpl.createParser(addressParser);
         setFieldParser(FieldName.TO, addressListParser);
         setFieldParser(FieldName.RESENT_TO, addressListParser);
         setFieldParser(FieldName.CC, addressListParser);
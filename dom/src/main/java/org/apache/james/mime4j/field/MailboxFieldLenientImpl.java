@@ -39,8 +39,12 @@ public class MailboxFieldLenientImpl extends AbstractField implements MailboxFie
 
     private Mailbox mailbox;
 
-    MailboxFieldLenientImpl(final Field rawField, final DecodeMonitor monitor) {
+    private final LenientAddressParser addressParser;
+
+    MailboxFieldLenientImpl(final Field rawField, final DecodeMonitor monitor,
+            final LenientAddressParser addressParser) {
         super(rawField, monitor);
+        this.addressParser = addressParser;
     }
 
     public Mailbox getMailbox() {
@@ -64,14 +68,28 @@ public class MailboxFieldLenientImpl extends AbstractField implements MailboxFie
             pos = 0;
         }
         ParserCursor cursor = new ParserCursor(pos, buf.length());
-        mailbox = LenientAddressParser.DEFAULT.parseMailbox(buf, cursor, null);
+        mailbox = addressParser.parseMailbox(buf, cursor, null);
     }
 
-    public static final FieldParser<MailboxField> PARSER = new FieldParser<MailboxField>() {
+    public static final FieldParser<MailboxField> PARSER = createParser(LenientAddressParser.DEFAULT);
 
-        public MailboxField parse(final Field rawField, final DecodeMonitor monitor) {
-            return new MailboxFieldLenientImpl(rawField, monitor);
+    /**
+     * Creates a parser for mailbox fields whose addresses are parsed by the given
+     * address parser, e.g. one that caches recurring mailboxes.
+     *
+     * @param addressParser the address parser.
+     * @return a parser for mailbox fields.
+     */
+    public static FieldParser<MailboxField> createParser(final LenientAddressParser addressParser) {
+        if (addressParser == null) {
+            throw new IllegalArgumentException("Address parser may not be null");
         }
+        return new FieldParser<MailboxField>() {
+
+            public MailboxField parse(final Field rawField, final DecodeMonitor monitor) {
+                return new MailboxFieldLenientImpl(rawField, monitor, addressParser);
+            }
 
-    };
+        };
+    }
 }
@@ -42,8 +42,12 @@ public class MailboxListFieldLenientImpl extends AbstractField implements Mailbo
 
     private MailboxList mailboxList;
 
-    MailboxListFieldLenientImpl(final Field rawField, final DecodeMonitor monitor) {
+    private final LenientAddressParser addressParser;
+
+    MailboxListFieldLenientImpl(final Field rawField, final DecodeMonitor monitor,
+            final LenientAddressParser addressParser) {
         super(rawField, monitor);
+        this.addressParser = addressParser;
     }
 
     public MailboxList getMailboxList() {
@@ -68,15 +72,29 @@ public class MailboxListFieldLenientImpl extends AbstractField implements Mailbo
             pos = 0;
         }
         ParserCursor cursor = new ParserCursor(pos, buf.length());
-        mailboxList = LenientAddressParser.DEFAULT.parseAddressList(buf, cursor).flatten();
+        mailboxList = addressParser.parseAddressList(buf, cursor).flatten();
     }
 
-    public static final FieldParser<MailboxListField> PARSER = new FieldParser<MailboxListField>() {
+    public static final FieldParser<MailboxListField> PARSER = createParser(LenientAddressParser.DEFAULT);
 
-        public MailboxListField parse(final Field rawField, final DecodeMonitor monitor) {
-            return new MailboxListFieldLenientImpl(rawField, monitor);
+    /**
+     * Creates a parser for mailbox list fields whose addresses are parsed by the given
+     * address parser, e.g. one that caches recurring mailboxes.
+     *
+     * @param addressParser the address parser.
+     * @return a parser for mailbox list fields.
+     */
+    public static FieldParser<MailboxListField> createParser(final LenientAddressParser addressParser) {
+        if (addressParser == null) {
+            throw new IllegalArgumentException("Address parser may not be null");
         }
+        return new FieldParser<MailboxListField>() {
+
+            public MailboxListField parse(final Field rawField, final DecodeMonitor monitor) {
+                return new MailboxListFieldLenientImpl(rawField, monitor, addressParser);
+            }
 
-    };
+        };
+    }
 
 }
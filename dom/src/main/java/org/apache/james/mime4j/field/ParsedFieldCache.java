@@ -0,0 +1,271 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.field;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.codec.DecodeMonitor;
+import org.apache.james.mime4j.dom.FieldParser;
+import org.apache.james.mime4j.dom.field.ContentTransferEncodingField;
+import org.apache.james.mime4j.dom.field.ContentTypeField;
+import org.apache.james.mime4j.dom.field.FieldName;
+import org.apache.james.mime4j.dom.field.MimeVersionField;
+import org.apache.james.mime4j.dom.field.ParsedField;
+import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.stream.RawField;
+import org.apache.james.mime4j.stream.RawFieldParser;
+import org.apache.james.mime4j.util.ByteArrayBuffer;
+import org.apache.james.mime4j.util.ByteSequence;
+
+/**
+ * Bounded, thread-safe cache of parsed fields keyed on the raw bytes of the
+ * field. When processing large numbers of messages the same
+ * <code>Content-Type</code>, <code>Content-Transfer-Encoding</code> and
+ * <code>MIME-Version</code> fields occur over and over again; with a cache
+ * these are parsed once and the resulting field instance is shared.
+ * <p>
+ * Only fields whose parsed representation is immutable are cached. They are
+ * completely parsed before being added to the cache so that the instances
+ * can be shared between threads and messages. Fields that fail to parse are
+ * never cached so that every occurrence is reported to the
+ * {@link DecodeMonitor} in use. A cached field therefore had nothing to
+ * report, but it keeps referring to the monitor in use when it was first
+ * parsed rather than to the monitor of the messages that later share it.
+ * <p>
+ * Entries are spread over several independently locked segments so that
+ * parser threads rarely contend; within a segment the least recently used
+ * entry is evicted once the segment is full. Lookups compare the raw bytes
+ * of a field in place; they are only copied when a field is added.
+ * <p>
+ * A cache can be passed to {@link DefaultFieldParser} or
+ * {@link LenientFieldParser} and may be shared by several parsers.
+ */
+public class ParsedFieldCache {
+
+    /**
+     * The default maximum number of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    /**
+     * Fields longer than this are unlikely to repeat and are never cached.
+     */
+    private static final int MAX_FIELD_LENGTH = 512;
+
+    private static final int SEGMENTS = 16;
+    // smaller segments would make eviction order noticeably less exact
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final Segment[] segments;
+
+    /**
+     * Creates a new cache with a maximum of {@link #DEFAULT_MAX_ENTRIES}
+     * entries.
+     */
+    public ParsedFieldCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxEntries
+     *            maximum number of fields retained by this cache.
+     */
+    public ParsedFieldCache(final int maxEntries) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Maximum number of entries must be positive");
+
+        int segmentCount = Math.max(1, Math.min(SEGMENTS, maxEntries / MIN_SEGMENT_SIZE));
+        int perSegment = (maxEntries + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    /**
+     * Returns the number of fields currently held by this cache.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes all fields from this cache.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the cached field for the given raw field or parses it with the
+     * given parser.
+     *
+     * @param parser
+     *            parser responsible for the field.
+     * @param rawField
+     *            the field to parse.
+     * @param monitor
+     *            decoding monitor used while parsing.
+     * @return a parsed field, possibly shared.
+     */
+    ParsedField parse(final FieldParser<? extends ParsedField> parser,
+            final Field rawField, final DecodeMonitor monitor) {
+        ByteSequence raw = rawField.getRaw();
+        if (!(rawField instanceof RawField) || raw == null
+                || raw.length() > MAX_FIELD_LENGTH || !isCacheable(rawField.getName())) {
+            return parser.parse(rawField, monitor);
+        }
+
+        Key key = new Key(parser, raw);
+        Segment segment = segmentFor(key);
+        ParsedField field;
+        synchronized (segment) {
+            field = segment.get(key);
+        }
+        if (field != null) {
+            return field;
+        }
+
+        byte[] bytes = raw.toByteArray();
+        ByteArrayBuffer buf = new ByteArrayBuffer(bytes, true);
+
+        // parse a private copy so that the cached field does not retain
+        // the buffer of the message it was first seen in
+        RawField copy;
+        try {
+            copy = RawFieldParser.DEFAULT.parseField(buf);
+        } catch (MimeException ex) {
+            return parser.parse(rawField, monitor);
+        }
+        field = parser.parse(copy, monitor);
+        if (prepare(field)) {
+            synchronized (segment) {
+                segment.put(new Key(parser, buf), field);
+            }
+        }
+        return field;
+    }
+
+    private Segment segmentFor(final Key key) {
+        int h = key.hash;
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return segments[(h & 0x7fffffff) % segments.length];
+    }
+
+    private static boolean isCacheable(final String name) {
+        return name.equalsIgnoreCase(FieldName.CONTENT_TYPE)
+                || name.equalsIgnoreCase(FieldName.CONTENT_TRANSFER_ENCODING)
+                || name.equalsIgnoreCase(FieldName.MIME_VERSION);
+    }
+
+    /**
+     * Forces the field to be parsed and returns whether it can be shared.
+     */
+    private static boolean prepare(final ParsedField field) {
+        if (field instanceof ContentTypeField) {
+            if (((ContentTypeField) field).getMimeType() == null) {
+                return false;
+            }
+        } else if (field instanceof ContentTransferEncodingField) {
+            ((ContentTransferEncodingField) field).getEncoding();
+        } else if (field instanceof MimeVersionField) {
+            ((MimeVersionField) field).getMajorVersion();
+        } else {
+            return false;
+        }
+        return field.getParseException() == null;
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, ParsedField> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Segment(final int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ParsedField> eldest) {
+            return size() > maxEntries;
+        }
+
+    }
+
+    private static final class Key {
+
+        private final FieldParser<? extends ParsedField> parser;
+        private final ByteSequence bytes;
+        private final int hash;
+
+        Key(final FieldParser<? extends ParsedField> parser, final ByteSequence bytes) {
+            this.parser = parser;
+            this.bytes = bytes;
+            int h = 1;
+            for (int i = 0; i < bytes.length(); i++) {
+                h = 31 * h + bytes.byteAt(i);
+            }
+            this.hash = 31 * System.identityHashCode(parser) + h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            if (hash != other.hash || parser != other.parser)
+                return false;
+            int len = bytes.length();
+            if (len != other.bytes.length())
+                return false;
+            for (int i = 0; i < len; i++) {
+                if (bytes.byteAt(i) != other.bytes.byteAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+    }
+
+}
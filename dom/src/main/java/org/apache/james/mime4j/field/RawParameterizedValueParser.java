@@ -0,0 +1,261 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.field;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.stream.NameValuePair;
+import org.apache.james.mime4j.stream.ParserCursor;
+import org.apache.james.mime4j.stream.RawField;
+import org.apache.james.mime4j.stream.RawFieldParser;
+import org.apache.james.mime4j.util.ByteSequence;
+import org.apache.james.mime4j.util.ContentUtil;
+
+/**
+ * Recognizes the <code>value *(";" attribute "=" value)</code> grammar shared
+ * by the generated <code>Content-Type</code> and
+ * <code>Content-Disposition</code> parsers directly from the raw bytes of a
+ * field, using {@link RawFieldParser} for the lexical work.
+ * <p>
+ * The grammar, the token characters, quoted pairs and comments are handled
+ * exactly as the generated parsers do. Parameter names are kept as they appear
+ * in the field so that RFC 2231 continuations such as
+ * <code>filename*0*</code> are reported the same way. Whenever the input does
+ * not conform to the grammar {@link #parse(Field)} returns <code>false</code>
+ * and the caller is expected to run the generated parser, which provides the
+ * parse exception and any partial results.
+ */
+final class RawParameterizedValueParser {
+
+    private static final BitSet SPECIALS = RawFieldParser.INIT_BITSET(
+            '(', ')', '<', '>', '@', ',', ';', ':', '\\', '\"', '/', '[', ']', '?', '=');
+
+    private final boolean subType;
+
+    private String value1;
+    private String value2;
+    private List<NameValuePair> params;
+
+    /**
+     * @param subType
+     *            <code>true</code> if the value consists of a type and a
+     *            subtype separated by a slash.
+     */
+    RawParameterizedValueParser(boolean subType) {
+        this.subType = subType;
+    }
+
+    /**
+     * Returns the type or the disposition type.
+     */
+    String getType() {
+        return value1;
+    }
+
+    /**
+     * Returns the subtype or <code>null</code> if no subtype is expected.
+     */
+    String getSubType() {
+        return value2;
+    }
+
+    List<NameValuePair> getParams() {
+        return params;
+    }
+
+    /**
+     * Parses the given field.
+     *
+     * @return <code>true</code> if the field body was recognized,
+     *         <code>false</code> if the generated parser has to be used.
+     */
+    boolean parse(final Field field) {
+        ByteSequence buf;
+        int pos;
+        if (field instanceof RawField && field.getRaw() != null) {
+            buf = field.getRaw();
+            pos = ((RawField) field).getDelimiterIdx() + 1;
+        } else {
+            String body = field.getBody();
+            if (body == null || !isLatin1(body)) {
+                return false;
+            }
+            buf = ContentUtil.encode(body);
+            pos = 0;
+        }
+        return parse(buf, new ParserCursor(pos, buf.length()));
+    }
+
+    private boolean parse(final ByteSequence buf, final ParserCursor cursor) {
+        params = new ArrayList<NameValuePair>();
+        if (!skipCfws(buf, cursor)) {
+            return false;
+        }
+        value1 = parseAtom(buf, cursor);
+        if (value1 == null) {
+            return false;
+        }
+        if (subType) {
+            if (!skipCfws(buf, cursor) || !expect(buf, cursor, '/') || !skipCfws(buf, cursor)) {
+                return false;
+            }
+            value2 = parseAtom(buf, cursor);
+            if (value2 == null) {
+                return false;
+            }
+        }
+        while (true) {
+            if (!skipCfws(buf, cursor)) {
+                return false;
+            }
+            if (cursor.atEnd()) {
+                return true;
+            }
+            if (!expect(buf, cursor, ';') || !skipCfws(buf, cursor)) {
+                return false;
+            }
+            String name = parseAtom(buf, cursor);
+            if (name == null || !skipCfws(buf, cursor) || !expect(buf, cursor, '=')
+                    || !skipCfws(buf, cursor) || cursor.atEnd()) {
+                return false;
+            }
+            String value;
+            if (buf.byteAt(cursor.getPos()) == '\"') {
+                value = parseQuotedString(buf, cursor);
+            } else {
+                value = parseToken(buf, cursor);
+            }
+            if (value == null) {
+                return false;
+            }
+            params.add(new NameValuePair(name, value));
+        }
+    }
+
+    private boolean expect(final ByteSequence buf, final ParserCursor cursor, final char c) {
+        if (cursor.atEnd() || buf.byteAt(cursor.getPos()) != c) {
+            return false;
+        }
+        cursor.updatePos(cursor.getPos() + 1);
+        return true;
+    }
+
+    /**
+     * Parses a token that the generated parsers would not treat as a number.
+     */
+    private String parseAtom(final ByteSequence buf, final ParserCursor cursor) {
+        String token = parseToken(buf, cursor);
+        if (token == null) {
+            return null;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            char ch = token.charAt(i);
+            if (ch < '0' || ch > '9') {
+                return token;
+            }
+        }
+        return null;
+    }
+
+    private String parseToken(final ByteSequence buf, final ParserCursor cursor) {
+        StringBuilder dst = new StringBuilder();
+        RawFieldParser.DEFAULT.copyContent(buf, cursor, SPECIALS, dst);
+        return dst.length() > 0 ? dst.toString() : null;
+    }
+
+    /**
+     * Copies a quoted string removing the backslash of every quoted pair, or
+     * returns <code>null</code> if it is not terminated.
+     */
+    private String parseQuotedString(final ByteSequence buf, final ParserCursor cursor) {
+        StringBuilder dst = new StringBuilder();
+        int pos = cursor.getPos() + 1;
+        int indexTo = cursor.getUpperBound();
+        while (pos < indexTo) {
+            char current = (char) (buf.byteAt(pos) & 0xff);
+            if (current == '\"') {
+                cursor.updatePos(pos + 1);
+                return dst.toString();
+            }
+            if (current == '\\') {
+                pos++;
+                if (pos == indexTo) {
+                    return null;
+                }
+                current = (char) (buf.byteAt(pos) & 0xff);
+                if (current == '\r' || current == '\n') {
+                    return null;
+                }
+                dst.append(current);
+            } else if (current != '\r' && current != '\n') {
+                // line breaks are removed by unfolding
+                dst.append(current);
+            }
+            pos++;
+        }
+        return null;
+    }
+
+    /**
+     * Skips whitespace and comments, returning <code>false</code> if a
+     * comment is not terminated.
+     */
+    private boolean skipCfws(final ByteSequence buf, final ParserCursor cursor) {
+        while (true) {
+            RawFieldParser.DEFAULT.skipWhiteSpace(buf, cursor);
+            if (cursor.atEnd() || buf.byteAt(cursor.getPos()) != '(') {
+                return true;
+            }
+            int pos = cursor.getPos() + 1;
+            int indexTo = cursor.getUpperBound();
+            int level = 1;
+            while (level > 0) {
+                if (pos == indexTo) {
+                    return false;
+                }
+                char current = (char) (buf.byteAt(pos++) & 0xff);
+                if (current == '\\') {
+                    if (pos == indexTo) {
+                        return false;
+                    }
+                    pos++;
+                } else if (current == '(') {
+                    level++;
+                } else if (current == ')') {
+                    level--;
+                }
+            }
+            cursor.updatePos(pos);
+        }
+    }
+
+    private static boolean isLatin1(final String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xff) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
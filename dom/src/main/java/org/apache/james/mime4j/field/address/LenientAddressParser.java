@@ -55,16 +55,72 @@ public class LenientAddressParser implements AddressParser {
     private static final BitSet COMMA_ONLY             = RawFieldParser.INIT_BITSET(COMMA);
     private static final BitSet COLON_ONLY             = RawFieldParser.INIT_BITSET(COLON);
     private static final BitSet SEMICOLON_ONLY         = RawFieldParser.INIT_BITSET(SEMICOLON);
+    private static final BitSet COMMA_OR_SEMICOLON     = RawFieldParser.INIT_BITSET(COMMA, SEMICOLON);
+
+    // delimiter sets of the individual productions, precomputed for the
+    // delimiters passed in by the enclosing productions of this parser
+    private static final BitSet ROUTE                  = RawFieldParser.INIT_BITSET(COMMA, COLON);
+    private static final BitSet ROUTE_IN_BRACKETS      = RawFieldParser.INIT_BITSET(COMMA, COLON, CLOSING_BRACKET);
+    private static final BitSet MAILBOX                = RawFieldParser.INIT_BITSET(AT, OPENING_BRACKET);
+    private static final BitSet MAILBOX_IN_LIST        = RawFieldParser.INIT_BITSET(AT, OPENING_BRACKET, COMMA);
+    private static final BitSet MAILBOX_IN_GROUP       = RawFieldParser.INIT_BITSET(AT, OPENING_BRACKET, COMMA, SEMICOLON);
+    private static final BitSet ADDRESS                = RawFieldParser.INIT_BITSET(COLON, AT, OPENING_BRACKET);
+    private static final BitSet ADDRESS_IN_LIST        = RawFieldParser.INIT_BITSET(COLON, AT, OPENING_BRACKET, COMMA);
 
     public static final LenientAddressParser DEFAULT = new LenientAddressParser(DecodeMonitor.SILENT);
 
     private final DecodeMonitor monitor;
     private final RawFieldParser parser;
+    // members of address lists
+    private final MailboxCache cache;
+    // mailboxes parsed on their own, e.g. from a Sender field; kept apart
+    // since the same bytes may denote a group in an address list
+    private final MailboxCache mailboxCache;
 
     protected LenientAddressParser(final DecodeMonitor monitor) {
+        this(monitor, 0);
+    }
+
+    /**
+     * Creates a parser that caches the mailboxes of address lists and
+     * mailboxes parsed on their own, such as the mailbox of a
+     * <code>Sender</code> field. Recurring
+     * mailboxes are then parsed only once and shared, which is safe as
+     * mailboxes are immutable. Display names are decoded only once, so the
+     * cache is best combined with a silent monitor.
+     * <p>
+     * The {@link #DEFAULT} instance does not cache. A caching parser pays off
+     * when it is kept for a stream of messages with recurring senders and
+     * recipients, e.g. by a mailing list or mailbox indexer.
+     *
+     * @param monitor
+     *            monitor used to report invalid encoded words.
+     * @param cacheSize
+     *            maximum number of cached mailboxes of each kind or
+     *            <code>0</code> to disable caching.
+     */
+    public LenientAddressParser(final DecodeMonitor monitor, final int cacheSize) {
         super();
         this.monitor = monitor;
         this.parser = new RawFieldParser();
+        this.cache = cacheSize > 0 ? new MailboxCache(cacheSize) : null;
+        this.mailboxCache = cacheSize > 0 ? new MailboxCache(cacheSize) : null;
+    }
+
+    /**
+     * Returns the number of cached mailboxes.
+     */
+    int getCacheSize() {
+        return cache != null ? cache.size() + mailboxCache.size() : 0;
+    }
+
+    private static BitSet union(final BitSet base, final BitSet delimiters) {
+        if (delimiters == null) {
+            return base;
+        }
+        BitSet bitset = (BitSet) base.clone();
+        bitset.or(delimiters);
+        return bitset;
     }
 
     String parseDomain(final ByteSequence buf, final ParserCursor cursor, final BitSet delimiters) {
@@ -85,10 +141,7 @@ public class LenientAddressParser implements AddressParser {
     }
 
     DomainList parseRoute(final ByteSequence buf, final ParserCursor cursor, final BitSet delimiters) {
-        BitSet bitset = RawFieldParser.INIT_BITSET(COMMA, COLON);
-        if (delimiters != null) {
-            bitset.or(delimiters);
-        }
+        BitSet bitset = delimiters == CLOSING_BRACKET_ONLY ? ROUTE_IN_BRACKETS : union(ROUTE, delimiters);
         List<String> domains = null;
         for (;;) {
             this.parser.skipAllWhiteSpace(buf, cursor);
@@ -192,9 +245,33 @@ public class LenientAddressParser implements AddressParser {
 
     public Mailbox parseMailbox(
             final ByteSequence buf, final ParserCursor cursor, final BitSet delimiters) {
-        BitSet bitset = RawFieldParser.INIT_BITSET(AT, OPENING_BRACKET);
-        if (delimiters != null) {
-            bitset.or(delimiters);
+        if (mailboxCache == null || delimiters != null) {
+            return parseUncachedMailbox(buf, cursor, delimiters);
+        }
+        int start = cursor.getPos();
+        int end = cursor.getUpperBound();
+        Mailbox mailbox = mailboxCache.get(buf, start, end);
+        if (mailbox != null) {
+            cursor.updatePos(end);
+            return mailbox;
+        }
+        mailbox = parseUncachedMailbox(buf, cursor, null);
+        // the result only depends on the given bytes if all of them were parsed
+        if (mailbox != null && cursor.atEnd()) {
+            mailboxCache.put(buf, start, end, mailbox);
+        }
+        return mailbox;
+    }
+
+    private Mailbox parseUncachedMailbox(
+            final ByteSequence buf, final ParserCursor cursor, final BitSet delimiters) {
+        BitSet bitset;
+        if (delimiters == COMMA_OR_SEMICOLON) {
+            bitset = MAILBOX_IN_GROUP;
+        } else if (delimiters == COMMA_ONLY) {
+            bitset = MAILBOX_IN_LIST;
+        } else {
+            bitset = union(MAILBOX, delimiters);
         }
         String openingText = this.parser.parseValue(buf, cursor, bitset);
         if (cursor.atEnd()) {
@@ -223,10 +300,7 @@ public class LenientAddressParser implements AddressParser {
 
     List<Mailbox> parseMailboxes(
             final ByteSequence buf, final ParserCursor cursor, final BitSet delimiters) {
-        BitSet bitset = RawFieldParser.INIT_BITSET(COMMA);
-        if (delimiters != null) {
-            bitset.or(delimiters);
-        }
+        BitSet bitset = delimiters == SEMICOLON_ONLY ? COMMA_OR_SEMICOLON : union(COMMA_ONLY, delimiters);
         List<Mailbox> mboxes = new ArrayList<Mailbox>();
         while (!cursor.atEnd()) {
             int pos = cursor.getPos();
@@ -267,10 +341,7 @@ public class LenientAddressParser implements AddressParser {
 
     public Address parseAddress(
             final ByteSequence buf, final ParserCursor cursor, final BitSet delimiters) {
-        BitSet bitset = RawFieldParser.INIT_BITSET(COLON, AT, OPENING_BRACKET);
-        if (delimiters != null) {
-            bitset.or(delimiters);
-        }
+        BitSet bitset = delimiters == COMMA_ONLY ? ADDRESS_IN_LIST : union(ADDRESS, delimiters);
         String openingText = this.parser.parseValue(buf, cursor, bitset);
         if (cursor.atEnd()) {
             return createMailbox(openingText);
@@ -316,7 +387,9 @@ public class LenientAddressParser implements AddressParser {
             if (current == COMMA) {
                 cursor.updatePos(pos + 1);
             } else {
-                Address address = parseAddress(buf, cursor, COMMA_ONLY);
+                Address address = cache != null
+                        ? parseCachedAddress(buf, cursor)
+                        : parseAddress(buf, cursor, COMMA_ONLY);
                 if (address != null) {
                     addresses.add(address);
                 }
@@ -325,6 +398,59 @@ public class LenientAddressParser implements AddressParser {
         return new AddressList(addresses, false);
     }
 
+    /**
+     * Looks up the address list member at the cursor in the cache, parsing and
+     * caching it if it is a mailbox not seen before.
+     */
+    private Address parseCachedAddress(final ByteSequence buf, final ParserCursor cursor) {
+        int start = cursor.getPos();
+        int end = findDelimiter(buf, start, cursor.getUpperBound());
+        Mailbox mailbox = cache.get(buf, start, end);
+        if (mailbox != null) {
+            cursor.updatePos(end);
+            return mailbox;
+        }
+        Address address = parseAddress(buf, cursor, COMMA_ONLY);
+        // the result only depends on the given bytes if parsing stopped at
+        // the delimiter found by the scan
+        if (address instanceof Mailbox && cursor.getPos() == end) {
+            cache.put(buf, start, end, (Mailbox) address);
+        }
+        return address;
+    }
+
+    /**
+     * Returns the index of the first comma that is neither quoted nor part of
+     * a comment, or <code>indexTo</code> if there is none.
+     */
+    private static int findDelimiter(final ByteSequence buf, final int indexFrom, final int indexTo) {
+        boolean quoted = false;
+        int comment = 0;
+        for (int i = indexFrom; i < indexTo; i++) {
+            char current = (char) (buf.byteAt(i) & 0xff);
+            if (current == '\\') {
+                i++;
+            } else if (quoted) {
+                if (current == '\"') {
+                    quoted = false;
+                }
+            } else if (comment > 0) {
+                if (current == '(') {
+                    comment++;
+                } else if (current == ')') {
+                    comment--;
+                }
+            } else if (current == '\"') {
+                quoted = true;
+            } else if (current == '(') {
+                comment++;
+            } else if (current == COMMA) {
+                return i;
+            }
+        }
+        return indexTo;
+    }
+
     public AddressList parseAddressList(final CharSequence text) {
         ByteSequence raw = ContentUtil.encode(text);
         ParserCursor cursor = new ParserCursor(0, text.length());
@@ -0,0 +1,150 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.field.address;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.james.mime4j.dom.address.Mailbox;
+import org.apache.james.mime4j.util.ByteArrayBuffer;
+import org.apache.james.mime4j.util.ByteSequence;
+
+/**
+ * Bounded, thread-safe cache of parsed mailboxes keyed on their raw bytes.
+ * Entries are spread over several independently locked LRU segments, so
+ * threads sharing a cache rarely contend. A lookup allocates a key that
+ * refers to the parsed bytes; the bytes are only copied when an entry is
+ * added.
+ */
+final class MailboxCache {
+
+    private static final int SEGMENTS = 16;
+    // smaller segments would make eviction order noticeably less exact
+    private static final int MIN_SEGMENT_SIZE = 64;
+
+    private final Segment[] segments;
+
+    MailboxCache(final int maxEntries) {
+        int segmentCount = Math.max(1, Math.min(SEGMENTS, maxEntries / MIN_SEGMENT_SIZE));
+        int perSegment = (maxEntries + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+    }
+
+    Mailbox get(final ByteSequence buf, final int start, final int end) {
+        Key key = new Key(buf, start, end - start);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    void put(final ByteSequence buf, final int start, final int end, final Mailbox mailbox) {
+        int len = end - start;
+        ByteArrayBuffer copy = new ByteArrayBuffer(len);
+        for (int i = start; i < end; i++) {
+            copy.append(buf.byteAt(i));
+        }
+        Key key = new Key(copy, 0, len);
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, mailbox);
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentFor(final Key key) {
+        int h = key.hash;
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return segments[(h & 0x7fffffff) % segments.length];
+    }
+
+    private static final class Segment extends LinkedHashMap<Key, Mailbox> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Segment(final int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Mailbox> eldest) {
+            return size() > maxEntries;
+        }
+
+    }
+
+    private static final class Key {
+
+        private final ByteSequence buf;
+        private final int off;
+        private final int len;
+        private final int hash;
+
+        Key(final ByteSequence buf, final int off, final int len) {
+            this.buf = buf;
+            this.off = off;
+            this.len = len;
+            int h = 1;
+            for (int i = off; i < off + len; i++) {
+                h = 31 * h + buf.byteAt(i);
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            if (hash != other.hash || len != other.len)
+                return false;
+            for (int i = 0; i < len; i++) {
+                if (buf.byteAt(off + i) != other.buf.byteAt(other.off + i))
+                    return false;
+            }
+            return true;
+        }
+
+    }
+
+}
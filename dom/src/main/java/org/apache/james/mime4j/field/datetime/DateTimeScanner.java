@@ -0,0 +1,374 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.field.datetime;
+
+/**
+ * Single-pass scanner for RFC 5322 date-time values that computes the epoch
+ * milliseconds directly from the characters of a field body, without creating
+ * intermediate objects or throwing exceptions.
+ * <p>
+ * The scanner recognizes
+ * <pre>
+ * [day-of-week ","] day month year hour ":" minute [":" second] zone
+ * </pre>
+ * including two digit years and the obsolete zones <code>UT</code>,
+ * <code>GMT</code> and the North American zone abbreviations. In strict mode
+ * it accepts exactly the subset of the RFC 5322 grammar that is understood by
+ * the generated {@link org.apache.james.mime4j.field.datetime.parser.DateTimeParser}
+ * and yields the same results; military zones are ignored as recommended by
+ * RFC 5322. In lenient mode names are matched case-insensitively, long day
+ * and month names, fractional seconds and the zones <code>UTC</code>,
+ * <code>Z</code> and <code>0000</code> are accepted, and anything following
+ * the zone (such as a comment with the zone name) is ignored.
+ * <p>
+ * In lenient mode two digit years are interpreted as recommended by RFC
+ * 5322, section 4.3: 00 to 49 denote 2000 to 2049, 50 to 99 denote 1950 to
+ * 1999. The <code>SimpleDateFormat</code> patterns previously used by the
+ * lenient <code>Date</code> field instead placed such years within 80 years
+ * before and 20 years after the current date, so that the result of a given
+ * value moved as time went by; in 2026 they mapped 46 to 49 to 1946 to
+ * 1949.
+ * <p>
+ * Values that cannot be recognized make the scanner return {@link #NO_DATE};
+ * callers are expected to fall back on a more general parser in that case.
+ */
+public final class DateTimeScanner {
+
+    /**
+     * Value returned by {@link #scan(CharSequence, boolean)} if the input
+     * could not be recognized.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final String[] DAYS = {
+        "Mon", "Tue", "Wed", "Thu", "Fri", "Sat", "Sun"
+    };
+
+    private static final String[] LONG_DAYS = {
+        "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"
+    };
+
+    private static final String[] MONTHS = {
+        "Jan", "Feb", "Mar", "Apr", "May", "Jun",
+        "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"
+    };
+
+    private static final String[] LONG_MONTHS = {
+        "January", "February", "March", "April", "May", "June",
+        "July", "August", "September", "October", "November", "December"
+    };
+
+    private static final String[] OBS_ZONES = {
+        "UT", "GMT", "EST", "EDT", "CST", "CDT", "MST", "MDT", "PST", "PDT"
+    };
+
+    private static final int[] OBS_ZONE_OFFSETS = {
+        0, 0, -5 * 60, -4 * 60, -6 * 60, -5 * 60, -7 * 60, -6 * 60, -8 * 60, -7 * 60
+    };
+
+    private static final int MIN_YEAR = 1600;
+    private static final int MAX_YEAR = 9999;
+
+    private final CharSequence s;
+    private final boolean strict;
+    private final int end;
+    private int pos;
+
+    private DateTimeScanner(final CharSequence s, final boolean strict) {
+        this.s = s;
+        this.strict = strict;
+        this.end = s.length();
+        this.pos = 0;
+    }
+
+    /**
+     * Scans the given date-time value.
+     *
+     * @param s
+     *            the date-time value, usually the body of a <code>Date</code>
+     *            field.
+     * @param strict
+     *            <code>true</code> to accept only values the strict parser
+     *            would accept, <code>false</code> for lenient scanning.
+     * @return the number of milliseconds since the epoch or {@link #NO_DATE}
+     *         if the value could not be recognized.
+     */
+    public static long scan(final CharSequence s, final boolean strict) {
+        if (s == null) {
+            return NO_DATE;
+        }
+        return new DateTimeScanner(s, strict).scan();
+    }
+
+    private long scan() {
+        skipWhitespace();
+        if (pos < end && isLetter(s.charAt(pos))) {
+            if (matchName(DAYS, strict ? null : LONG_DAYS) < 0) {
+                return NO_DATE;
+            }
+            skipWhitespace();
+            if (pos < end && s.charAt(pos) == ',') {
+                pos++;
+            } else if (strict) {
+                return NO_DATE;
+            }
+            skipWhitespace();
+        }
+
+        int day = number(1, 2);
+        if (day < 0) {
+            return NO_DATE;
+        }
+        skipWhitespace();
+        int month = matchName(MONTHS, strict ? null : LONG_MONTHS);
+        if (month < 0) {
+            return NO_DATE;
+        }
+        skipWhitespace();
+        int yearStart = pos;
+        int year = number(2, 4);
+        if (year < 0) {
+            return NO_DATE;
+        }
+        switch (pos - yearStart) {
+        case 2:
+            if (strict) {
+                // same rule as the generated parser
+                year += s.charAt(yearStart) > '6' ? 1900 : 2000;
+            } else {
+                // RFC 5322, section 4.3
+                year += year < 50 ? 2000 : 1900;
+            }
+            break;
+        case 4:
+            break;
+        default:
+            return NO_DATE;
+        }
+        if (year < MIN_YEAR || year > MAX_YEAR) {
+            return NO_DATE;
+        }
+
+        skipWhitespace();
+        int hour = number(1, 2);
+        if (hour < 0 || !expect(':')) {
+            return NO_DATE;
+        }
+        int minute = number(1, 2);
+        if (minute < 0) {
+            return NO_DATE;
+        }
+        int second = 0;
+        skipWhitespace();
+        if (pos < end && s.charAt(pos) == ':') {
+            pos++;
+            skipWhitespace();
+            second = number(1, 2);
+            if (second < 0) {
+                return NO_DATE;
+            }
+        } else if (!strict) {
+            return NO_DATE;
+        }
+        int millis = 0;
+        if (!strict && pos < end && s.charAt(pos) == '.') {
+            pos++;
+            millis = number(1, 3);
+            if (millis < 0) {
+                return NO_DATE;
+            }
+        }
+
+        skipWhitespace();
+        int zone = zone();
+        if (zone == Integer.MIN_VALUE) {
+            return NO_DATE;
+        }
+        if (strict) {
+            skipWhitespace();
+            if (pos != end) {
+                return NO_DATE;
+            }
+        } else if (pos < end && isLetterOrDigit(s.charAt(pos))) {
+            return NO_DATE;
+        }
+
+        long days = daysFromCivil(year, month) + day - 1;
+        long seconds = days * 86400L + hour * 3600L + (minute - zone) * 60L + second;
+        return seconds * 1000L + millis;
+    }
+
+    /**
+     * Returns the zone offset in minutes or <code>Integer.MIN_VALUE</code>.
+     */
+    private int zone() {
+        if (pos >= end) {
+            return Integer.MIN_VALUE;
+        }
+        char c = s.charAt(pos);
+        if (c == '+' || c == '-') {
+            pos++;
+            if (strict) {
+                skipWhitespace();
+            }
+            int start = pos;
+            int hhmm = number(4, 4);
+            if (hhmm < 0 || pos - start != 4) {
+                return Integer.MIN_VALUE;
+            }
+            int offset = (hhmm / 100) * 60 + hhmm % 100;
+            return c == '-' ? -offset : offset;
+        }
+        if (!strict && c == '0') {
+            // "0000" without a sign denotes GMT in some broken mailers
+            int start = pos;
+            if (number(4, 4) == 0 && pos - start == 4) {
+                return 0;
+            }
+            return Integer.MIN_VALUE;
+        }
+        if (!isLetter(c)) {
+            return Integer.MIN_VALUE;
+        }
+        int start = pos;
+        while (pos < end && isLetter(s.charAt(pos))) {
+            pos++;
+        }
+        int len = pos - start;
+        for (int i = 0; i < OBS_ZONES.length; i++) {
+            if (regionMatches(start, len, OBS_ZONES[i])) {
+                return OBS_ZONE_OFFSETS[i];
+            }
+        }
+        if (len == 1) {
+            if (strict) {
+                // military zones are ignored as per RFC 5322, section 4.3
+                return c != 'J' && c != 'j' ? 0 : Integer.MIN_VALUE;
+            }
+            return c == 'Z' || c == 'z' ? 0 : Integer.MIN_VALUE;
+        }
+        if (!strict && regionMatches(start, len, "UTC")) {
+            return 0;
+        }
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Matches one of the given names and returns its one-based index or -1.
+     */
+    private int matchName(final String[] names, final String[] longNames) {
+        int start = pos;
+        while (pos < end && isLetter(s.charAt(pos))) {
+            pos++;
+        }
+        int len = pos - start;
+        for (int i = 0; i < names.length; i++) {
+            if (regionMatches(start, len, names[i])
+                    || longNames != null && regionMatches(start, len, longNames[i])) {
+                return i + 1;
+            }
+        }
+        return -1;
+    }
+
+    private boolean regionMatches(final int start, final int len, final String name) {
+        if (len != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < len; i++) {
+            char c1 = s.charAt(start + i);
+            char c2 = name.charAt(i);
+            if (c1 != c2 && (strict || (c1 | 0x20) != (c2 | 0x20))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a number with at least <code>min</code> and at most
+     * <code>max</code> digits and returns it or -1.
+     */
+    private int number(final int min, final int max) {
+        int start = pos;
+        int n = 0;
+        while (pos < end && pos - start < max) {
+            char c = s.charAt(pos);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            n = n * 10 + (c - '0');
+            pos++;
+        }
+        if (pos - start < min || pos < end && isDigit(s.charAt(pos))) {
+            return -1;
+        }
+        return n;
+    }
+
+    private boolean expect(final char c) {
+        skipWhitespace();
+        if (pos < end && s.charAt(pos) == c) {
+            pos++;
+            skipWhitespace();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < end) {
+            char c = s.charAt(pos);
+            if (c == ' ' || c == '\t' || !strict && (c == '\r' || c == '\n')) {
+                pos++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetter(final char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    private static boolean isLetterOrDigit(final char c) {
+        return isLetter(c) || isDigit(c);
+    }
+
+    /**
+     * Returns the number of days from the epoch to the first day of the given
+     * month in the proleptic Gregorian calendar.
+     */
+    private static long daysFromCivil(int year, final int month) {
+        if (month <= 2) {
+            year--;
+        }
+        final int era = year / 400;
+        final int yoe = year - era * 400;
+        final int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5;
+        final int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097L + doe - 719468L;
+    }
+
+}
@@ -31,7 +31,7 @@ import org.apache.james.mime4j.message.DefaultMessageImplFactory;
 import org.apache.james.mime4j.message.HeaderImpl;
 import org.apache.james.mime4j.message.MessageImplFactory;
 import org.apache.james.mime4j.message.MultipartImpl;
-import org.apache.james.mime4j.parser.ContentHandler;
+import org.apache.james.mime4j.parser.BatchContentHandler;
 import org.apache.james.mime4j.stream.BodyDescriptor;
 import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.util.ByteArrayBuffer;
@@ -39,15 +39,16 @@ import org.apache.james.mime4j.util.ByteSequence;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 import java.util.Stack;
 
 /**
  * A <code>ContentHandler</code> for building an <code>Entity</code> to be
  * used in conjunction with a {@link org.apache.james.mime4j.parser.MimeStreamParser}.
  */
-public class ParserStreamContentHandler implements ContentHandler {
+public class ParserStreamContentHandler implements BatchContentHandler {
 
-    private final Entity entity;
+    private Entity entity;
     private final MessageImplFactory messageImplFactory;
     private final BodyFactory bodyFactory;
     private final Stack<Object> stack;
@@ -71,6 +72,17 @@ public class ParserStreamContentHandler implements ContentHandler {
         this.stack = new Stack<Object>();
     }
 
+    /**
+     * Prepares this handler for building another entity, discarding any
+     * state left from a previous parse.
+     *
+     * @param entity the entity to build.
+     */
+    public void reset(final Entity entity) {
+        this.entity = entity;
+        this.stack.clear();
+    }
+
     private void expect(Class<?> c) {
         if (!c.isInstance(stack.peek())) {
             throw new IllegalStateException("Internal stack error: "
@@ -111,6 +123,13 @@ public class ParserStreamContentHandler implements ContentHandler {
         ((Entity) stack.peek()).setHeader(h);
     }
 
+    public void header(List<Field> fields) throws MimeException {
+        expect(Entity.class);
+        HeaderImpl h = new HeaderImpl();
+        h.addFields(fields);
+        ((Entity) stack.peek()).setHeader(h);
+    }
+
     public void startMultipart(final BodyDescriptor bd) throws MimeException {
         expect(Entity.class);
 
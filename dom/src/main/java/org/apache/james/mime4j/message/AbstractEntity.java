@@ -37,6 +37,9 @@ public abstract class AbstractEntity implements Entity {
     private Body body = null;
     private Entity parent = null;
 
+    // serialized size cached by MessageSizeCalculator
+    MessageSizeCalculator.Stamp sizeStamp;
+
     /**
      * Creates a new <code>Entity</code>. Typically invoked implicitly by a
      * subclass constructor.
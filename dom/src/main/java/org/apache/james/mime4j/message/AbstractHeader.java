@@ -33,16 +33,30 @@ import org.apache.james.mime4j.stream.Field;
 
 /**
  * Abstract MIME header.
+ * <p>
+ * A header created as a copy of another <code>AbstractHeader</code> shares
+ * the list of fields with the original until either of them is modified
+ * (copy-on-write), so copying a header is a constant time operation.
  */
 public abstract class AbstractHeader implements Header {
 
-    private final List<Field> fields = new LinkedList<Field>();
-    private final Map<String, List<Field>> fieldMap = new HashMap<String, List<Field>>();
+    private List<Field> fields;
+    private Map<String, List<Field>> fieldMap;
+
+    /*
+     * true if fields and fieldMap may be referenced by another header and have
+     * to be copied before they can be modified.
+     */
+    private boolean shared;
+
+    private int modCount;
 
     /**
      * Creates a new empty <code>Header</code>.
      */
     public AbstractHeader() {
+        fields = new LinkedList<Field>();
+        fieldMap = new HashMap<String, List<Field>>();
     }
 
     /**
@@ -51,13 +65,26 @@ public abstract class AbstractHeader implements Header {
      * with a copy of the list of {@link Field}s of the specified
      * <code>Header</code>. The <code>Field</code> objects are not copied
      * because they are immutable and can safely be shared between headers.
+     * <p>
+     * If the specified header is an <code>AbstractHeader</code> the list of
+     * fields is not copied until either header is modified.
      *
      * @param other
      *            header to copy.
      */
     public AbstractHeader(Header other) {
-        for (Field otherField : other.getFields()) {
-            addField(otherField);
+        if (other instanceof AbstractHeader) {
+            AbstractHeader that = (AbstractHeader) other;
+            that.shared = true;
+            fields = that.fields;
+            fieldMap = that.fieldMap;
+            shared = true;
+        } else {
+            fields = new LinkedList<Field>();
+            fieldMap = new HashMap<String, List<Field>>();
+            for (Field otherField : other.getFields()) {
+                addField(otherField);
+            }
         }
     }
 
@@ -67,10 +94,30 @@ public abstract class AbstractHeader implements Header {
      * @param field the field to add.
      */
     public void addField(Field field) {
-        List<Field> values = fieldMap.get(field.getName().toLowerCase(Locale.US));
+        unshare();
+        addField0(field);
+        modCount++;
+    }
+
+    /**
+     * Adds the given fields to the end of the list of fields.
+     *
+     * @param fields the fields to add.
+     */
+    public void addFields(List<? extends Field> fields) {
+        unshare();
+        for (Field field : fields) {
+            addField0(field);
+        }
+        modCount++;
+    }
+
+    private void addField0(Field field) {
+        String key = field.getName().toLowerCase(Locale.US);
+        List<Field> values = fieldMap.get(key);
         if (values == null) {
             values = new LinkedList<Field>();
-            fieldMap.put(field.getName().toLowerCase(Locale.US), values);
+            fieldMap.put(key, values);
         }
         values.add(field);
         fields.add(field);
@@ -181,10 +228,14 @@ public abstract class AbstractHeader implements Header {
      */
     public int removeFields(String name) {
         final String lowerCaseName = name.toLowerCase(Locale.US);
-        List<Field> removed = fieldMap.remove(lowerCaseName);
-        if (removed == null || removed.isEmpty())
+        List<Field> l = fieldMap.get(lowerCaseName);
+        if (l == null || l.isEmpty())
             return 0;
 
+        unshare();
+        modCount++;
+        List<Field> removed = fieldMap.remove(lowerCaseName);
+
         for (Iterator<Field> iterator = fields.iterator(); iterator.hasNext();) {
             Field field = iterator.next();
             if (field.getName().equalsIgnoreCase(name))
@@ -207,10 +258,13 @@ public abstract class AbstractHeader implements Header {
      * @param field the field to set.
      */
     public void setField(Field field) {
+        unshare();
+        modCount++;
+
         final String lowerCaseName = field.getName().toLowerCase(Locale.US);
         List<Field> l = fieldMap.get(lowerCaseName);
         if (l == null || l.isEmpty()) {
-            addField(field);
+            addField0(field);
             return;
         }
 
@@ -232,6 +286,30 @@ public abstract class AbstractHeader implements Header {
         fields.add(firstOccurrence, field);
     }
 
+    /**
+     * Returns the number of structural modifications made to this header.
+     */
+    int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Replaces the field list that may be shared with another header by a
+     * private copy.
+     */
+    private void unshare() {
+        if (!shared)
+            return;
+
+        List<Field> sharedFields = fields;
+        fields = new LinkedList<Field>();
+        fieldMap = new HashMap<String, List<Field>>();
+        shared = false;
+        for (Field field : sharedFields) {
+            addField0(field);
+        }
+    }
+
     /**
      * Return Header Object as String representation. Each headerline is
      * seperated by "\r\n"
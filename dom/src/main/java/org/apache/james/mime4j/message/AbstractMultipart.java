@@ -38,6 +38,8 @@ public abstract class AbstractMultipart implements Multipart {
     private String subType;
     private final List<NameValuePair> contentTypeParameters;
 
+    int modCount;
+
     /**
      * Creates a new empty <code>Multipart</code> instance.
      */
@@ -112,6 +114,7 @@ public abstract class AbstractMultipart implements Multipart {
      */
     public void setBodyParts(List<Entity> bodyParts) {
         this.bodyParts = bodyParts;
+        modCount++;
         for (Entity bodyPart : bodyParts) {
             bodyPart.setParent(parent);
         }
@@ -128,6 +131,7 @@ public abstract class AbstractMultipart implements Multipart {
             throw new IllegalArgumentException();
 
         bodyParts.add(bodyPart);
+        modCount++;
         bodyPart.setParent(parent);
     }
 
@@ -147,6 +151,7 @@ public abstract class AbstractMultipart implements Multipart {
             throw new IllegalArgumentException();
 
         bodyParts.add(index, bodyPart);
+        modCount++;
         bodyPart.setParent(parent);
     }
 
@@ -163,6 +168,7 @@ public abstract class AbstractMultipart implements Multipart {
      */
     public Entity removeBodyPart(int index) {
         Entity bodyPart = bodyParts.remove(index);
+        modCount++;
         bodyPart.setParent(null);
         return bodyPart;
     }
@@ -185,6 +191,7 @@ public abstract class AbstractMultipart implements Multipart {
             throw new IllegalArgumentException();
 
         Entity replacedEntity = bodyParts.set(index, bodyPart);
+        modCount++;
         if (bodyPart == replacedEntity)
             throw new IllegalArgumentException(
                     "Cannot replace body part with itself");
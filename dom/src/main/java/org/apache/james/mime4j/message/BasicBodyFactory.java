@@ -21,7 +21,6 @@ package org.apache.james.mime4j.message;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
@@ -34,6 +33,7 @@ import org.apache.james.mime4j.dom.BinaryBody;
 import org.apache.james.mime4j.dom.SingleBody;
 import org.apache.james.mime4j.dom.TextBody;
 import org.apache.james.mime4j.io.InputStreams;
+import org.apache.james.mime4j.io.Readers;
 import org.apache.james.mime4j.util.ContentUtil;
 
 /**
@@ -166,6 +166,11 @@ public class BasicBodyFactory implements BodyFactory {
             return new StringReader(this.content);
         }
 
+        @Override
+        public long length() {
+            return this.content.length();
+        }
+
         @Override
         public InputStream getInputStream() throws IOException {
             return InputStreams.create(this.content,
@@ -187,6 +192,7 @@ public class BasicBodyFactory implements BodyFactory {
 
         private final byte[] content;
         private final Charset charset;
+        private volatile long length = -1;
 
         StringBody2(final byte[] content, final Charset charset) {
             super();
@@ -201,7 +207,15 @@ public class BasicBodyFactory implements BodyFactory {
 
         @Override
         public Reader getReader() throws IOException {
-            return new InputStreamReader(InputStreams.create(this.content), this.charset);
+            return Readers.create(InputStreams.create(this.content), this.charset);
+        }
+
+        @Override
+        public long length() throws IOException {
+            if (this.length < 0) {
+                this.length = super.length();
+            }
+            return this.length;
         }
 
         @Override
@@ -215,7 +229,9 @@ public class BasicBodyFactory implements BodyFactory {
 
         @Override
         public SingleBody copy() {
-            return new StringBody2(this.content, this.charset);
+            StringBody2 copy = new StringBody2(this.content, this.charset);
+            copy.length = this.length;
+            return copy;
         }
 
     }
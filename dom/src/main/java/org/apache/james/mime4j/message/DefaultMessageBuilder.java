@@ -21,6 +21,7 @@ package org.apache.james.mime4j.message;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 import org.apache.james.mime4j.MimeException;
@@ -44,10 +45,17 @@ import org.apache.james.mime4j.parser.MimeStreamParser;
 import org.apache.james.mime4j.stream.BodyDescriptorBuilder;
 import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.stream.MimeConfig;
+import org.apache.james.mime4j.stream.MimeMetrics;
 import org.apache.james.mime4j.stream.NameValuePair;
 
 /**
  * Default implementation of {@link MessageBuilder}.
+ * <p>
+ * By default {@link #parseMessage(InputStream)} creates a new parser for
+ * every message, so a builder that is not reconfigured may be shared between
+ * threads. Builders confined to a single thread, e.g. those handed out by a
+ * {@link MessageBuilderPool}, may instead keep their parser between calls;
+ * see {@link #setReuseParser(boolean)}.
  */
 public class DefaultMessageBuilder implements MessageBuilder {
 
@@ -59,6 +67,14 @@ public class DefaultMessageBuilder implements MessageBuilder {
     private boolean contentDecoding = true;
     private boolean flatMode = false;
     private DecodeMonitor monitor = null;
+    private MimeMetrics metrics = MimeMetrics.NONE;
+
+    private boolean reuseParser = false;
+
+    // reused by parseMessage, discarded whenever the configuration changes
+    private MimeStreamParser parser = null;
+    private ParserStreamContentHandler handler = null;
+    private boolean parsing = false;
 
     public DefaultMessageBuilder() {
         super();
@@ -66,6 +82,7 @@ public class DefaultMessageBuilder implements MessageBuilder {
 
     public void setFieldParser(final FieldParser<? extends ParsedField> fieldParser) {
         this.fieldParser = fieldParser;
+        this.parser = null;
     }
 
     public void setMessageImplFactory(final MessageImplFactory messageImplFactory) {
@@ -74,18 +91,22 @@ public class DefaultMessageBuilder implements MessageBuilder {
 
     public void setBodyFactory(final BodyFactory bodyFactory) {
         this.bodyFactory = bodyFactory;
+        this.parser = null;
     }
 
     public void setMimeEntityConfig(final MimeConfig config) {
         this.config = config;
+        this.parser = null;
     }
 
     public void setBodyDescriptorBuilder(final BodyDescriptorBuilder bodyDescBuilder) {
         this.bodyDescBuilder  = bodyDescBuilder;
+        this.parser = null;
     }
 
     public void setDecodeMonitor(final DecodeMonitor monitor) {
         this.monitor = monitor;
+        this.parser = null;
     }
 
     public void setContentDecoding(boolean contentDecoding) {
@@ -96,22 +117,50 @@ public class DefaultMessageBuilder implements MessageBuilder {
         this.flatMode = flatMode;
     }
 
+    /**
+     * Sets whether {@link #parseMessage(InputStream)} keeps its parser and
+     * read buffers for the next message instead of creating them anew. A
+     * builder that reuses its parser must not be used by several threads
+     * concurrently. The default is <code>false</code>.
+     *
+     * @param reuseParser <code>true</code> to reuse the parser between
+     *   messages.
+     * @see MessageBuilderPool
+     */
+    public void setReuseParser(boolean reuseParser) {
+        this.reuseParser = reuseParser;
+        this.parser = null;
+        this.handler = null;
+    }
+
+    /**
+     * Sets the metrics receiving the counters of the parser and the time
+     * spent building messages.
+     *
+     * @param metrics the metrics or <code>null</code> to disable
+     *   instrumentation.
+     * @see MimeMetrics
+     */
+    public void setMetrics(final MimeMetrics metrics) {
+        this.metrics = metrics != null ? metrics : MimeMetrics.NONE;
+    }
+
     /**
      * Creates a new <code>Header</code> from the specified
      * <code>Header</code>. The <code>Header</code> instance is initialized
      * with a copy of the list of {@link Field}s of the specified
      * <code>Header</code>. The <code>Field</code> objects are not copied
      * because they are immutable and can safely be shared between headers.
+     * <p>
+     * The list of fields itself is only copied once either header gets
+     * modified (see {@link AbstractHeader}), so copying a header takes
+     * constant time.
      *
      * @param other
      *            header to copy.
      */
     public Header copy(Header other) {
-        HeaderImpl copy = new HeaderImpl();
-        for (Field otherField : other.getFields()) {
-            copy.addField(otherField);
-        }
-        return copy;
+        return new HeaderImpl(other);
     }
 
     /**
@@ -165,8 +214,13 @@ public class DefaultMessageBuilder implements MessageBuilder {
         for (Entity otherBodyPart : other.getBodyParts()) {
             copy.addBodyPart(copy(otherBodyPart));
         }
-        copy.setPreamble(other.getPreamble());
-        copy.setEpilogue(other.getEpilogue());
+        if (other instanceof MultipartImpl) {
+            // share preamble and epilogue instead of re-encoding them
+            copy.copyPreambleAndEpilogue((MultipartImpl) other);
+        } else {
+            copy.setPreamble(other.getPreamble());
+            copy.setEpilogue(other.getEpilogue());
+        }
         return copy;
     }
 
@@ -300,8 +354,12 @@ public class DefaultMessageBuilder implements MessageBuilder {
     }
 
     public Message parseMessage(final InputStream is) throws IOException, MimeIOException {
-        try {
-            MessageImpl message = newMessageImpl();
+        MessageImpl message = newMessageImpl();
+        MimeStreamParser parser = this.parser;
+        ParserStreamContentHandler handler = this.handler;
+        // a nested call, e.g. from a body factory, must not disturb the outer parse
+        boolean reuse = reuseParser && !parsing;
+        if (parser == null || !reuse) {
             MimeConfig cfg = config != null ? config : MimeConfig.DEFAULT;
             boolean strict = cfg.isStrictParsing();
             DecodeMonitor mon = monitor != null ? monitor :
@@ -310,19 +368,105 @@ public class DefaultMessageBuilder implements MessageBuilder {
                 new DefaultBodyDescriptorBuilder(null, fieldParser != null ? fieldParser :
                     strict ? DefaultFieldParser.getParser() : LenientFieldParser.getParser(), mon);
             BodyFactory bf = bodyFactory != null ? bodyFactory : new BasicBodyFactory(!strict);
-            MimeStreamParser parser = new MimeStreamParser(cfg, mon, bdb);
-            parser.setContentHandler(new ParserStreamContentHandler(message, bf));
-            parser.setContentDecoding(contentDecoding);
-            if (flatMode) {
-                parser.setFlat();
-            } else {
-                parser.setRecurse();
+            parser = new MimeStreamParser(cfg, mon, bdb);
+            handler = new ParserStreamContentHandler(message, bf);
+            parser.setContentHandler(handler);
+            if (reuse) {
+                this.parser = parser;
+                this.handler = handler;
             }
+        } else {
+            handler.reset(message);
+        }
+        parser.setContentDecoding(contentDecoding);
+        parser.setMetrics(metrics);
+        if (flatMode) {
+            parser.setFlat();
+        } else {
+            parser.setRecurse();
+        }
+        if (reuse) {
+            parsing = true;
+        }
+        long start = metrics.isTimingEnabled() ? System.nanoTime() : 0;
+        try {
             parser.parse(is);
             return message;
         } catch (MimeException e) {
             throw new MimeIOException(e);
+        } finally {
+            if (metrics.isTimingEnabled()) {
+                metrics.time(MimeMetrics.Phase.BUILD, System.nanoTime() - start);
+            }
+            if (reuse) {
+                // do not keep the message reachable from this builder
+                handler.reset(null);
+                parsing = false;
+            }
+        }
+    }
+
+    /**
+     * Parses a message from the given content without materializing its
+     * body. Only the top-level header is parsed up front; multipart bodies,
+     * body parts and their content are read from the content source when
+     * they are first accessed. Bodies reference ranges of the content rather
+     * than copies of it, so the content must remain available and unchanged
+     * while the message is in use.
+     *
+     * @param content the raw message content.
+     * @return the lazily parsed message.
+     */
+    public Message parseLazyMessage(final RandomAccessContent content) throws IOException, MimeIOException {
+        if (content == null) {
+            throw new IllegalArgumentException("Content may not be null");
+        }
+        MimeConfig cfg = config != null ? config : MimeConfig.DEFAULT;
+        boolean strict = cfg.isStrictParsing();
+        DecodeMonitor mon = monitor != null ? monitor :
+            strict ? DecodeMonitor.STRICT : DecodeMonitor.SILENT;
+        FieldParser<? extends ParsedField> fp = fieldParser != null ? fieldParser :
+            strict ? DefaultFieldParser.getParser() : LenientFieldParser.getParser();
+        try {
+            return new LazyMessage(new LazySource(content, cfg, mon, fp, contentDecoding), null);
+        } catch (MimeException e) {
+            throw new MimeIOException(e);
+        }
+    }
+
+    /**
+     * Parses a message from a region of the given buffer without copying it.
+     *
+     * @see #parseLazyMessage(RandomAccessContent)
+     */
+    public Message parseLazyMessage(final byte[] buf, int off, int len) throws IOException, MimeIOException {
+        if (buf == null) {
+            throw new IllegalArgumentException("Buffer may not be null");
+        }
+        if (off < 0 || len < 0 || off + len > buf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        return parseLazyMessage(new LazySource.ByteArrayContent(buf, off, len));
+    }
+
+    public Message parseLazyMessage(final byte[] buf) throws IOException, MimeIOException {
+        return parseLazyMessage(buf, 0, buf.length);
+    }
+
+    /**
+     * Parses a message from the remaining content of the given buffer. Heap
+     * buffers are used in place; the content of direct buffers is copied
+     * once.
+     *
+     * @see #parseLazyMessage(RandomAccessContent)
+     */
+    public Message parseLazyMessage(final ByteBuffer buf) throws IOException, MimeIOException {
+        if (buf.hasArray()) {
+            return parseLazyMessage(buf.array(), buf.arrayOffset() + buf.position(), buf.remaining());
         }
+        byte[] content = new byte[buf.remaining()];
+        buf.duplicate().get(content);
+        return parseLazyMessage(content);
     }
 
     private MessageImpl newMessageImpl() {
@@ -22,6 +22,8 @@ package org.apache.james.mime4j.message;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
 
 import org.apache.james.mime4j.codec.Base64OutputStream;
 import org.apache.james.mime4j.codec.QuotedPrintableOutputStream;
@@ -35,20 +37,42 @@ import org.apache.james.mime4j.dom.Multipart;
 import org.apache.james.mime4j.dom.SingleBody;
 import org.apache.james.mime4j.dom.field.ContentTypeField;
 import org.apache.james.mime4j.dom.field.FieldName;
+import org.apache.james.mime4j.io.StagingOutputStream;
 import org.apache.james.mime4j.stream.Field;
 import org.apache.james.mime4j.util.ByteArrayBuffer;
+import org.apache.james.mime4j.util.ByteArraySlice;
 import org.apache.james.mime4j.util.ByteSequence;
 import org.apache.james.mime4j.util.ContentUtil;
 import org.apache.james.mime4j.util.MimeUtil;
 
 /**
  * Default implementation of {@link MessageWriter}.
+ * <p>
+ * Output is staged in an internal buffer of configurable size so that the
+ * many small writes for fields, line breaks and boundaries reach the target
+ * stream in large chunks. The same buffer is used to copy body content.
  */
 public class DefaultMessageWriter implements MessageWriter {
 
-    private static final byte[] CRLF = { '\r', '\n' };
+    static final byte[] CRLF = { '\r', '\n' };
     private static final byte[] DASHES = { '-', '-' };
 
+    /**
+     * Per-thread scratch buffers used to serialize fields that have no raw
+     * representation, so that writing a header does not allocate.
+     */
+    private static final class FieldBuffers {
+        final ByteArrayBuffer line = new ByteArrayBuffer(256);
+        final ByteArrayBuffer folded = new ByteArrayBuffer(256);
+    }
+
+    private static final ThreadLocal<FieldBuffers> FIELD_BUFFERS = new ThreadLocal<FieldBuffers>() {
+        @Override
+        protected FieldBuffers initialValue() {
+            return new FieldBuffers();
+        }
+    };
+
     public static byte[] asBytes(Message message) throws IOException {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         DefaultMessageWriter writer = new DefaultMessageWriter();
@@ -56,10 +80,28 @@ public class DefaultMessageWriter implements MessageWriter {
         return buffer.toByteArray();
     }
 
+    private final int bufferSize;
+
     /**
-     * Protected constructor prevents direct instantiation.
+     * Creates a writer that uses a staging buffer of
+     * {@link StagingOutputStream#DEFAULT_BUFFER_SIZE} bytes.
      */
     public DefaultMessageWriter() {
+        this(StagingOutputStream.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a writer that uses a staging buffer of the given size.
+     *
+     * @param bufferSize
+     *            size of the buffer used to coalesce writes and to copy body
+     *            content.
+     */
+    public DefaultMessageWriter(int bufferSize) {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Buffer size may not be negative or zero");
+        }
+        this.bufferSize = bufferSize;
     }
 
     /**
@@ -79,7 +121,9 @@ public class DefaultMessageWriter implements MessageWriter {
         } else if (body instanceof Multipart) {
             writeMultipart((Multipart) body, out);
         } else if (body instanceof SingleBody) {
-            ((SingleBody) body).writeTo(out);
+            OutputStream staged = stage(out);
+            ((SingleBody) body).writeTo(staged);
+            unstage(staged, out);
         } else
             throw new IllegalArgumentException("Unsupported body class");
     }
@@ -100,21 +144,25 @@ public class DefaultMessageWriter implements MessageWriter {
         if (header == null)
             throw new IllegalArgumentException("Missing header");
 
-        writeHeader(header, out);
+        final OutputStream staged = stage(out);
+
+        writeHeader(header, staged);
 
         final Body body = entity.getBody();
         if (body == null)
             throw new IllegalArgumentException("Missing body");
 
         boolean binaryBody = body instanceof BinaryBody;
-        OutputStream encOut = encodeStream(out, entity
+        OutputStream encOut = encodeStream(staged, entity
                 .getContentTransferEncoding(), binaryBody);
 
         writeBody(body, encOut);
 
         // close if wrapped (base64 or quoted-printable)
-        if (encOut != out)
+        if (encOut != staged)
             encOut.close();
+
+        unstage(staged, out);
     }
 
     /**
@@ -132,6 +180,26 @@ public class DefaultMessageWriter implements MessageWriter {
         writeEntity(message, out);
     }
 
+    /**
+     * Write the specified <code>Message</code> to the specified
+     * <code>WritableByteChannel</code>. If the channel is a
+     * {@link java.nio.channels.GatheringByteChannel} staged output and large
+     * chunks of content are passed on in gathering writes. The channel is
+     * expected to be in blocking mode and is not closed.
+     *
+     * @param message
+     *            the <code>Message</code> to write.
+     * @param channel
+     *            the channel to write to.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public void writeMessage(Message message, WritableByteChannel channel) throws IOException {
+        StagingOutputStream staged = new StagingOutputStream(channel, bufferSize);
+        writeEntity(message, staged);
+        staged.flushBuffer();
+    }
+
     /**
      * Write the specified <code>Multipart</code> to the specified
      * <code>OutputStream</code>.
@@ -149,6 +217,9 @@ public class DefaultMessageWriter implements MessageWriter {
 
         ByteSequence boundary = getBoundary(contentType);
 
+        final OutputStream target = out;
+        out = stage(target);
+
         ByteSequence preamble;
         ByteSequence epilogue;
         if (multipart instanceof MultipartImpl) {
@@ -163,14 +234,7 @@ public class DefaultMessageWriter implements MessageWriter {
             out.write(CRLF);
         }
 
-        for (Entity bodyPart : multipart.getBodyParts()) {
-            out.write(DASHES);
-            writeBytes(boundary, out);
-            out.write(CRLF);
-
-            writeEntity(bodyPart, out);
-            out.write(CRLF);
-        }
+        writeBodyParts(multipart.getBodyParts(), boundary, out);
 
         out.write(DASHES);
         writeBytes(boundary, out);
@@ -179,6 +243,37 @@ public class DefaultMessageWriter implements MessageWriter {
         if (epilogue != null) {
             writeBytes(epilogue, out);
         }
+
+        unstage(out, target);
+    }
+
+    /**
+     * Write the body parts of a multipart, each preceded by a delimiter line
+     * built from the specified boundary, to the specified
+     * <code>OutputStream</code>.
+     *
+     * @param bodyParts
+     *            the body parts to write.
+     * @param boundary
+     *            the multipart boundary.
+     * @param out
+     *            the OutputStream to write to.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    protected void writeBodyParts(List<Entity> bodyParts, ByteSequence boundary,
+            OutputStream out) throws IOException {
+        for (Entity bodyPart : bodyParts) {
+            writeDelimiter(boundary, out);
+            writeEntity(bodyPart, out);
+            out.write(CRLF);
+        }
+    }
+
+    static void writeDelimiter(ByteSequence boundary, OutputStream out) throws IOException {
+        out.write(DASHES);
+        writeBytes(boundary, out);
+        out.write(CRLF);
     }
 
     /**
@@ -195,19 +290,31 @@ public class DefaultMessageWriter implements MessageWriter {
     public void writeField(Field field, OutputStream out) throws IOException {
         ByteSequence raw = field.getRaw();
         if (raw == null) {
-            StringBuilder buf = new StringBuilder();
-            buf.append(field.getName());
-            buf.append(": ");
+            FieldBuffers buffers = FIELD_BUFFERS.get();
+            ByteArrayBuffer line = buffers.line;
+            ByteArrayBuffer folded = buffers.folded;
+            line.clear();
+            folded.clear();
+            appendChars(field.getName(), line);
+            line.append(':');
+            line.append(' ');
             String body = field.getBody();
             if (body != null) {
-                buf.append(body);
+                appendChars(body, line);
             }
-            raw = ContentUtil.encode(MimeUtil.fold(buf.toString(), 0));
+            MimeUtil.fold(line, 0, folded);
+            raw = folded;
         }
         writeBytes(raw, out);
         out.write(CRLF);
     }
 
+    private static void appendChars(String s, ByteArrayBuffer dst) {
+        for (int i = 0; i < s.length(); i++) {
+            dst.append((byte) s.charAt(i));
+        }
+    }
+
     /**
      * Write the specified <code>Header</code> to the specified
      * <code>OutputStream</code>.
@@ -220,11 +327,28 @@ public class DefaultMessageWriter implements MessageWriter {
      *             if an I/O error occurs.
      */
     public void writeHeader(Header header, OutputStream out) throws IOException {
+        OutputStream staged = stage(out);
         for (Field field : header) {
-            writeField(field, out);
+            writeField(field, staged);
         }
 
-        out.write(CRLF);
+        staged.write(CRLF);
+        unstage(staged, out);
+    }
+
+    private OutputStream stage(OutputStream out) {
+        // the encoders buffer their output themselves
+        if (out instanceof StagingOutputStream || out instanceof ByteArrayOutputStream
+                || out instanceof Base64OutputStream || out instanceof QuotedPrintableOutputStream) {
+            return out;
+        }
+        return new StagingOutputStream(out, bufferSize);
+    }
+
+    private static void unstage(OutputStream staged, OutputStream out) throws IOException {
+        if (staged != out) {
+            ((StagingOutputStream) staged).flushBuffer();
+        }
     }
 
     protected OutputStream encodeStream(OutputStream out, String encoding,
@@ -267,11 +391,14 @@ public class DefaultMessageWriter implements MessageWriter {
         return ContentUtil.encode(boundary);
     }
 
-    private void writeBytes(ByteSequence byteSequence, OutputStream out)
+    static void writeBytes(ByteSequence byteSequence, OutputStream out)
             throws IOException {
         if (byteSequence instanceof ByteArrayBuffer) {
             ByteArrayBuffer bab = (ByteArrayBuffer) byteSequence;
             out.write(bab.buffer(), 0, bab.length());
+        } else if (byteSequence instanceof ByteArraySlice) {
+            ByteArraySlice slice = (ByteArraySlice) byteSequence;
+            out.write(slice.buffer(), slice.offset(), slice.length());
         } else {
             out.write(byteSequence.toByteArray());
         }
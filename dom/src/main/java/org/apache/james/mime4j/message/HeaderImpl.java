@@ -32,4 +32,16 @@ public class HeaderImpl extends AbstractHeader {
     public HeaderImpl() {
     }
 
+    /**
+     * Creates a new <code>Header</code> from the specified
+     * <code>Header</code>. The list of fields is shared with the specified
+     * header until either header is modified.
+     *
+     * @param other
+     *            header to copy.
+     */
+    public HeaderImpl(Header other) {
+        super(other);
+    }
+
 }
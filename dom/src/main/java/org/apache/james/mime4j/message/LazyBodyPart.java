@@ -0,0 +1,107 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.IOException;
+
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.dom.Body;
+import org.apache.james.mime4j.dom.Header;
+import org.apache.james.mime4j.stream.StructureIndex;
+
+/**
+ * A <code>BodyPart</code> of a {@link LazyMessage} whose header and body are
+ * parsed from the raw content of the message on first access.
+ */
+final class LazyBodyPart extends BodyPart {
+
+    private final LazySource source;
+    private final StructureIndex.Part part;
+    private boolean headerLoaded;
+    private boolean bodyLoaded;
+
+    LazyBodyPart(final LazySource source, final StructureIndex.Part part) {
+        this.source = source;
+        this.part = part;
+    }
+
+    @Override
+    public Header getHeader() {
+        loadHeader();
+        return super.getHeader();
+    }
+
+    @Override
+    public void setHeader(Header header) {
+        headerLoaded = true;
+        super.setHeader(header);
+    }
+
+    @Override
+    public Body getBody() {
+        loadBody();
+        return super.getBody();
+    }
+
+    @Override
+    public void setBody(Body body) {
+        loadBody();
+        super.setBody(body);
+    }
+
+    @Override
+    public Body removeBody() {
+        loadBody();
+        return super.removeBody();
+    }
+
+    private void loadHeader() {
+        if (headerLoaded) {
+            return;
+        }
+        HeaderImpl header = new HeaderImpl();
+        try {
+            source.parseHeader(part.getHeaderOffset(), part.getEndOffset(), header);
+        } catch (MimeException ex) {
+            throw new IllegalStateException("Unable to parse body part header", ex);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to parse body part header", ex);
+        }
+        super.setHeader(header);
+        // only marked as loaded once parsed, so a failure is reported on
+        // every access
+        headerLoaded = true;
+    }
+
+    private void loadBody() {
+        if (bodyLoaded) {
+            return;
+        }
+        try {
+            super.setBody(source.createBody(this, part, part.getBodyOffset(), part.getEndOffset()));
+            bodyLoaded = true;
+        } catch (MimeException ex) {
+            throw new IllegalStateException("Unable to parse body part", ex);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to parse body part", ex);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.IOException;
+
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.dom.Body;
+import org.apache.james.mime4j.dom.field.ContentTransferEncodingField;
+import org.apache.james.mime4j.dom.field.ContentTypeField;
+import org.apache.james.mime4j.field.ContentTransferEncodingFieldImpl;
+import org.apache.james.mime4j.field.ContentTypeFieldImpl;
+import org.apache.james.mime4j.stream.StructureIndex;
+
+/**
+ * A <code>Message</code> backed by its raw content. Only the header is
+ * parsed when the message is created; the body and any nested entities are
+ * materialized from the underlying bytes the first time they are accessed.
+ * Once materialized, the message can be modified like any other message.
+ * <p>
+ * Instances are created by
+ * {@link DefaultMessageBuilder#parseLazyMessage(RandomAccessContent)}.
+ */
+public class LazyMessage extends AbstractMessage {
+
+    private final LazySource source;
+    private final StructureIndex.Part part;
+    private final long endOffset;
+    private long bodyOffset;
+    private boolean bodyLoaded;
+
+    LazyMessage(final LazySource source, final StructureIndex.Part part) throws MimeException, IOException {
+        this.source = source;
+        this.part = part;
+        long headerOffset = part != null ? part.getHeaderOffset() : 0;
+        this.endOffset = part != null ? part.getEndOffset() : source.length();
+        HeaderImpl header = new HeaderImpl();
+        this.bodyOffset = source.parseHeader(headerOffset, endOffset, header);
+        super.setHeader(header);
+    }
+
+    @Override
+    public Body getBody() {
+        loadBody();
+        return super.getBody();
+    }
+
+    @Override
+    public void setBody(Body body) {
+        loadBody();
+        super.setBody(body);
+    }
+
+    @Override
+    public Body removeBody() {
+        loadBody();
+        return super.removeBody();
+    }
+
+    /**
+     * Returns <code>true</code> if the body of this message has been
+     * materialized.
+     */
+    public boolean isBodyLoaded() {
+        return bodyLoaded;
+    }
+
+    private void loadBody() {
+        if (bodyLoaded) {
+            return;
+        }
+        try {
+            super.setBody(source.createBody(this, part, bodyOffset, endOffset));
+            bodyLoaded = true;
+        } catch (MimeException ex) {
+            throw new IllegalStateException("Unable to parse message body", ex);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to parse message body", ex);
+        }
+    }
+
+    @Override
+    protected String calcTransferEncoding(ContentTransferEncodingField f) {
+        return ContentTransferEncodingFieldImpl.getEncoding(f);
+    }
+
+    @Override
+    protected String calcMimeType(ContentTypeField child, ContentTypeField parent) {
+        return ContentTypeFieldImpl.getMimeType(child, parent);
+    }
+
+    @Override
+    protected String calcCharset(ContentTypeField contentType) {
+        return ContentTypeFieldImpl.getCharset(contentType);
+    }
+
+}
@@ -0,0 +1,338 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.james.mime4j.Charsets;
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.codec.Base64InputStream;
+import org.apache.james.mime4j.codec.DecodeMonitor;
+import org.apache.james.mime4j.codec.QuotedPrintableInputStream;
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.Body;
+import org.apache.james.mime4j.dom.FieldParser;
+import org.apache.james.mime4j.dom.Header;
+import org.apache.james.mime4j.dom.SingleBody;
+import org.apache.james.mime4j.dom.TextBody;
+import org.apache.james.mime4j.dom.field.ParsedField;
+import org.apache.james.mime4j.io.InputStreams;
+import org.apache.james.mime4j.io.Readers;
+import org.apache.james.mime4j.stream.EntityState;
+import org.apache.james.mime4j.stream.MimeConfig;
+import org.apache.james.mime4j.stream.MimeTokenStream;
+import org.apache.james.mime4j.stream.RecursionMode;
+import org.apache.james.mime4j.stream.StructureIndex;
+import org.apache.james.mime4j.util.ByteArraySlice;
+import org.apache.james.mime4j.util.CharsetUtil;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.apache.james.mime4j.util.MimeUtil;
+
+/**
+ * Raw message content shared by the entities of a lazily parsed message.
+ * Headers are parsed on demand from the underlying bytes; the offsets of
+ * nested entities are taken from a {@link StructureIndex} that is built
+ * with a single pass over the content the first time a composite body is
+ * navigated to.
+ */
+final class LazySource {
+
+    private final RandomAccessContent content;
+    private final MimeConfig config;
+    private final DecodeMonitor monitor;
+    private final FieldParser<? extends ParsedField> fieldParser;
+    private final boolean contentDecoding;
+
+    private StructureIndex index;
+
+    LazySource(
+            final RandomAccessContent content,
+            final MimeConfig config,
+            final DecodeMonitor monitor,
+            final FieldParser<? extends ParsedField> fieldParser,
+            final boolean contentDecoding) {
+        this.content = content;
+        this.config = MimeConfig.copy(config).setBuildStructureIndex(true).build();
+        this.monitor = monitor;
+        this.fieldParser = fieldParser;
+        this.contentDecoding = contentDecoding;
+    }
+
+    long length() {
+        return content.length();
+    }
+
+    InputStream open(long from, long to) throws IOException {
+        return content.getInputStream(from, to - from);
+    }
+
+    private byte[] read(long from, long to) throws IOException {
+        InputStream in = open(from, to);
+        try {
+            return ContentUtil.buffer(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    synchronized StructureIndex getIndex() throws MimeException, IOException {
+        if (index == null) {
+            MimeTokenStream stream = new MimeTokenStream(config, monitor, null);
+            stream.setRecursionMode(RecursionMode.M_RECURSE);
+            stream.parse(open(0, length()));
+            while (stream.next() != EntityState.T_END_OF_STREAM) {
+            }
+            index = stream.getStructureIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Parses the header of the entity starting at <code>from</code> into
+     * <code>header</code> and returns the offset of its body.
+     */
+    long parseHeader(long from, long to, Header header) throws MimeException, IOException {
+        MimeTokenStream stream = new MimeTokenStream(config, monitor, null);
+        stream.setRecursionMode(RecursionMode.M_RAW);
+        stream.parse(open(from, to));
+        for (EntityState state = stream.getState();
+                state != EntityState.T_END_HEADER && state != EntityState.T_END_OF_STREAM;
+                state = stream.next()) {
+            if (state == EntityState.T_FIELD) {
+                header.addField(fieldParser.parse(stream.getField(), monitor));
+            }
+        }
+        long bodyOffset = stream.getStructureIndex().getRoot().getBodyOffset();
+        return bodyOffset >= 0 ? from + bodyOffset : to;
+    }
+
+    /**
+     * Creates the body of <code>entity</code> spanning the given range. The
+     * structure index part of the entity is only required for composite
+     * bodies; <code>null</code> denotes the root of this source.
+     */
+    Body createBody(
+            final AbstractEntity entity,
+            final StructureIndex.Part part,
+            final long bodyOffset,
+            final long endOffset) throws MimeException, IOException {
+        String mimeType = entity.getMimeType();
+        String transferEncoding = entity.getContentTransferEncoding();
+        if (entity.isMultipart()) {
+            StructureIndex.Part p = part != null ? part : getIndex().getRoot();
+            return createMultipart(p, mimeType.substring(mimeType.indexOf('/') + 1),
+                    bodyOffset, endOffset);
+        }
+        if (MimeUtil.isMessage(mimeType)) {
+            StructureIndex.Part p = part != null ? part : getIndex().getRoot();
+            StructureIndex.Part embedded = p.getEmbeddedMessage();
+            if (embedded != null && embedded.getHeaderOffset() >= 0) {
+                return new LazyMessage(this, embedded);
+            } else if (embedded != null) {
+                byte[] decoded = ContentUtil.buffer(
+                        decode(open(bodyOffset, endOffset), transferEncoding));
+                return new LazyMessage(new LazySource(new ByteArrayContent(decoded, 0, decoded.length),
+                        config, monitor, fieldParser, contentDecoding), null);
+            }
+        }
+        if (mimeType.startsWith("text/")) {
+            return new LazyTextBody(this, bodyOffset, endOffset, transferEncoding,
+                    entity.getCharset());
+        } else {
+            return new LazyBinaryBody(this, bodyOffset, endOffset, transferEncoding);
+        }
+    }
+
+    private Body createMultipart(
+            final StructureIndex.Part part,
+            final String subType,
+            final long bodyOffset,
+            final long endOffset) throws IOException {
+        MultipartImpl multipart = new MultipartImpl(subType);
+        List<StructureIndex.Part> children = part.getChildren();
+        if (children.isEmpty()) {
+            byte[] buf = read(bodyOffset, endOffset);
+            multipart.setPreambleRaw(new ByteArraySlice(buf, 0, buf.length));
+            return multipart;
+        }
+        // the preamble ends with the line break preceding the first delimiter
+        // line; like the parser, report none if the body starts with it
+        byte[] buf = read(bodyOffset, children.get(0).getHeaderOffset());
+        int pos = buf.length;
+        if (pos > 0 && buf[pos - 1] == '\n') {
+            pos--;
+        }
+        while (pos > 0 && buf[pos - 1] != '\n') {
+            pos--;
+        }
+        if (pos > 0) {
+            pos--;
+            if (pos > 0 && buf[pos - 1] == '\r') {
+                pos--;
+            }
+            multipart.setPreambleRaw(new ByteArraySlice(buf, 0, pos));
+        }
+        // the epilogue follows the line of the close delimiter, if anything does
+        buf = read(children.get(children.size() - 1).getEndOffset(), endOffset);
+        pos = 0;
+        if (pos < buf.length && buf[pos] == '\r') {
+            pos++;
+        }
+        if (pos < buf.length && buf[pos] == '\n') {
+            pos++;
+        }
+        while (pos < buf.length && buf[pos++] != '\n') {
+        }
+        if (pos < buf.length) {
+            multipart.setEpilogueRaw(new ByteArraySlice(buf, pos, buf.length - pos));
+        }
+        for (StructureIndex.Part child : children) {
+            multipart.addBodyPart(new LazyBodyPart(this, child));
+        }
+        return multipart;
+    }
+
+    private InputStream decode(InputStream in, String transferEncoding) {
+        if (!contentDecoding) {
+            return in;
+        } else if (MimeUtil.isBase64Encoding(transferEncoding)) {
+            return new Base64InputStream(in, monitor);
+        } else if (MimeUtil.isQuotedPrintableEncoded(transferEncoding)) {
+            return new QuotedPrintableInputStream(in, monitor);
+        }
+        return in;
+    }
+
+    static class ByteArrayContent implements RandomAccessContent {
+
+        private final byte[] buffer;
+        private final int offset;
+        private final int length;
+
+        ByteArrayContent(final byte[] buffer, final int offset, final int length) {
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public long length() {
+            return this.length;
+        }
+
+        public InputStream getInputStream(long offset, long length) {
+            if (offset < 0 || length < 0 || offset + length > this.length) {
+                throw new IndexOutOfBoundsException();
+            }
+            return InputStreams.create(this.buffer, this.offset + (int) offset, (int) length);
+        }
+
+    }
+
+    static class LazyTextBody extends TextBody {
+
+        private final LazySource source;
+        private final long from;
+        private final long to;
+        private final String transferEncoding;
+        private final String mimeCharset;
+
+        LazyTextBody(
+                final LazySource source,
+                final long from,
+                final long to,
+                final String transferEncoding,
+                final String mimeCharset) {
+            super();
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            this.transferEncoding = transferEncoding;
+            this.mimeCharset = mimeCharset;
+        }
+
+        @Override
+        public String getMimeCharset() {
+            return this.mimeCharset;
+        }
+
+        @Override
+        public Reader getReader() throws IOException {
+            Charset charset = CharsetUtil.lookup(this.mimeCharset);
+            return Readers.create(getInputStream(),
+                    charset != null ? charset : Charsets.DEFAULT_CHARSET);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return this.source.decode(this.source.open(this.from, this.to), this.transferEncoding);
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        @Override
+        public SingleBody copy() {
+            return new LazyTextBody(this.source, this.from, this.to, this.transferEncoding,
+                    this.mimeCharset);
+        }
+
+    }
+
+    static class LazyBinaryBody extends BinaryBody {
+
+        private final LazySource source;
+        private final long from;
+        private final long to;
+        private final String transferEncoding;
+
+        LazyBinaryBody(
+                final LazySource source,
+                final long from,
+                final long to,
+                final String transferEncoding) {
+            super();
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            this.transferEncoding = transferEncoding;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return this.source.decode(this.source.open(this.from, this.to), this.transferEncoding);
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        @Override
+        public SingleBody copy() {
+            return new LazyBinaryBody(this.source, this.from, this.to, this.transferEncoding);
+        }
+
+    }
+
+}
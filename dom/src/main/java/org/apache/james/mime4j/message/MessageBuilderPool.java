@@ -0,0 +1,100 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.dom.MessageBuilder;
+import org.apache.james.mime4j.dom.MessageServiceFactory;
+
+/**
+ * Provides one {@link MessageBuilder} per thread. Since each builder is
+ * confined to its thread, {@link DefaultMessageBuilder}s of a pool reuse
+ * their parser between calls; a pool lets concurrent code parse messages
+ * without creating a builder, parser and body descriptor builder for every
+ * message.
+ * <p>
+ * Builders are created by the given {@link MessageServiceFactory}, or are
+ * {@link DefaultMessageBuilder}s if none is given. The factory must not hand
+ * out builders that share mutable state such as a
+ * {@link org.apache.james.mime4j.stream.BodyDescriptorBuilder}.
+ */
+public class MessageBuilderPool {
+
+    private final MessageServiceFactory factory;
+    private final ThreadLocal<MessageBuilder> builders;
+
+    public MessageBuilderPool(final MessageServiceFactory factory) {
+        this.factory = factory;
+        this.builders = new ThreadLocal<MessageBuilder>() {
+            @Override
+            protected MessageBuilder initialValue() {
+                return newMessageBuilder();
+            }
+        };
+    }
+
+    public MessageBuilderPool() {
+        this(null);
+    }
+
+    /**
+     * Returns the message builder of the calling thread. The builder must
+     * not be passed on to other threads.
+     *
+     * @return the message builder of the calling thread.
+     */
+    public MessageBuilder get() {
+        return builders.get();
+    }
+
+    /**
+     * Parses a message with the message builder of the calling thread.
+     */
+    public Message parseMessage(final InputStream is) throws MimeException, IOException {
+        return get().parseMessage(is);
+    }
+
+    /**
+     * Discards the message builder of the calling thread, e.g. before the
+     * thread is returned to a pool of threads that will not parse messages.
+     */
+    public void remove() {
+        builders.remove();
+    }
+
+    /**
+     * Creates the message builder for a thread. Subclasses may override
+     * this method to configure builders.
+     *
+     * @return a new message builder.
+     */
+    protected MessageBuilder newMessageBuilder() {
+        MessageBuilder builder = factory != null ? factory.newMessageBuilder() : new DefaultMessageBuilder();
+        if (builder instanceof DefaultMessageBuilder) {
+            ((DefaultMessageBuilder) builder).setReuseParser(true);
+        }
+        return builder;
+    }
+
+}
@@ -0,0 +1,355 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.apache.james.mime4j.codec.QuotedPrintableOutputStream;
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.Body;
+import org.apache.james.mime4j.dom.Entity;
+import org.apache.james.mime4j.dom.Header;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.dom.Multipart;
+import org.apache.james.mime4j.dom.SingleBody;
+import org.apache.james.mime4j.dom.field.ContentTypeField;
+import org.apache.james.mime4j.dom.field.FieldName;
+import org.apache.james.mime4j.stream.Field;
+import org.apache.james.mime4j.util.ByteSequence;
+import org.apache.james.mime4j.util.MimeUtil;
+
+/**
+ * Computes the exact number of bytes {@link DefaultMessageWriter} produces
+ * for a message, entity or body without serializing it into memory. This is
+ * useful to fill in SMTP <code>SIZE</code>, IMAP <code>RFC822.SIZE</code> or
+ * <code>Content-Length</code> values.
+ * <p>
+ * Headers and multipart structure are measured directly. The length of
+ * base64 encoded content is derived from the number of content bytes;
+ * quoted-printable content is encoded into a counting stream because its
+ * length depends on the data. Single bodies are read once to count their
+ * bytes.
+ * <p>
+ * The size of every entity derived from {@link AbstractEntity} with a
+ * {@link AbstractHeader} and a single body, a {@link MultipartImpl} or an
+ * embedded message is cached on the entity. The cached value is discarded as soon as the header, the body
+ * or, for multipart bodies, the list of body parts, the preamble or the
+ * epilogue of the entity or one of its descendants is modified through the
+ * DOM API.
+ */
+public class MessageSizeCalculator {
+
+    private static final int BASE64_GROUPS_PER_LINE = 19;
+
+    private final DefaultMessageWriter writer = new DefaultMessageWriter();
+
+    public MessageSizeCalculator() {
+    }
+
+    /**
+     * Returns the size of the specified message as written by
+     * {@link DefaultMessageWriter#writeMessage(Message, OutputStream)}.
+     *
+     * @param message
+     *            the message to measure.
+     * @return the size in bytes.
+     * @throws IOException
+     *             if an I/O error occurs while reading body content.
+     */
+    public long getMessageSize(Message message) throws IOException {
+        return getEntitySize(message);
+    }
+
+    /**
+     * Returns the size of the specified entity as written by
+     * {@link DefaultMessageWriter#writeEntity(Entity, OutputStream)}.
+     *
+     * @param entity
+     *            the entity to measure.
+     * @return the size in bytes.
+     * @throws IOException
+     *             if an I/O error occurs while reading body content.
+     */
+    public long getEntitySize(Entity entity) throws IOException {
+        AbstractEntity cacheable = entity instanceof AbstractEntity ? (AbstractEntity) entity : null;
+        if (cacheable != null && isValid(cacheable)) {
+            return cacheable.sizeStamp.size;
+        }
+
+        final Header header = entity.getHeader();
+        if (header == null)
+            throw new IllegalArgumentException("Missing header");
+
+        final Body body = entity.getBody();
+        if (body == null)
+            throw new IllegalArgumentException("Missing body");
+
+        long size = getHeaderSize(header) + getEncodedSize(entity, body);
+
+        if (cacheable != null && isTracked(header, body)) {
+            cacheable.sizeStamp = new Stamp(header, body, size);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the size of the specified body as written by
+     * {@link DefaultMessageWriter#writeBody(Body, OutputStream)}, that is
+     * without applying the content transfer encoding of the parent entity.
+     *
+     * @param body
+     *            the body to measure.
+     * @return the size in bytes.
+     * @throws IOException
+     *             if an I/O error occurs while reading body content.
+     */
+    public long getBodySize(Body body) throws IOException {
+        if (body instanceof Entity) {
+            return getEntitySize((Entity) body);
+        } else if (body instanceof Multipart) {
+            return getMultipartSize((Multipart) body);
+        } else if (body instanceof SingleBody) {
+            CountingOutputStream counter = new CountingOutputStream();
+            ((SingleBody) body).writeTo(counter);
+            return counter.count;
+        } else
+            throw new IllegalArgumentException("Unsupported body class");
+    }
+
+    /**
+     * Returns the size of the specified multipart as written by
+     * {@link DefaultMessageWriter#writeMultipart(Multipart, OutputStream)}.
+     *
+     * @param multipart
+     *            the multipart to measure.
+     * @return the size in bytes.
+     * @throws IOException
+     *             if an I/O error occurs while reading body content.
+     */
+    public long getMultipartSize(Multipart multipart) throws IOException {
+        int boundary = getBoundaryLength(multipart);
+
+        long size = 0;
+        if (multipart instanceof MultipartImpl) {
+            ByteSequence preamble = ((MultipartImpl) multipart).getPreambleRaw();
+            ByteSequence epilogue = ((MultipartImpl) multipart).getEpilogueRaw();
+            if (preamble != null) {
+                size += preamble.length() + 2;
+            }
+            if (epilogue != null) {
+                size += epilogue.length();
+            }
+        } else {
+            String preamble = multipart.getPreamble();
+            String epilogue = multipart.getEpilogue();
+            if (preamble != null) {
+                size += preamble.length() + 2;
+            }
+            if (epilogue != null) {
+                size += epilogue.length();
+            }
+        }
+
+        for (Entity bodyPart : multipart.getBodyParts()) {
+            // "--" boundary CRLF entity CRLF
+            size += 2 + boundary + 2 + getEntitySize(bodyPart) + 2;
+        }
+
+        // "--" boundary "--" CRLF
+        size += 2 + boundary + 2 + 2;
+        return size;
+    }
+
+    /**
+     * Returns the size of the specified header including the empty line that
+     * terminates it.
+     *
+     * @param header
+     *            the header to measure.
+     * @return the size in bytes.
+     */
+    public long getHeaderSize(Header header) {
+        long size = 0;
+        for (Field field : header) {
+            size += getFieldSize(field);
+        }
+        return size + 2;
+    }
+
+    /**
+     * Returns the size of the specified field including the terminating line
+     * break.
+     *
+     * @param field
+     *            the field to measure.
+     * @return the size in bytes.
+     */
+    public long getFieldSize(Field field) {
+        ByteSequence raw = field.getRaw();
+        if (raw != null) {
+            return raw.length() + 2;
+        }
+        CountingOutputStream counter = new CountingOutputStream();
+        try {
+            writer.writeField(field, counter);
+        } catch (IOException ex) {
+            // cannot happen when writing to a counting stream
+            throw new IllegalStateException(ex);
+        }
+        return counter.count;
+    }
+
+    private long getEncodedSize(Entity entity, Body body) throws IOException {
+        String encoding = entity.getContentTransferEncoding();
+        if (MimeUtil.isBase64Encoding(encoding)) {
+            return getBase64Size(getBodySize(body));
+        } else if (MimeUtil.isQuotedPrintableEncoded(encoding)) {
+            CountingOutputStream counter = new CountingOutputStream();
+            OutputStream encOut = new QuotedPrintableOutputStream(counter,
+                    body instanceof BinaryBody);
+            writer.writeBody(body, encOut);
+            encOut.close();
+            return counter.count;
+        } else {
+            return getBodySize(body);
+        }
+    }
+
+    /**
+     * Returns the length of the base64 encoding of the given number of bytes
+     * as produced by {@link org.apache.james.mime4j.codec.Base64OutputStream}
+     * with its default line length of 76 characters.
+     */
+    static long getBase64Size(long length) {
+        if (length == 0) {
+            return 0;
+        }
+        long groups = (length + 2) / 3;
+        long lineBreaks = (groups - 1) / BASE64_GROUPS_PER_LINE + 1;
+        return groups * 4 + lineBreaks * 2;
+    }
+
+    private int getBoundaryLength(Multipart multipart) {
+        Entity parent = multipart.getParent();
+        if (parent == null)
+            throw new IllegalArgumentException(
+                    "Missing parent entity in multipart");
+
+        Header header = parent.getHeader();
+        if (header == null)
+            throw new IllegalArgumentException(
+                    "Missing header in parent entity");
+
+        ContentTypeField contentType = (ContentTypeField) header
+                .getField(FieldName.CONTENT_TYPE);
+        if (contentType == null)
+            throw new IllegalArgumentException(
+                    "Content-Type field not specified");
+
+        String boundary = contentType.getBoundary();
+        if (boundary == null)
+            throw new IllegalArgumentException(
+                    "Multipart boundary not specified. Mime-Type: "+contentType.getMimeType()+", Raw: "+contentType.toString());
+
+        return boundary.length();
+    }
+
+    private static boolean isValid(AbstractEntity entity) {
+        Stamp stamp = entity.sizeStamp;
+        if (stamp == null) {
+            return false;
+        }
+        Header header = entity.getHeader();
+        Body body = entity.getBody();
+        if (header != stamp.header || getModCount(header) != stamp.headerModCount
+                || body != stamp.body || getModCount(body) != stamp.bodyModCount) {
+            return false;
+        }
+        if (body instanceof Multipart) {
+            for (Entity bodyPart : ((Multipart) body).getBodyParts()) {
+                if (!(bodyPart instanceof AbstractEntity) || !isValid((AbstractEntity) bodyPart)) {
+                    return false;
+                }
+            }
+        } else if (body instanceof Entity) {
+            return body instanceof AbstractEntity && isValid((AbstractEntity) body);
+        }
+        return true;
+    }
+
+    /**
+     * Only headers and bodies whose modifications can be detected are
+     * eligible for caching.
+     */
+    private static boolean isTracked(Header header, Body body) {
+        return header instanceof AbstractHeader
+                && (body instanceof SingleBody || body instanceof MultipartImpl
+                        || body instanceof AbstractEntity);
+    }
+
+    private static int getModCount(Object o) {
+        if (o instanceof AbstractHeader) {
+            return ((AbstractHeader) o).getModCount();
+        } else if (o instanceof AbstractMultipart) {
+            return ((AbstractMultipart) o).modCount;
+        } else {
+            return 0;
+        }
+    }
+
+    /**
+     * Snapshot of the state an entity had when its size was computed.
+     */
+    static final class Stamp {
+
+        final Header header;
+        final int headerModCount;
+        final Body body;
+        final int bodyModCount;
+        final long size;
+
+        Stamp(Header header, Body body, long size) {
+            this.header = header;
+            this.headerModCount = getModCount(header);
+            this.body = body;
+            this.bodyModCount = getModCount(body);
+            this.size = size;
+        }
+
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+    }
+
+}
@@ -56,6 +56,20 @@ public class MultipartImpl extends AbstractMultipart {
         epilogueComputed = true;
     }
 
+    /**
+     * Takes over preamble and epilogue of the given multipart, along with
+     * their decoded representations if these have already been computed.
+     */
+    void copyPreambleAndEpilogue(MultipartImpl other) {
+        this.preamble = other.preamble;
+        this.preambleStrCache = other.preambleStrCache;
+        this.preambleComputed = other.preambleComputed;
+        this.epilogue = other.epilogue;
+        this.epilogueStrCache = other.epilogueStrCache;
+        this.epilogueComputed = other.epilogueComputed;
+        this.modCount++;
+    }
+
     // package private for now; might become public someday
     public ByteSequence getPreambleRaw() {
         return preamble;
@@ -63,6 +77,7 @@ public class MultipartImpl extends AbstractMultipart {
 
     public void setPreambleRaw(ByteSequence preamble) {
         this.preamble = preamble;
+        this.modCount++;
         this.preambleStrCache = null;
         this.preambleComputed = false;
     }
@@ -90,6 +105,7 @@ public class MultipartImpl extends AbstractMultipart {
     @Override
     public void setPreamble(String preamble) {
         this.preamble = preamble != null ? ContentUtil.encode(preamble) : null;
+        this.modCount++;
         this.preambleStrCache = preamble;
         this.preambleComputed = true;
     }
@@ -101,6 +117,7 @@ public class MultipartImpl extends AbstractMultipart {
 
     public void setEpilogueRaw(ByteSequence epilogue) {
         this.epilogue = epilogue;
+        this.modCount++;
         this.epilogueStrCache = null;
         this.epilogueComputed = false;
     }
@@ -128,6 +145,7 @@ public class MultipartImpl extends AbstractMultipart {
     @Override
     public void setEpilogue(String epilogue) {
         this.epilogue = epilogue != null ? ContentUtil.encode(epilogue) : null;
+        this.modCount++;
         this.epilogueStrCache = epilogue;
         this.epilogueComputed = true;
     }
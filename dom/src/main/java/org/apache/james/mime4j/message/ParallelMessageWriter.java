@@ -0,0 +1,156 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.james.mime4j.dom.Entity;
+import org.apache.james.mime4j.util.ByteSequence;
+
+/**
+ * {@link DefaultMessageWriter} that renders the body parts of a multipart
+ * concurrently on a supplied {@link Executor}. Each body part, including the
+ * content transfer encoding of its body, is written into a separate
+ * in-memory buffer; the buffers are then written to the target stream in
+ * the original order. The output is identical to that of
+ * {@link DefaultMessageWriter}.
+ * <p>
+ * Body parts nested inside a part that is being rendered concurrently are
+ * written sequentially, so rendering tasks never wait for other tasks. The
+ * writing thread renders any part that the executor has not started by the
+ * time its output is needed, and any part the executor rejects. Messages may
+ * therefore also be written by a thread of the executor itself, even if all
+ * of its threads are busy. Rendering needs enough memory to hold the encoded
+ * form of all body parts of a multipart at the same time.
+ */
+public class ParallelMessageWriter extends DefaultMessageWriter {
+
+    private final Executor executor;
+    private final ThreadLocal<Boolean> rendering = new ThreadLocal<Boolean>();
+
+    public ParallelMessageWriter(Executor executor) {
+        super();
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor may not be null");
+        }
+        this.executor = executor;
+    }
+
+    public ParallelMessageWriter(Executor executor, int bufferSize) {
+        super(bufferSize);
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor may not be null");
+        }
+        this.executor = executor;
+    }
+
+    @Override
+    protected void writeBodyParts(List<Entity> bodyParts, ByteSequence boundary,
+            OutputStream out) throws IOException {
+        if (bodyParts.size() < 2 || rendering.get() != null) {
+            super.writeBodyParts(bodyParts, boundary, out);
+            return;
+        }
+
+        List<FutureTask<ByteArrayOutputStream>> tasks =
+            new ArrayList<FutureTask<ByteArrayOutputStream>>(bodyParts.size());
+        try {
+            for (final Entity bodyPart : bodyParts) {
+                FutureTask<ByteArrayOutputStream> task = new FutureTask<ByteArrayOutputStream>(
+                        new Callable<ByteArrayOutputStream>() {
+                            public ByteArrayOutputStream call() throws IOException {
+                                return render(bodyPart);
+                            }
+                        });
+                tasks.add(task);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException ex) {
+                    // rendered by the writing thread below
+                }
+            }
+
+            for (FutureTask<ByteArrayOutputStream> task : tasks) {
+                // renders the part in this thread unless it has been started
+                // already, so parts queued behind this thread are not waited for
+                task.run();
+                ByteArrayOutputStream rendered = get(task);
+                writeDelimiter(boundary, out);
+                rendered.writeTo(out);
+                out.write(CRLF);
+            }
+        } finally {
+            for (FutureTask<ByteArrayOutputStream> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private ByteArrayOutputStream render(Entity bodyPart) throws IOException {
+        Boolean previous = rendering.get();
+        rendering.set(Boolean.TRUE);
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            writeEntity(bodyPart, buffer);
+            return buffer;
+        } finally {
+            if (previous == null) {
+                rendering.remove();
+            }
+        }
+    }
+
+    private static ByteArrayOutputStream get(FutureTask<ByteArrayOutputStream> task)
+            throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException iox = new InterruptedIOException(
+                    "Interrupted while waiting for a body part to be written");
+            iox.initCause(ex);
+            throw iox;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                IOException iox = new IOException(cause.getMessage());
+                iox.initCause(cause);
+                throw iox;
+            }
+        }
+    }
+
+}
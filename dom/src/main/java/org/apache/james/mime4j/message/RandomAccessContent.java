@@ -0,0 +1,48 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Random access to the raw content of a message that is parsed lazily.
+ *
+ * @see DefaultMessageBuilder#parseLazyMessage(RandomAccessContent)
+ */
+public interface RandomAccessContent {
+
+    /**
+     * Returns the length of the content in bytes.
+     */
+    long length();
+
+    /**
+     * Returns an <code>InputStream</code> for a range of the content. The
+     * stream should be closed by the caller when it is no longer needed.
+     *
+     * @param offset offset of the first byte to read.
+     * @param length number of bytes to read.
+     * @return an <code>InputStream</code> for the given range.
+     * @throws IOException if an I/O error occurs.
+     */
+    InputStream getInputStream(long offset, long length) throws IOException;
+
+}
@@ -19,6 +19,8 @@
 
 package org.apache.james.mime4j.message;
 
+import java.util.List;
+
 import org.apache.james.mime4j.MimeException;
 import org.apache.james.mime4j.codec.DecodeMonitor;
 import org.apache.james.mime4j.dom.FieldParser;
@@ -26,6 +28,7 @@ import org.apache.james.mime4j.dom.Header;
 import org.apache.james.mime4j.dom.field.ParsedField;
 import org.apache.james.mime4j.field.LenientFieldParser;
 import org.apache.james.mime4j.parser.AbstractContentHandler;
+import org.apache.james.mime4j.parser.BatchContentHandler;
 import org.apache.james.mime4j.stream.Field;
 
 /**
@@ -35,7 +38,7 @@ import org.apache.james.mime4j.stream.Field;
  * Older versions of this class performed decoding of content streams.
  * This can be now easily achieved by calling setContentDecoding(true) on the MimeStreamParser.
  */
-public abstract class SimpleContentHandler extends AbstractContentHandler {
+public abstract class SimpleContentHandler extends AbstractContentHandler implements BatchContentHandler {
 
     private final FieldParser<? extends ParsedField> fieldParser;
     private final DecodeMonitor monitor;
@@ -83,6 +86,18 @@ public abstract class SimpleContentHandler extends AbstractContentHandler {
         currHeader.addField(parsedField);
     }
 
+    /**
+     * @see org.apache.james.mime4j.parser.BatchContentHandler#header(List)
+     */
+    public final void header(List<Field> fields) throws MimeException {
+        HeaderImpl header = new HeaderImpl();
+        for (Field field : fields) {
+            header.addField(field instanceof ParsedField ? (ParsedField) field
+                    : fieldParser.parse(field, monitor));
+        }
+        headers(header);
+    }
+
     /**
      * @see org.apache.james.mime4j.parser.AbstractContentHandler#endHeader()
      */
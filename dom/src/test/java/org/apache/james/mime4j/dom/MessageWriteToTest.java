@@ -27,6 +27,12 @@ import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
 
 public class MessageWriteToTest {
 
@@ -80,6 +86,101 @@ public class MessageWriteToTest {
         assertEquals(ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_PREAMBLE_EPILOGUE_BYTES, out.toByteArray());
     }
 
+    @Test
+    public void testStagedOutput() throws Exception {
+        byte[][] samples = { ExampleMail.RFC822_SIMPLE_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_PREAMBLE_EPILOGUE_BYTES };
+        for (byte[] sample : samples) {
+            Message message = createMessage(sample);
+            for (int bufferSize : new int[] { 1, 7, 100, 8192 }) {
+                DefaultMessageWriter writer = new DefaultMessageWriter(bufferSize);
+
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                CountingOutputStream counting = new CountingOutputStream(out);
+                writer.writeMessage(message, counting);
+                assertEquals(sample, out.toByteArray());
+
+                out = new ByteArrayOutputStream();
+                writer.writeMessage(message, Channels.newChannel(out));
+                assertEquals(sample, out.toByteArray());
+
+                out = new ByteArrayOutputStream();
+                writer.writeMessage(message, new GatheringChannel(out));
+                assertEquals(sample, out.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testStagedOutputCoalescesWrites() throws Exception {
+        Message message = createMessage(ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES);
+        CountingOutputStream counting = new CountingOutputStream(new ByteArrayOutputStream());
+        new DefaultMessageWriter().writeMessage(message, counting);
+        Assert.assertTrue(counting.writes <= ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES.length / 8192 + 1);
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        int writes;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            writes++;
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writes++;
+            out.write(b, off, len);
+        }
+
+    }
+
+    private static class GatheringChannel implements GatheringByteChannel {
+
+        private final ByteArrayOutputStream out;
+
+        GatheringChannel(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        public int write(ByteBuffer src) {
+            // accept at most 5 bytes at a time to exercise partial writes
+            int n = Math.min(5, src.remaining());
+            for (int i = 0; i < n; i++) {
+                out.write(src.get());
+            }
+            return n;
+        }
+
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (srcs[i].hasRemaining()) {
+                    return write(srcs[i]);
+                }
+            }
+            return 0;
+        }
+
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        public boolean isOpen() {
+            return true;
+        }
+
+        public void close() {
+        }
+
+    }
+
     private Message createMessage(byte[] octets) throws Exception {
         ByteArrayInputStream in = new ByteArrayInputStream(octets);
         DefaultMessageBuilder builder = new DefaultMessageBuilder();
@@ -0,0 +1,140 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.field;
+
+import org.apache.james.mime4j.dom.FieldParser;
+import org.apache.james.mime4j.dom.field.ContentTypeField;
+import org.apache.james.mime4j.dom.field.ParsedField;
+import org.apache.james.mime4j.stream.RawField;
+import org.apache.james.mime4j.stream.RawFieldParser;
+import org.apache.james.mime4j.util.ByteArraySlice;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ParsedFieldCacheTest {
+
+    private static RawField raw(final String s) throws Exception {
+        return RawFieldParser.DEFAULT.parseField(ContentUtil.encode(s));
+    }
+
+    @Test
+    public void testRepeatedFieldsAreShared() throws Exception {
+        ParsedFieldCache cache = new ParsedFieldCache();
+        FieldParser<ParsedField> parser = new DefaultFieldParser(cache);
+
+        RawField raw1 = raw("Content-Type: text/plain; charset=utf-8");
+        ParsedField f1 = parser.parse(raw1, null);
+        ParsedField f2 = parser.parse(raw("Content-Type: text/plain; charset=utf-8"), null);
+        Assert.assertSame(f1, f2);
+        Assert.assertEquals("utf-8", ((ContentTypeField) f1).getCharset());
+        Assert.assertNotSame(raw1.getRaw(), f1.getRaw());
+        Assert.assertEquals(ContentUtil.decode(raw1.getRaw()), ContentUtil.decode(f1.getRaw()));
+
+        Assert.assertSame(parser.parse(raw("MIME-Version: 1.0"), null),
+                parser.parse(raw("MIME-Version: 1.0"), null));
+        Assert.assertSame(parser.parse(raw("Content-Transfer-Encoding: base64"), null),
+                parser.parse(raw("Content-Transfer-Encoding: base64"), null));
+        Assert.assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testDifferentBytesAreNotShared() throws Exception {
+        ParsedFieldCache cache = new ParsedFieldCache();
+        FieldParser<ParsedField> parser = new DefaultFieldParser(cache);
+
+        ParsedField f1 = parser.parse(raw("Content-Type: text/plain; charset=utf-8"), null);
+        ParsedField f2 = parser.parse(raw("content-type: text/plain; charset=utf-8"), null);
+        Assert.assertNotSame(f1, f2);
+        Assert.assertEquals("content-type", f2.getName());
+    }
+
+    @Test
+    public void testParsersDoNotShareEntries() throws Exception {
+        ParsedFieldCache cache = new ParsedFieldCache();
+        ParsedField strict = new DefaultFieldParser(cache).parse(raw("Content-Type: text/plain"), null);
+        ParsedField lenient = new LenientFieldParser(cache).parse(raw("Content-Type: text/plain"), null);
+        Assert.assertTrue(strict instanceof ContentTypeFieldImpl);
+        Assert.assertTrue(lenient instanceof ContentTypeFieldLenientImpl);
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testOnlyValidImmutableFieldsAreCached() throws Exception {
+        ParsedFieldCache cache = new ParsedFieldCache();
+        FieldParser<ParsedField> parser = new DefaultFieldParser(cache);
+
+        parser.parse(raw("Subject: hello"), null);
+        parser.parse(raw("Content-Disposition: inline"), null);
+        parser.parse(raw("Content-Type: text"), null);
+        parser.parse(raw("MIME-Version: one"), null);
+        parser.parse(new RawField("Content-Type", "text/plain"), null);
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+        ParsedFieldCache cache = new ParsedFieldCache(2);
+        FieldParser<ParsedField> parser = new DefaultFieldParser(cache);
+
+        ParsedField plain = parser.parse(raw("Content-Type: text/plain"), null);
+        ParsedField html = parser.parse(raw("Content-Type: text/html"), null);
+        Assert.assertSame(plain, parser.parse(raw("Content-Type: text/plain"), null));
+        parser.parse(raw("Content-Type: image/png"), null);
+
+        Assert.assertEquals(2, cache.size());
+        Assert.assertSame(plain, parser.parse(raw("Content-Type: text/plain"), null));
+        Assert.assertNotSame(html, parser.parse(raw("Content-Type: text/html"), null));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSegmentedCacheIsBounded() throws Exception {
+        ParsedFieldCache cache = new ParsedFieldCache(256);
+        FieldParser<ParsedField> parser = new DefaultFieldParser(cache);
+
+        for (int i = 0; i < 1000; i++) {
+            String s = "Content-Type: text/plain; charset=x-" + i;
+            ParsedField field = parser.parse(raw(s), null);
+            Assert.assertSame(field, parser.parse(raw(s), null));
+            Assert.assertEquals("x-" + i, ((ContentTypeField) field).getCharset());
+        }
+        Assert.assertEquals(256, cache.size());
+    }
+
+    @Test
+    public void testLookupBySlice() throws Exception {
+        ParsedFieldCache cache = new ParsedFieldCache();
+        FieldParser<ParsedField> parser = new DefaultFieldParser(cache);
+
+        ParsedField field = parser.parse(raw("Content-Type: text/plain"), null);
+        RawField slice = RawFieldParser.DEFAULT.parseField(new ByteArraySlice(
+                ContentUtil.toAsciiByteArray("XXContent-Type: text/plainYY"), 2, 24));
+        Assert.assertSame(field, parser.parse(slice, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaxEntries() {
+        new ParsedFieldCache(0);
+    }
+
+}
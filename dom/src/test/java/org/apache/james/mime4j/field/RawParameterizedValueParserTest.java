@@ -0,0 +1,169 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.field;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.james.mime4j.field.contentdisposition.parser.ContentDispositionParser;
+import org.apache.james.mime4j.field.contenttype.parser.ContentTypeParser;
+import org.apache.james.mime4j.stream.NameValuePair;
+import org.apache.james.mime4j.stream.RawField;
+import org.apache.james.mime4j.stream.RawFieldParser;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RawParameterizedValueParserTest {
+
+    private static final String[] CONTENT_TYPES = {
+        "text/plain",
+        "text/plain; charset=us-ascii",
+        "   TeXt / html   ",
+        "multipart/mixed;\r\n boundary=\"----=_Part_0_1234.5678\"",
+        "multipart/alternative; boundary=\"a\\\"b\\\\c\\d\"",
+        "text/plain (comment (nested) \\) ); format = flowed ; delsp=yes",
+        "application/x-stuff;\r\n\ttitle*0*=us-ascii'en'This%20is%20even%20more%20;\r\n\ttitle*1*=%2A%2A%2Afun%2A%2A%2A%20;\r\n\ttitle*2=\"isn't it!\"",
+        "image/jpeg; name=\"caf\u00e9.jpg\"; x-number=1234",
+        "message/rfc822; charset=\"\""
+    };
+
+    private static final String[] CONTENT_TYPE_FALLBACKS = {
+        "",
+        "text",
+        "text/",
+        "text/plain;",
+        "text/plain; charset",
+        "text/plain; charset=",
+        "text/plain; charset=\"us-ascii",
+        "text/plain (unterminated",
+        "text/plain; 123=abc",
+        "123/abc",
+        "text/plain; a=b c",
+        "text/plain, text/html"
+    };
+
+    private static final String[] CONTENT_DISPOSITIONS = {
+        "inline",
+        "attachment; filename=foo.txt",
+        "Attachment ; FileName = \"foo bar.txt\" ; size=1234",
+        "attachment;\r\n filename*0=\"long \";\r\n filename*1=\"name.txt\"",
+        "attachment; creation-date=\"Tue, 17 Jul 2012 22:23:35 +0000\""
+    };
+
+    private static final String[] CONTENT_DISPOSITION_FALLBACKS = {
+        "",
+        "attachment; filename=",
+        "attachment/inline",
+        "attachment; filename=a/b"
+    };
+
+    @Test
+    public void testContentTypeAgreesWithGeneratedParser() throws Exception {
+        for (String body : CONTENT_TYPES) {
+            RawParameterizedValueParser parser = new RawParameterizedValueParser(true);
+            Assert.assertTrue(body, parser.parse(rawField("Content-Type", body)));
+
+            ContentTypeParser expected = new ContentTypeParser(new StringReader(unfold(body)));
+            expected.parseAll();
+            Assert.assertEquals(body, expected.getType(), parser.getType());
+            Assert.assertEquals(body, expected.getSubType(), parser.getSubType());
+            Assert.assertEquals(body, pairs(expected.getParamNames(), expected.getParamValues()),
+                    parser.getParams());
+        }
+    }
+
+    @Test
+    public void testContentDispositionAgreesWithGeneratedParser() throws Exception {
+        for (String body : CONTENT_DISPOSITIONS) {
+            RawParameterizedValueParser parser = new RawParameterizedValueParser(false);
+            Assert.assertTrue(body, parser.parse(rawField("Content-Disposition", body)));
+
+            ContentDispositionParser expected = new ContentDispositionParser(
+                    new StringReader(unfold(body)));
+            expected.parseAll();
+            Assert.assertEquals(body, expected.getDispositionType(), parser.getType());
+            Assert.assertNull(parser.getSubType());
+            Assert.assertEquals(body, pairs(expected.getParamNames(), expected.getParamValues()),
+                    parser.getParams());
+        }
+    }
+
+    @Test
+    public void testMalformedValuesAreLeftToGeneratedParser() throws Exception {
+        for (String body : CONTENT_TYPE_FALLBACKS) {
+            Assert.assertFalse(body, new RawParameterizedValueParser(true).parse(
+                    rawField("Content-Type", body)));
+        }
+        for (String body : CONTENT_DISPOSITION_FALLBACKS) {
+            Assert.assertFalse(body, new RawParameterizedValueParser(false).parse(
+                    rawField("Content-Disposition", body)));
+        }
+    }
+
+    @Test
+    public void testFieldWithoutRawBytes() throws Exception {
+        RawParameterizedValueParser parser = new RawParameterizedValueParser(true);
+        Assert.assertTrue(parser.parse(new RawField("Content-Type", "text/plain; name=\"caf\u00e9\"")));
+        Assert.assertEquals("caf\u00e9", parser.getParams().get(0).getValue());
+
+        parser = new RawParameterizedValueParser(true);
+        Assert.assertFalse(parser.parse(new RawField("Content-Type", "text/plain; name=\"\u20ac\"")));
+    }
+
+    @Test
+    public void testFieldImplsUseSameResults() throws Exception {
+        ContentTypeFieldImpl contentType = (ContentTypeFieldImpl) ContentTypeFieldImpl.PARSER.parse(
+                rawField("Content-Type", "Multipart/Mixed; BOUNDARY=\"abc\"; boundary=def"), null);
+        Assert.assertEquals("multipart/mixed", contentType.getMimeType());
+        Assert.assertEquals("Multipart", contentType.getMediaType());
+        Assert.assertEquals("def", contentType.getBoundary());
+        Assert.assertNull(contentType.getParseException());
+
+        contentType = (ContentTypeFieldImpl) ContentTypeFieldImpl.PARSER.parse(
+                rawField("Content-Type", "text/plain; charset"), null);
+        Assert.assertEquals("text/plain", contentType.getMimeType());
+        Assert.assertNotNull(contentType.getParseException());
+
+        ContentDispositionFieldImpl disposition = (ContentDispositionFieldImpl) ContentDispositionFieldImpl.PARSER
+                .parse(rawField("Content-Disposition", "ATTACHMENT; Size=12"), null);
+        Assert.assertEquals("attachment", disposition.getDispositionType());
+        Assert.assertEquals(12, disposition.getSize());
+        Assert.assertNull(disposition.getParseException());
+    }
+
+    private static RawField rawField(String name, String body) throws Exception {
+        return RawFieldParser.DEFAULT.parseField(ContentUtil.encode(name + ": " + body));
+    }
+
+    private static String unfold(String body) {
+        return body.replace("\r", "").replace("\n", "");
+    }
+
+    private static List<NameValuePair> pairs(List<String> names, List<String> values) {
+        List<NameValuePair> pairs = new ArrayList<NameValuePair>();
+        for (int i = 0; i < names.size(); i++) {
+            pairs.add(new NameValuePair(names.get(i), values.get(i)));
+        }
+        return pairs;
+    }
+
+}
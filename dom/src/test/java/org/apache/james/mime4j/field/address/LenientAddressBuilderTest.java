@@ -19,12 +19,18 @@
 
 package org.apache.james.mime4j.field.address;
 
+import java.io.ByteArrayInputStream;
+
+import org.apache.james.mime4j.codec.DecodeMonitor;
+import org.apache.james.mime4j.dom.Message;
 import org.apache.james.mime4j.dom.address.Address;
 import org.apache.james.mime4j.dom.address.AddressList;
 import org.apache.james.mime4j.dom.address.DomainList;
 import org.apache.james.mime4j.dom.address.Group;
 import org.apache.james.mime4j.dom.address.Mailbox;
 import org.apache.james.mime4j.dom.address.MailboxList;
+import org.apache.james.mime4j.field.LenientFieldParser;
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
 import org.apache.james.mime4j.stream.ParserCursor;
 import org.apache.james.mime4j.stream.RawFieldParser;
 import org.apache.james.mime4j.util.ByteSequence;
@@ -468,4 +474,96 @@ public class LenientAddressBuilderTest {
 
     }
 
+    @Test
+    public void testCachedMailboxesAreShared() throws Exception {
+        LenientAddressParser cachingParser = new LenientAddressParser(DecodeMonitor.SILENT, 16);
+        String s = "Some One <some.one@example.com>, \"Other, Person\" <other@example.com>, "
+                + "=?ISO-8859-1?Q?Andr=E9?= <andre@example.com>, list: a@b.c, d@e.f;";
+
+        AddressList list1 = cachingParser.parseAddressList(s);
+        AddressList list2 = cachingParser.parseAddressList(s);
+        AddressList expected = parser.parseAddressList(s);
+        Assert.assertEquals(4, list1.size());
+        for (int i = 0; i < 4; i++) {
+            Assert.assertEquals(format(expected.get(i)), format(list1.get(i)));
+            Assert.assertEquals(format(expected.get(i)), format(list2.get(i)));
+        }
+        Assert.assertSame(list1.get(0), list2.get(0));
+        Assert.assertSame(list1.get(1), list2.get(1));
+        Assert.assertSame(list1.get(2), list2.get(2));
+        Assert.assertEquals("Andr\u00e9", ((Mailbox) list2.get(2)).getName());
+        Assert.assertNotSame(list1.get(3), list2.get(3));
+        Assert.assertEquals(3, cachingParser.getCacheSize());
+    }
+
+    @Test
+    public void testCommaInBracketsIsNotCached() throws Exception {
+        LenientAddressParser cachingParser = new LenientAddressParser(DecodeMonitor.SILENT, 16);
+        String s = "Some One <some,one@example.com>, two@example.com";
+
+        AddressList list = cachingParser.parseAddressList(s);
+        Assert.assertEquals(format(parser.parseAddressList(s).get(0)), format(list.get(0)));
+        Assert.assertEquals("some,one", ((Mailbox) list.get(0)).getLocalPart());
+        Assert.assertEquals(1, cachingParser.getCacheSize());
+        list = cachingParser.parseAddressList(s);
+        Assert.assertEquals("some,one", ((Mailbox) list.get(0)).getLocalPart());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        Assert.assertEquals(0, LenientAddressParser.DEFAULT.getCacheSize());
+        LenientAddressParser cachingParser = new LenientAddressParser(DecodeMonitor.SILENT, 256);
+        for (int i = 0; i < 1000; i++) {
+            AddressList list = cachingParser.parseAddressList("user" + i + "@example.com");
+            Assert.assertEquals("user" + i, ((Mailbox) list.get(0)).getLocalPart());
+        }
+        Assert.assertEquals(256, cachingParser.getCacheSize());
+        Assert.assertEquals(0, LenientAddressParser.DEFAULT.getCacheSize());
+    }
+
+    @Test
+    public void testCachedSingleMailbox() throws Exception {
+        LenientAddressParser cachingParser = new LenientAddressParser(DecodeMonitor.SILENT, 16);
+        Mailbox mailbox1 = cachingParser.parseMailbox("Some One <some.one@example.com>");
+        Mailbox mailbox2 = cachingParser.parseMailbox("Some One <some.one@example.com>");
+        Assert.assertSame(mailbox1, mailbox2);
+        Assert.assertEquals("some.one@example.com", mailbox1.getAddress());
+
+        // trailing garbage is not consumed, so the result is not cached
+        cachingParser.parseMailbox("<other@example.com> garbage");
+        Assert.assertEquals(1, cachingParser.getCacheSize());
+
+        // the bytes of a group in an address list must not hit a single mailbox
+        cachingParser.parseMailbox("list: a@b.c");
+        AddressList list = cachingParser.parseAddressList("list: a@b.c");
+        Assert.assertTrue(list.get(0) instanceof Group);
+    }
+
+    @Test
+    public void testCacheUsedByFieldParser() throws Exception {
+        LenientAddressParser cachingParser = new LenientAddressParser(DecodeMonitor.SILENT, 16);
+        DefaultMessageBuilder builder = new DefaultMessageBuilder();
+        builder.setFieldParser(new LenientFieldParser(null, cachingParser));
+        String s = "From: Some One <some.one@example.com>\r\n"
+                + "Sender: Other <other@example.com>\r\n"
+                + "To: a@example.com, Some One <some.one@example.com>\r\n"
+                + "\r\n"
+                + "body\r\n";
+
+        Message message1 = builder.parseMessage(new ByteArrayInputStream(s.getBytes("US-ASCII")));
+        Message message2 = builder.parseMessage(new ByteArrayInputStream(s.getBytes("US-ASCII")));
+        Assert.assertSame(message1.getFrom().get(0), message2.getFrom().get(0));
+        Assert.assertSame(message1.getFrom().get(0), message2.getTo().get(1));
+        Assert.assertSame(message1.getTo().get(0), message2.getTo().get(0));
+        Assert.assertSame(message1.getSender(), message2.getSender());
+        Assert.assertEquals("other@example.com", message2.getSender().getAddress());
+        Assert.assertEquals(3, cachingParser.getCacheSize());
+    }
+
+    private static String format(Address address) {
+        StringBuilder sb = new StringBuilder();
+        AddressFormatter.DEFAULT.format(sb, address, true);
+        return sb.toString();
+    }
+
 }
@@ -0,0 +1,152 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.field.datetime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringReader;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.apache.james.mime4j.field.datetime.parser.DateTimeParser;
+import org.junit.Test;
+
+public class DateTimeScannerTest {
+
+    private static final String[] STRICT_DATES = {
+        "Fri, 21 Nov 1997 09:55:06 -0600",
+        "Fri, 21 Nov 97 09:55:06 -0600",
+        "21 Nov 1997 09:55:06 -0600",
+        "Fri, 21 Nov 1997 19:25:06 +0330",
+        "Thu, 16 Sep 19 14:37:22 +0000",
+        "Thu, 16 Sep 2019 14:37:22 -0000",
+        "Thu, 16 Sep 2019 14:37:22 GMT",
+        "Thu, 16 Sep 2019 14:37:22 UT",
+        "Fri, 21 Nov 1997 07:00:00 EST",
+        "Fri, 21 Nov 1997 08:00:00 EDT",
+        "Fri, 21 Nov 1997 06:00:00 CST",
+        "Fri, 21 Nov 1997 07:00:00 CDT",
+        "Fri, 21 Nov 1997 05:00:00 MST",
+        "Fri, 21 Nov 1997 06:00:00 MDT",
+        "Fri, 21 Nov 1997 04:00:00 PST",
+        "Fri, 21 Nov 1997 05:00:00 PDT",
+        "Fri, 21 Nov 1997 12:00:00 A",
+        "Fri, 21 Nov 1997 12:00:00 z",
+        "Fri, 21 Nov 1997 12:00:00Z",
+        "Fri , 1 Jan 2000 0:0 +0100",
+        "Thu,\t31 Feb 2011 25:61:61 +0100",
+        "Sat, 29 Feb 1600 23:59:59 -2359",
+        "Wed, 31 Dec 9999 23:59:59 +0000",
+        "  Mon, 1 Mar 2004 12 : 34 : 56 +0100  "
+    };
+
+    private static final String[] STRICT_FALLBACKS = {
+        "Fri, 21 Nov 097 09:55:06 -0600",
+        "Fri, 21 Nov 1997 09:55:06 -0600 (CST)",
+        "Fri 21 Nov 1997 09:55:06 -0600",
+        "fri, 21 Nov 1997 09:55:06 -0600",
+        "Fri, 21 nov 1997 09:55:06 -0600",
+        "Fri, 21 Nov 1997 09:55:06 gmt",
+        "Fri, 21 Nov 1997 09:55:06 J",
+        "Fri, 21 Nov 1997 09:55:06 +060",
+        "Fri, 21 Nov 1997 09:55:06.123 -0600",
+        "Fri, 21 Nov 1997 09:55:06",
+        "Friday, 21 Nov 1997 09:55:06 -0600",
+        "",
+        "garbage"
+    };
+
+    @Test
+    public void testStrictAgreesWithGeneratedParser() throws Exception {
+        for (String s : STRICT_DATES) {
+            long expected = new DateTimeParser(new StringReader(s)).parseAll().getDate().getTime();
+            assertThat(DateTimeScanner.scan(s, true)).as(s).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testStrictFallsBack() throws Exception {
+        for (String s : STRICT_FALLBACKS) {
+            assertThat(DateTimeScanner.scan(s, true)).as(s).isEqualTo(DateTimeScanner.NO_DATE);
+        }
+        assertThat(DateTimeScanner.scan(null, true)).isEqualTo(DateTimeScanner.NO_DATE);
+    }
+
+    @Test
+    public void testLenient() throws Exception {
+        long expected = gmt("2012-07-17 22:23:35");
+        assertThat(DateTimeScanner.scan("Tue, 17 Jul 2012 22:23:35 +0000", false)).isEqualTo(expected);
+        assertThat(DateTimeScanner.scan("tue, 17 jul 12 22:23:35 GMT", false)).isEqualTo(expected);
+        assertThat(DateTimeScanner.scan("Tuesday, 17 July 2012 22:23:35 UTC", false)).isEqualTo(expected);
+        assertThat(DateTimeScanner.scan("Tue 17 Jul 2012 22:23:35 Z", false)).isEqualTo(expected);
+        assertThat(DateTimeScanner.scan("Tue, 17 Jul 2012 22:23:35 0000", false)).isEqualTo(expected);
+        assertThat(DateTimeScanner.scan("Wed, 18 Jul 2012 00:23:35 +0200 (CEST)", false)).isEqualTo(expected);
+        assertThat(DateTimeScanner.scan("Tue, 17 Jul 2012 22:23:35.882 0000", false)).isEqualTo(expected + 882);
+        assertThat(DateTimeScanner.scan("Tue, 17 Jul 2012 17:23:35 CDT", false)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testLenientTwoDigitYear() throws Exception {
+        assertThat(DateTimeScanner.scan("1 Jan 49 00:00:00 +0000", false)).isEqualTo(gmt("2049-01-01 00:00:00"));
+        assertThat(DateTimeScanner.scan("1 Jan 50 00:00:00 +0000", false)).isEqualTo(gmt("1950-01-01 00:00:00"));
+    }
+
+    /**
+     * The lenient Date field used to parse two digit years with the
+     * <code>SimpleDateFormat</code> pattern "yy", which places them within 80
+     * years before and 20 years after the current date. The scanner applies
+     * the fixed RFC 5322 rule instead; the results differ by a century for
+     * the years on which the two windows disagree, e.g. 46 to 49 in 2026.
+     */
+    @Test
+    public void testLenientTwoDigitYearAgainstSimpleDateFormat() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("dd MMM yy HH:mm:ss ZZZZ", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        format.setLenient(true);
+        long century = gmt("2000-01-01 00:00:00") - gmt("1900-01-01 00:00:00");
+        for (int yy = 0; yy < 100; yy++) {
+            String date = "01 Jan " + (yy < 10 ? "0" : "") + yy + " 00:00:00 +0000";
+            int year = (yy < 50 ? 2000 : 1900) + yy;
+            long expected = gmt(year + "-01-01 00:00:00");
+            assertThat(DateTimeScanner.scan(date, false)).isEqualTo(expected);
+
+            long previous = format.parse(date).getTime();
+            if (previous != expected) {
+                assertThat(Math.abs(previous - expected)).isBetween(century - 86400000L, century + 86400000L);
+            }
+        }
+    }
+
+    @Test
+    public void testLenientFallsBack() throws Exception {
+        assertThat(DateTimeScanner.scan("Tue, 17 Jul 2012 22:23 +0000", false)).isEqualTo(DateTimeScanner.NO_DATE);
+        assertThat(DateTimeScanner.scan("Tue, 17 Jul 2012 22:23:35 CEST", false)).isEqualTo(DateTimeScanner.NO_DATE);
+        assertThat(DateTimeScanner.scan("Tue, 17 Jul 2012 22:23:35 +02:00", false)).isEqualTo(DateTimeScanner.NO_DATE);
+        assertThat(DateTimeScanner.scan("2012-07-17T22:23:35Z", false)).isEqualTo(DateTimeScanner.NO_DATE);
+    }
+
+    private static long gmt(String s) throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.parse(s).getTime();
+    }
+
+}
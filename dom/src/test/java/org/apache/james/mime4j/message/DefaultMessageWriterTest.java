@@ -21,8 +21,18 @@ package org.apache.james.mime4j.message;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
 import org.apache.james.mime4j.Charsets;
+import org.apache.james.mime4j.codec.Base64OutputStream;
+import org.apache.james.mime4j.codec.QuotedPrintableOutputStream;
+import org.apache.james.mime4j.dom.BinaryBody;
 import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.field.Fields;
 import org.junit.Test;
 
 public class DefaultMessageWriterTest {
@@ -47,4 +57,32 @@ public class DefaultMessageWriterTest {
                 "this is the body");
     }
 
-}
\ No newline at end of file
+    @Test
+    public void encodedBodiesShouldBeWrittenToTheEncoder() throws Exception {
+        assertThat(bodyTarget("base64")).isInstanceOf(Base64OutputStream.class);
+        assertThat(bodyTarget("quoted-printable")).isInstanceOf(QuotedPrintableOutputStream.class);
+    }
+
+    private static OutputStream bodyTarget(String encoding) throws Exception {
+        final OutputStream[] target = new OutputStream[1];
+        BodyPart part = new BodyPart();
+        HeaderImpl header = new HeaderImpl();
+        header.addField(Fields.contentTransferEncoding(encoding));
+        part.setHeader(header);
+        part.setBody(new BinaryBody() {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new ByteArrayInputStream(new byte[] { 'a', 'b', 'c' });
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                target[0] = out;
+                super.writeTo(out);
+            }
+        });
+        new DefaultMessageWriter().writeEntity(part, new ByteArrayOutputStream());
+        return target[0];
+    }
+
+}
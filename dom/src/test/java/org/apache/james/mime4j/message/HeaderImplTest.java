@@ -19,6 +19,8 @@
 
 package org.apache.james.mime4j.message;
 
+import java.util.Arrays;
+
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.james.mime4j.dom.Header;
 import org.apache.james.mime4j.field.DefaultFieldParser;
@@ -49,6 +51,21 @@ public class HeaderImplTest {
                 .toString());
     }
 
+    @Test
+    public void testAddFields() throws Exception {
+        HeaderImpl header = new HeaderImpl();
+        header.addField(DefaultFieldParser.parse(SUBJECT));
+        HeaderImpl copy = new HeaderImpl(header);
+        copy.addFields(Arrays.asList(DefaultFieldParser.parse(TO),
+                DefaultFieldParser.parse("subject: other")));
+
+        Assert.assertEquals(1, header.getFields().size());
+        Assert.assertEquals(3, copy.getFields().size());
+        Assert.assertEquals(2, copy.getFields("Subject").size());
+        Assert.assertEquals("other", copy.getFields("SUBJECT").get(1).getBody());
+        Assert.assertNotNull(copy.getField("To"));
+    }
+
     private static final String SWISS_GERMAN_HELLO = "Gr\374ezi_z\344m\344";
 
     @Test
@@ -75,6 +92,44 @@ public class HeaderImplTest {
         Assert.assertEquals("Hello: " + SWISS_GERMAN_HELLO + "\r\n\r\n", s);
     }
 
+    @Test
+    public void testCopyIsIndependentOfOriginal() throws Exception {
+        Header header = new HeaderImpl();
+        header.addField(DefaultFieldParser.parse(SUBJECT));
+        header.addField(DefaultFieldParser.parse(TO));
+
+        Header copy = new HeaderImpl(header);
+        Assert.assertEquals(header.toString(), copy.toString());
+
+        copy.setField(DefaultFieldParser.parse("Subject: changed"));
+        copy.addField(DefaultFieldParser.parse("Cc: other <other@user>"));
+
+        Assert.assertEquals(SUBJECT + "\r\n" + TO + "\r\n", header.toString());
+        Assert.assertEquals("Subject: changed\r\n" + TO + "\r\n"
+                + "Cc: other <other@user>\r\n", copy.toString());
+        Assert.assertNull(header.getField("Cc"));
+
+        header.removeFields("To");
+        Assert.assertEquals(1, header.getFields().size());
+        Assert.assertEquals(3, copy.getFields().size());
+        Assert.assertNotNull(copy.getField("To"));
+    }
+
+    @Test
+    public void testCopyOfCopy() throws Exception {
+        Header header = new HeaderImpl();
+        header.addField(DefaultFieldParser.parse(SUBJECT));
+
+        Header copy1 = new HeaderImpl(header);
+        Header copy2 = new HeaderImpl(copy1);
+        copy1.addField(DefaultFieldParser.parse(TO));
+
+        Assert.assertEquals(1, header.getFields().size());
+        Assert.assertEquals(2, copy1.getFields().size());
+        Assert.assertEquals(1, copy2.getFields().size());
+        Assert.assertEquals(0, copy2.getFields("To").size());
+    }
+
     @Test
     public void testRemoveFields() throws Exception {
         Header header = new HeaderImpl();
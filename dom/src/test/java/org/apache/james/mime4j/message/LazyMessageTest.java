@@ -0,0 +1,209 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import org.apache.james.mime4j.ExampleMail;
+import org.apache.james.mime4j.codec.Base64OutputStream;
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.Entity;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.dom.Multipart;
+import org.apache.james.mime4j.dom.TextBody;
+import org.apache.james.mime4j.field.Fields;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LazyMessageTest {
+
+    private static final byte[][] SAMPLES = {
+        ExampleMail.RFC822_SIMPLE_BYTES,
+        ExampleMail.ONE_PART_MIME_BASE64_LATIN1_BYTES,
+        ExampleMail.ONE_PART_MIME_QUOTED_PRINTABLE_ASCII_BYTES,
+        ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES,
+        ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_NOPREAMBLE_BYTES,
+        ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_PREAMBLE_EPILOGUE_BYTES,
+        ExampleMail.MIME_MIXED_MULTIPART_VARIOUS_ENCODINGS_BYTES,
+        ExampleMail.MAIL_WITH_RFC822_PART_BYTES,
+        ExampleMail.MIME_MULTIPART_EMBEDDED_MESSAGES_BYTES };
+
+    @Test
+    public void testSameContentAsEagerParse() throws Exception {
+        DefaultMessageBuilder builder = new DefaultMessageBuilder();
+        for (byte[] sample : SAMPLES) {
+            Message eager = builder.parseMessage(new ByteArrayInputStream(sample));
+            Message lazy = builder.parseLazyMessage(sample);
+            Assert.assertEquals(
+                    ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(eager)),
+                    ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(lazy)));
+        }
+    }
+
+    @Test
+    public void testBodyMaterializedOnAccess() throws Exception {
+        byte[] sample = ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_PREAMBLE_EPILOGUE_BYTES;
+        LazyMessage message = (LazyMessage) new DefaultMessageBuilder().parseLazyMessage(sample);
+        Assert.assertFalse(message.isBodyLoaded());
+        Assert.assertEquals("multipart/mixed", message.getMimeType());
+        Assert.assertNotNull(message.getSubject());
+        Assert.assertFalse(message.isBodyLoaded());
+
+        Multipart multipart = (Multipart) message.getBody();
+        Assert.assertTrue(message.isBodyLoaded());
+        Message eager = new DefaultMessageBuilder().parseMessage(new ByteArrayInputStream(sample));
+        Multipart expected = (Multipart) eager.getBody();
+        Assert.assertEquals(expected.getPreamble(), multipart.getPreamble());
+        Assert.assertEquals(expected.getEpilogue(), multipart.getEpilogue());
+        Assert.assertEquals(expected.getCount(), multipart.getCount());
+        for (int i = 0; i < multipart.getCount(); i++) {
+            Entity part = multipart.getBodyParts().get(i);
+            Entity expectedPart = expected.getBodyParts().get(i);
+            Assert.assertSame(message, part.getParent());
+            Assert.assertEquals(expectedPart.getMimeType(), part.getMimeType());
+            Assert.assertEquals(expectedPart.getBody().getClass().getSuperclass(),
+                    part.getBody().getClass().getSuperclass());
+        }
+    }
+
+    @Test
+    public void testDecodedBodies() throws Exception {
+        byte[] sample = ExampleMail.ONE_PART_MIME_BASE64_LATIN1_BYTES;
+        Message lazy = new DefaultMessageBuilder().parseLazyMessage(sample);
+        Message eager = new DefaultMessageBuilder().parseMessage(new ByteArrayInputStream(sample));
+        Assert.assertEquals(
+                ContentUtil.buffer(((TextBody) eager.getBody()).getReader()),
+                ContentUtil.buffer(((TextBody) lazy.getBody()).getReader()));
+    }
+
+    @Test
+    public void testEncodedEmbeddedMessage() throws Exception {
+        String embedded = "Subject: embedded\r\n\r\nembedded body\r\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(ContentUtil.toAsciiByteArray(
+            "Content-Type: message/rfc822\r\n" +
+            "Content-Transfer-Encoding: base64\r\n" +
+            "\r\n"));
+        Base64OutputStream encoder = new Base64OutputStream(out);
+        encoder.write(ContentUtil.toAsciiByteArray(embedded));
+        encoder.close();
+        Message message = new DefaultMessageBuilder().parseLazyMessage(out.toByteArray());
+        Message body = (Message) message.getBody();
+        Assert.assertEquals("embedded", body.getSubject());
+        Assert.assertEquals("embedded body\r\n",
+                ContentUtil.buffer(((TextBody) body.getBody()).getReader()));
+    }
+
+    @Test
+    public void testByteBuffer() throws Exception {
+        byte[] sample = ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES;
+        String expected = ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(
+                new DefaultMessageBuilder().parseLazyMessage(sample)));
+
+        byte[] padded = new byte[sample.length + 10];
+        System.arraycopy(sample, 0, padded, 5, sample.length);
+        ByteBuffer heap = ByteBuffer.wrap(padded, 5, sample.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(sample.length);
+        direct.put(sample).flip();
+
+        DefaultMessageBuilder builder = new DefaultMessageBuilder();
+        Assert.assertEquals(expected, ContentUtil.toAsciiString(
+                DefaultMessageWriter.asBytes(builder.parseLazyMessage(heap))));
+        Assert.assertEquals(expected, ContentUtil.toAsciiString(
+                DefaultMessageWriter.asBytes(builder.parseLazyMessage(direct))));
+    }
+
+    @Test
+    public void testModifyMaterializedMessage() throws Exception {
+        Message message = new DefaultMessageBuilder().parseLazyMessage(
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES);
+        Multipart multipart = (Multipart) message.getBody();
+        int count = multipart.getCount();
+        Entity removed = multipart.removeBodyPart(count - 1);
+        Assert.assertTrue(removed.getBody() instanceof TextBody);
+        Assert.assertTrue(multipart.getBodyParts().get(1).getBody() instanceof BinaryBody);
+        Assert.assertEquals(count - 1, multipart.getCount());
+        message.getHeader().setField(Fields.subject("changed"));
+        Assert.assertEquals("changed", message.getSubject());
+    }
+
+    @Test
+    public void testFailedLoadIsReportedOnEveryAccess() throws Exception {
+        FailingContent content = new FailingContent(ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES);
+        Message message = new DefaultMessageBuilder().parseLazyMessage(content);
+
+        content.failing = true;
+        for (int i = 0; i < 2; i++) {
+            try {
+                message.getBody();
+                Assert.fail("IllegalStateException expected");
+            } catch (IllegalStateException expected) {
+            }
+        }
+        content.failing = false;
+        Multipart multipart = (Multipart) message.getBody();
+        Assert.assertNotNull(multipart);
+
+        Entity part = multipart.getBodyParts().get(0);
+        content.failing = true;
+        for (int i = 0; i < 2; i++) {
+            try {
+                part.getHeader();
+                Assert.fail("IllegalStateException expected");
+            } catch (IllegalStateException expected) {
+            }
+        }
+        content.failing = false;
+        Assert.assertNotNull(part.getHeader());
+        Message eager = new DefaultMessageBuilder().parseMessage(
+                new ByteArrayInputStream(ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES));
+        Assert.assertEquals(
+                ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(eager)),
+                ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(message)));
+    }
+
+    private static final class FailingContent implements RandomAccessContent {
+
+        private final byte[] bytes;
+        boolean failing;
+
+        FailingContent(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        public long length() {
+            return bytes.length;
+        }
+
+        public InputStream getInputStream(long offset, long length) throws IOException {
+            if (failing) {
+                throw new IOException("simulated failure");
+            }
+            return new ByteArrayInputStream(bytes, (int) offset, (int) length);
+        }
+
+    }
+
+}
@@ -0,0 +1,145 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.james.mime4j.ExampleMail;
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.dom.MessageBuilder;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageBuilderPoolTest {
+
+    private static final byte[][] SAMPLES = {
+        ExampleMail.MIME_MULTIPART_EMBEDDED_MESSAGES_BYTES,
+        ExampleMail.RFC822_SIMPLE_BYTES,
+        ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES };
+
+    @Test
+    public void testOneBuilderPerThread() throws Exception {
+        final MessageBuilderPool pool = new MessageBuilderPool();
+        final MessageBuilder builder = pool.get();
+        Assert.assertSame(builder, pool.get());
+
+        final MessageBuilder[] other = new MessageBuilder[1];
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                other[0] = pool.get();
+            }
+        };
+        thread.start();
+        thread.join();
+        Assert.assertNotNull(other[0]);
+        Assert.assertNotSame(builder, other[0]);
+
+        pool.remove();
+        Assert.assertNotSame(builder, pool.get());
+    }
+
+    @Test
+    public void testReusedBuilder() throws Exception {
+        String[] expected = new String[SAMPLES.length];
+        for (int i = 0; i < SAMPLES.length; i++) {
+            expected[i] = render(new DefaultMessageBuilder().parseMessage(
+                    new ByteArrayInputStream(SAMPLES[i])));
+        }
+        MessageBuilderPool pool = new MessageBuilderPool();
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < SAMPLES.length; i++) {
+                Message message = pool.parseMessage(new ByteArrayInputStream(SAMPLES[i]));
+                Assert.assertEquals(expected[i], render(message));
+            }
+        }
+    }
+
+    @Test
+    public void testNestedParse() throws Exception {
+        final DefaultMessageBuilder builder = new DefaultMessageBuilder();
+        builder.setReuseParser(true);
+        final Message[] nested = new Message[1];
+        builder.setBodyFactory(new BasicBodyFactory() {
+            @Override
+            public BinaryBody binaryBody(InputStream is) throws IOException {
+                if (nested[0] == null) {
+                    nested[0] = builder.parseMessage(
+                            new ByteArrayInputStream(ExampleMail.RFC822_SIMPLE_BYTES));
+                }
+                return super.binaryBody(is);
+            }
+        });
+        byte[] sample = ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES;
+        Message message = builder.parseMessage(new ByteArrayInputStream(sample));
+
+        Assert.assertNotNull(nested[0]);
+        Assert.assertEquals(render(new DefaultMessageBuilder().parseMessage(
+                new ByteArrayInputStream(ExampleMail.RFC822_SIMPLE_BYTES))), render(nested[0]));
+        Assert.assertEquals(render(new DefaultMessageBuilder().parseMessage(
+                new ByteArrayInputStream(sample))), render(message));
+    }
+
+    @Test
+    public void testSharedBuilder() throws Exception {
+        final String[] expected = new String[SAMPLES.length];
+        for (int i = 0; i < SAMPLES.length; i++) {
+            expected[i] = render(new DefaultMessageBuilder().parseMessage(
+                    new ByteArrayInputStream(SAMPLES[i])));
+        }
+        final DefaultMessageBuilder builder = new DefaultMessageBuilder();
+        final Throwable[] failures = new Throwable[4];
+        Thread[] threads = new Thread[failures.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int n = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int round = 0; round < 50; round++) {
+                            int i = (n + round) % SAMPLES.length;
+                            Message message = builder.parseMessage(
+                                    new ByteArrayInputStream(SAMPLES[i]));
+                            Assert.assertEquals(expected[i], render(message));
+                        }
+                    } catch (Throwable ex) {
+                        failures[n] = ex;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            if (failures[t] != null) {
+                throw new AssertionError(failures[t]);
+            }
+        }
+    }
+
+    private static String render(Message message) throws IOException {
+        return ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(message));
+    }
+
+}
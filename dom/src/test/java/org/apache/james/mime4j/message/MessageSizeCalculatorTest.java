@@ -0,0 +1,144 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import org.apache.james.mime4j.Charsets;
+import org.apache.james.mime4j.ExampleMail;
+import org.apache.james.mime4j.codec.Base64OutputStream;
+import org.apache.james.mime4j.dom.Entity;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.dom.Multipart;
+import org.apache.james.mime4j.field.Fields;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MessageSizeCalculatorTest {
+
+    @Test
+    public void testSizeOfParsedMessages() throws Exception {
+        byte[][] samples = { ExampleMail.RFC822_SIMPLE_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_NOPREAMBLE_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_PREAMBLE_EPILOGUE_BYTES,
+                createEncodedMessage() };
+        MessageSizeCalculator calculator = new MessageSizeCalculator();
+        for (byte[] sample : samples) {
+            Message message = parse(sample);
+            long expected = DefaultMessageWriter.asBytes(message).length;
+            Assert.assertEquals(expected, calculator.getMessageSize(message));
+            // cached
+            Assert.assertEquals(expected, calculator.getMessageSize(message));
+        }
+    }
+
+    @Test
+    public void testSizeOfBuiltMessage() throws Exception {
+        Message message = Message.Builder.of()
+                .setBody("this is the body", Charsets.UTF_8)
+                .setFrom("sender@localhost")
+                .setTo("receiver@localhost")
+                .setSubject("A subject that is long enough to be folded when the message "
+                        + "is written out, because it exceeds the line length")
+                .build();
+        Assert.assertEquals(DefaultMessageWriter.asBytes(message).length,
+                new MessageSizeCalculator().getMessageSize(message));
+    }
+
+    @Test
+    public void testBase64Size() throws Exception {
+        for (int length = 0; length < 500; length++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Base64OutputStream encoder = new Base64OutputStream(out);
+            encoder.write(new byte[length]);
+            encoder.close();
+            Assert.assertEquals(out.size(), MessageSizeCalculator.getBase64Size(length));
+        }
+    }
+
+    @Test
+    public void testCacheInvalidatedByHeaderChange() throws Exception {
+        Message message = parse(ExampleMail.RFC822_SIMPLE_BYTES);
+        MessageSizeCalculator calculator = new MessageSizeCalculator();
+        long before = calculator.getMessageSize(message);
+
+        message.getHeader().addField(Fields.subject("changed"));
+        long after = calculator.getMessageSize(message);
+        Assert.assertTrue(after > before);
+        Assert.assertEquals(DefaultMessageWriter.asBytes(message).length, after);
+    }
+
+    @Test
+    public void testCacheInvalidatedByNestedChange() throws Exception {
+        Message message = parse(ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_PREAMBLE_EPILOGUE_BYTES);
+        MessageSizeCalculator calculator = new MessageSizeCalculator();
+        calculator.getMessageSize(message);
+
+        Multipart multipart = (Multipart) message.getBody();
+        Entity part = multipart.getBodyParts().get(0);
+        part.getHeader().setField(Fields.subject("a part subject"));
+        Assert.assertEquals(DefaultMessageWriter.asBytes(message).length,
+                calculator.getMessageSize(message));
+
+        multipart.setEpilogue("a different epilogue");
+        Assert.assertEquals(DefaultMessageWriter.asBytes(message).length,
+                calculator.getMessageSize(message));
+
+        multipart.removeBodyPart(0);
+        Assert.assertEquals(DefaultMessageWriter.asBytes(message).length,
+                calculator.getMessageSize(message));
+    }
+
+    private static Message parse(byte[] octets) throws Exception {
+        return new DefaultMessageBuilder().parseMessage(new ByteArrayInputStream(octets));
+    }
+
+    private static byte[] createEncodedMessage() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Content-Type: multipart/mixed; boundary=\"inner\"\r\n");
+        sb.append("\r\n");
+        sb.append("--inner\r\n");
+        sb.append("Content-Type: application/octet-stream\r\n");
+        sb.append("Content-Transfer-Encoding: base64\r\n");
+        sb.append("\r\n");
+        for (int i = 0; i < 10; i++) {
+            sb.append("QUJDREVGR0hJSktMTU5PUFFSU1RVVldYWVphYmNkZWZnaGlqa2xtbm9wcXJzdHV2d3h5\r\n");
+        }
+        sb.append("QUI=\r\n");
+        sb.append("--inner\r\n");
+        sb.append("Content-Type: text/plain; charset=ISO-8859-1\r\n");
+        sb.append("Content-Transfer-Encoding: quoted-printable\r\n");
+        sb.append("\r\n");
+        sb.append("caf=E9 =3D long line long line long line long line long line long line lon=\r\n");
+        sb.append("g line\r\n");
+        sb.append("trailing space =20\r\n");
+        sb.append("--inner\r\n");
+        sb.append("Content-Type: message/rfc822\r\n");
+        sb.append("\r\n");
+        sb.append("Subject: embedded\r\n");
+        sb.append("\r\n");
+        sb.append("embedded body\r\n");
+        sb.append("--inner--\r\n");
+        return sb.toString().getBytes("US-ASCII");
+    }
+
+}
@@ -0,0 +1,152 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.message;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.james.mime4j.ExampleMail;
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.dom.Multipart;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelMessageWriterTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testOutputMatchesDefaultWriter() throws Exception {
+        byte[][] samples = { ExampleMail.RFC822_SIMPLE_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES,
+                ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_PREAMBLE_EPILOGUE_BYTES,
+                createNestedMessage() };
+        ParallelMessageWriter writer = new ParallelMessageWriter(executor);
+        for (byte[] sample : samples) {
+            Message message = parse(sample);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writer.writeMessage(message, out);
+            Assert.assertArrayEquals(DefaultMessageWriter.asBytes(message), out.toByteArray());
+        }
+    }
+
+    @Test
+    public void testFailingBodyPart() throws Exception {
+        Message message = parse(ExampleMail.MULTIPART_WITH_BINARY_ATTACHMENTS_BYTES);
+        Multipart multipart = (Multipart) message.getBody();
+        BodyPart failing = new BodyPart();
+        failing.setHeader(new HeaderImpl());
+        failing.setBody(new BinaryBody() {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("broken");
+            }
+        });
+        multipart.addBodyPart(failing);
+
+        try {
+            new ParallelMessageWriter(executor).writeMessage(message, new ByteArrayOutputStream());
+            Assert.fail("IOException should have been thrown");
+        } catch (IOException expected) {
+            Assert.assertEquals("broken", expected.getMessage());
+        }
+    }
+
+    @Test
+    public void testWriteOnExecutorThread() throws Exception {
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            final Message message = parse(createNestedMessage());
+            final ParallelMessageWriter writer = new ParallelMessageWriter(single);
+            Future<byte[]> result = single.submit(new Callable<byte[]>() {
+                public byte[] call() throws Exception {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    writer.writeMessage(message, out);
+                    return out.toByteArray();
+                }
+            });
+            Assert.assertArrayEquals(DefaultMessageWriter.asBytes(message),
+                    result.get(10, TimeUnit.SECONDS));
+        } finally {
+            single.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectingExecutor() throws Exception {
+        Executor rejecting = new Executor() {
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+        Message message = parse(createNestedMessage());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ParallelMessageWriter(rejecting).writeMessage(message, out);
+        Assert.assertArrayEquals(DefaultMessageWriter.asBytes(message), out.toByteArray());
+    }
+
+    private static Message parse(byte[] octets) throws Exception {
+        return new DefaultMessageBuilder().parseMessage(new ByteArrayInputStream(octets));
+    }
+
+    private static byte[] createNestedMessage() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Content-Type: multipart/mixed; boundary=\"outer\"\r\n");
+        sb.append("\r\n");
+        for (int i = 0; i < 3; i++) {
+            sb.append("--outer\r\n");
+            sb.append("Content-Type: multipart/alternative; boundary=\"inner\"\r\n");
+            sb.append("\r\n");
+            for (int j = 0; j < 3; j++) {
+                sb.append("--inner\r\n");
+                sb.append("Content-Type: application/octet-stream\r\n");
+                sb.append("Content-Transfer-Encoding: base64\r\n");
+                sb.append("\r\n");
+                sb.append("QUJDREVGR0hJSktMTU5PUFFSU1RVVldYWVphYmNkZWZnaGlqa2xtbm9wcXJzdHV2d3h5\r\n");
+            }
+            sb.append("--inner--\r\n");
+        }
+        sb.append("--outer--\r\n");
+        return sb.toString().getBytes("US-ASCII");
+    }
+
+}
@@ -20,9 +20,12 @@ package org.apache.james.mime4j.utils.search;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.james.mime4j.MimeException;
+import org.apache.james.mime4j.stream.BodyDescriptor;
+import org.apache.james.mime4j.stream.EntityFilter;
 import org.apache.james.mime4j.stream.EntityState;
 import org.apache.james.mime4j.stream.MimeConfig;
 import org.apache.james.mime4j.stream.MimeTokenStream;
+import org.apache.james.mime4j.util.MimeUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -149,6 +152,9 @@ public class MessageMatcher {
             MimeConfig config = MimeConfig.custom().setMaxLineLen(-1).setMaxHeaderLen(-1).build();
 
             MimeTokenStream parser = new MimeTokenStream(config);
+            if (!contentTypes.isEmpty() && !includeHeaders) {
+                parser.setEntityFilter(new ContentTypeFilter(contentTypes));
+            }
             parser.parse(input);
             while (parser.next() != EntityState.T_END_OF_STREAM) {
                 final EntityState state = parser.getState();
@@ -192,6 +198,25 @@ public class MessageMatcher {
         return false;
     }
 
+    /**
+     * Skips the bodies of leaf entities whose content is not searched.
+     */
+    private static class ContentTypeFilter implements EntityFilter {
+
+        private final List<String> contentTypes;
+
+        ContentTypeFilter(List<String> contentTypes) {
+            this.contentTypes = contentTypes;
+        }
+
+        public boolean accept(BodyDescriptor descriptor) {
+            String mimeType = descriptor.getMimeType();
+            return contentTypes.contains(mimeType)
+                || MimeUtil.isMultipart(mimeType)
+                || MimeUtil.isMessage(mimeType);
+        }
+    }
+
     private boolean checkHeader(final CharBuffer buffer, MimeTokenStream parser) throws IOException {
         final String value = parser.getField().getBody();
         final StringReader reader = new StringReader(value);
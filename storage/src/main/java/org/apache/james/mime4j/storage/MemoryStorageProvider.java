@@ -63,7 +63,7 @@ public class MemoryStorageProvider extends AbstractStorageProvider {
         }
     }
 
-    static final class MemoryStorage implements Storage {
+    static final class MemoryStorage implements RandomAccessStorage {
         private byte[] data;
         private final int count;
 
@@ -79,6 +79,18 @@ public class MemoryStorageProvider extends AbstractStorageProvider {
             return new ByteArrayInputStream(data, 0, count);
         }
 
+        public InputStream getInputStream(long offset, long length)
+                throws IOException {
+            if (offset < 0 || length < 0)
+                throw new IllegalArgumentException();
+            if (data == null)
+                throw new IllegalStateException("storage has been deleted");
+
+            int from = (int) Math.min(offset, count);
+            int n = (int) Math.min(length, count - from);
+            return new ByteArrayInputStream(data, from, n);
+        }
+
         public void delete() {
             data = null;
         }
@@ -0,0 +1,109 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.storage;
+
+import java.io.IOException;
+
+import org.apache.james.mime4j.stream.MimeMetrics;
+
+/**
+ * A {@link StorageProvider} that reports the bytes written to another
+ * <code>StorageProvider</code> (the back-end) and, if timing is enabled, the
+ * time spent writing them to {@link MimeMetrics}.
+ * <p>
+ * Example usage:
+ *
+ * <pre>
+ * MimeMetrics metrics = new CountingMimeMetrics(true);
+ * StorageProvider tempStore = new TempFileStorageProvider();
+ * StorageProvider provider = new MeteredStorageProvider(tempStore, metrics);
+ * DefaultStorageProvider.setInstance(provider);
+ * </pre>
+ */
+public class MeteredStorageProvider extends AbstractStorageProvider {
+
+    private final StorageProvider backend;
+    private final MimeMetrics metrics;
+
+    /**
+     * Creates a new <code>MeteredStorageProvider</code> for the given
+     * back-end and metrics.
+     *
+     * @param backend
+     *            used to store the data.
+     * @param metrics
+     *            receives the number of bytes stored and the time spent
+     *            storing them.
+     */
+    public MeteredStorageProvider(StorageProvider backend, MimeMetrics metrics) {
+        if (backend == null || metrics == null)
+            throw new IllegalArgumentException();
+
+        this.backend = backend;
+        this.metrics = metrics;
+    }
+
+    public StorageOutputStream createStorageOutputStream() throws IOException {
+        long start = metrics.isTimingEnabled() ? System.nanoTime() : 0;
+        StorageOutputStream out = backend.createStorageOutputStream();
+        if (metrics.isTimingEnabled())
+            metrics.time(MimeMetrics.Phase.STORE, System.nanoTime() - start);
+
+        return new MeteredStorageOutputStream(out);
+    }
+
+    private final class MeteredStorageOutputStream extends StorageOutputStream {
+
+        private final StorageOutputStream out;
+
+        public MeteredStorageOutputStream(StorageOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            out.close();
+        }
+
+        @Override
+        protected void write0(byte[] buffer, int offset, int length)
+                throws IOException {
+            long start = metrics.isTimingEnabled() ? System.nanoTime() : 0;
+            out.write(buffer, offset, length);
+            if (metrics.isTimingEnabled())
+                metrics.time(MimeMetrics.Phase.STORE, System.nanoTime() - start);
+
+            metrics.count(MimeMetrics.Counter.BYTES_STORED, length);
+        }
+
+        @Override
+        protected Storage toStorage0() throws IOException {
+            long start = metrics.isTimingEnabled() ? System.nanoTime() : 0;
+            Storage storage = out.toStorage();
+            if (metrics.isTimingEnabled())
+                metrics.time(MimeMetrics.Phase.STORE, System.nanoTime() - start);
+
+            return storage;
+        }
+
+    }
+
+}
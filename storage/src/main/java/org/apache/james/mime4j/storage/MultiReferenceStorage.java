@@ -21,6 +21,7 @@ package org.apache.james.mime4j.storage;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
@@ -41,11 +42,15 @@ import java.io.InputStream;
  * {@link #MultiReferenceStorage(Storage)} may lead to miscounting and premature
  * deletion</li>
  * </ul>
+ * <p>
+ * The reference counter is maintained without locking, so bodies sharing this
+ * storage may be copied and disposed of concurrently by multiple threads.
+ * </p>
  */
-public class MultiReferenceStorage implements Storage {
+public class MultiReferenceStorage implements RandomAccessStorage {
 
     private final Storage storage;
-    private int referenceCounter;
+    private final AtomicInteger referenceCounter;
 
     /**
      * Creates a new <code>MultiReferenceStorage</code> instance for the given
@@ -62,7 +67,7 @@ public class MultiReferenceStorage implements Storage {
             throw new IllegalArgumentException();
 
         this.storage = storage;
-        this.referenceCounter = 1; // caller holds first reference
+        this.referenceCounter = new AtomicInteger(1); // caller holds first reference
     }
 
     /**
@@ -103,29 +108,53 @@ public class MultiReferenceStorage implements Storage {
     }
 
     /**
-     * Synchronized increment of reference count.
+     * Returns an input stream for a range of the inner <code>Storage</code>
+     * object. If the inner storage is not a {@link RandomAccessStorage} the
+     * bytes preceding the range are skipped.
+     *
+     * @param offset
+     *            the offset of the first byte to read.
+     * @param length
+     *            the maximum number of bytes to read.
+     * @return an input stream.
+     */
+    public InputStream getInputStream(long offset, long length)
+            throws IOException {
+        return StorageUtil.getInputStream(storage, offset, length);
+    }
+
+    /**
+     * Lock-free increment of reference count.
      *
      * @throws IllegalStateException
      *             when counter is already zero
      */
-    private synchronized void incrementCounter() {
-        if (referenceCounter == 0)
-            throw new IllegalStateException("storage has been deleted");
+    private void incrementCounter() {
+        for (;;) {
+            int current = referenceCounter.get();
+            if (current == 0)
+                throw new IllegalStateException("storage has been deleted");
 
-        referenceCounter++;
+            if (referenceCounter.compareAndSet(current, current + 1))
+                return;
+        }
     }
 
     /**
-     * Synchronized decrement of reference count.
+     * Lock-free decrement of reference count.
      *
      * @return true when counter has reached zero, false otherwise
      * @throws IllegalStateException
      *             when counter is already zero
      */
-    private synchronized boolean decrementCounter() {
-        if (referenceCounter == 0)
-            throw new IllegalStateException("storage has been deleted");
+    private boolean decrementCounter() {
+        for (;;) {
+            int current = referenceCounter.get();
+            if (current == 0)
+                throw new IllegalStateException("storage has been deleted");
 
-        return --referenceCounter == 0;
+            if (referenceCounter.compareAndSet(current, current - 1))
+                return current == 1;
+        }
     }
 }
@@ -0,0 +1,65 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A {@link Storage} that is able to read an arbitrary range of the stored data
+ * without having to read and discard the bytes that precede it. This is an
+ * optional capability; callers should test for it with
+ * <code>instanceof</code>.
+ * <p>
+ * Example usage (serving a partial fetch):
+ *
+ * <pre>
+ * if (storage instanceof RandomAccessStorage) {
+ *     in = ((RandomAccessStorage) storage).getInputStream(1000, 500);
+ * }
+ * </pre>
+ */
+public interface RandomAccessStorage extends Storage {
+
+    /**
+     * Returns an <code>InputStream</code> that can be used to read at most
+     * <code>length</code> bytes of the stored data, starting at the given
+     * offset. The returned stream reaches end of stream early if the stored
+     * data ends before <code>offset + length</code>; if <code>offset</code>
+     * lies beyond the end of the stored data the stream is empty.
+     * <p>
+     * The same buffering rules as for {@link Storage#getInputStream()}
+     * apply.
+     *
+     * @param offset
+     *            the offset of the first byte to read.
+     * @param length
+     *            the maximum number of bytes to read.
+     * @return an <code>InputStream</code> for reading the requested range.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * @throws IllegalArgumentException
+     *             if <code>offset</code> or <code>length</code> is negative.
+     * @throws IllegalStateException
+     *             if this <code>Storage</code> instance has been deleted.
+     */
+    InputStream getInputStream(long offset, long length) throws IOException;
+
+}
@@ -31,12 +31,23 @@ import org.apache.james.mime4j.util.ContentUtil;
  * Binary body backed by a
  * {@link org.apache.james.mime4j.storage.Storage}
  */
-class StorageBinaryBody extends BinaryBody {
+class StorageBinaryBody extends BinaryBody implements StorageBody {
 
     private MultiReferenceStorage storage;
+    private final StorageMetadata metadata;
 
     public StorageBinaryBody(final MultiReferenceStorage storage) {
+        this(storage, null);
+    }
+
+    public StorageBinaryBody(final MultiReferenceStorage storage,
+            final StorageMetadata metadata) {
         this.storage = storage;
+        this.metadata = metadata;
+    }
+
+    public StorageMetadata getMetadata() {
+        return metadata;
     }
 
     @Override
@@ -57,7 +68,7 @@ class StorageBinaryBody extends BinaryBody {
     @Override
     public StorageBinaryBody copy() {
         storage.addReference();
-        return new StorageBinaryBody(storage);
+        return new StorageBinaryBody(storage, metadata);
     }
 
     /**
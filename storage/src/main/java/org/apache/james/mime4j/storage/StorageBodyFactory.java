@@ -22,6 +22,8 @@ package org.apache.james.mime4j.storage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import org.apache.james.mime4j.Charsets;
 import org.apache.james.mime4j.codec.DecodeMonitor;
@@ -31,16 +33,27 @@ import org.apache.james.mime4j.dom.SingleBody;
 import org.apache.james.mime4j.dom.TextBody;
 import org.apache.james.mime4j.message.BodyFactory;
 import org.apache.james.mime4j.util.CharsetUtil;
+import org.apache.james.mime4j.util.ContentUtil;
 
 /**
  * Factory for creating message bodies.
+ * <p>
+ * Bodies created from an input stream implement {@link StorageBody}. If line
+ * counting or digests are requested on construction of this factory, the
+ * size, line count and digests of their content are computed while it is
+ * stored (see {@link StorageMetadata}). Otherwise the content is stored by
+ * {@link StorageProvider#store(InputStream)} and bodies have no metadata.
  */
 public class StorageBodyFactory implements BodyFactory {
 
     private static final Charset FALLBACK_CHARSET = Charsets.DEFAULT_CHARSET;
 
+    private static final String[] NO_DIGESTS = new String[0];
+
     private final StorageProvider storageProvider;
     private final DecodeMonitor monitor;
+    private final boolean countLines;
+    private final String[] digestAlgorithms;
 
     /**
      * Creates a new <code>BodyFactory</code> instance that uses the default
@@ -61,10 +74,64 @@ public class StorageBodyFactory implements BodyFactory {
     public StorageBodyFactory(
             final StorageProvider storageProvider,
             final DecodeMonitor monitor) {
+        this(storageProvider, monitor, false, NO_DIGESTS);
+    }
+
+    /**
+     * Creates a new <code>BodyFactory</code> instance that uses the given
+     * storage provider for creating message bodies from input streams and
+     * computes digests of the stored content with the given algorithms.
+     *
+     * @param storageProvider
+     *            a storage provider or <code>null</code> to use the default
+     *            one.
+     * @param digestAlgorithms
+     *            names of digest algorithms such as "MD5" or "SHA-256".
+     * @throws IllegalArgumentException
+     *             if one of the digest algorithms is not available.
+     */
+    public StorageBodyFactory(
+            final StorageProvider storageProvider,
+            final DecodeMonitor monitor,
+            final String... digestAlgorithms) {
+        this(storageProvider, monitor, false, digestAlgorithms);
+    }
+
+    /**
+     * Creates a new <code>BodyFactory</code> instance that uses the given
+     * storage provider for creating message bodies from input streams and
+     * optionally counts the lines and computes digests of the stored content.
+     *
+     * @param storageProvider
+     *            a storage provider or <code>null</code> to use the default
+     *            one.
+     * @param countLines
+     *            whether to count the lines of the stored content.
+     * @param digestAlgorithms
+     *            names of digest algorithms such as "MD5" or "SHA-256".
+     * @throws IllegalArgumentException
+     *             if one of the digest algorithms is not available.
+     */
+    public StorageBodyFactory(
+            final StorageProvider storageProvider,
+            final DecodeMonitor monitor,
+            final boolean countLines,
+            final String... digestAlgorithms) {
         this.storageProvider =
             storageProvider != null ? storageProvider : DefaultStorageProvider.getInstance();
         this.monitor =
             monitor != null ? monitor : DecodeMonitor.SILENT;
+        this.countLines = countLines;
+        this.digestAlgorithms =
+            digestAlgorithms != null ? digestAlgorithms.clone() : NO_DIGESTS;
+
+        for (String algorithm : this.digestAlgorithms) {
+            try {
+                MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
     }
 
     /**
@@ -91,8 +158,9 @@ public class StorageBodyFactory implements BodyFactory {
         if (is == null)
             throw new IllegalArgumentException();
 
-        Storage storage = storageProvider.store(is);
-        return new StorageBinaryBody(new MultiReferenceStorage(storage));
+        StoredContent content = store(is);
+        return new StorageBinaryBody(new MultiReferenceStorage(content.storage),
+                content.metadata);
     }
 
     /**
@@ -136,8 +204,9 @@ public class StorageBodyFactory implements BodyFactory {
         if (is == null)
             throw new IllegalArgumentException();
 
-        Storage storage = storageProvider.store(is);
-        return new StorageTextBody(new MultiReferenceStorage(storage), Charsets.DEFAULT_CHARSET);
+        StoredContent content = store(is);
+        return new StorageTextBody(new MultiReferenceStorage(content.storage),
+                Charsets.DEFAULT_CHARSET, content.metadata);
     }
 
     /**
@@ -165,9 +234,10 @@ public class StorageBodyFactory implements BodyFactory {
         if (mimeCharset == null)
             throw new IllegalArgumentException();
 
-        Storage storage = storageProvider.store(is);
+        StoredContent content = store(is);
         Charset charset = toJavaCharset(mimeCharset, false, monitor);
-        return new StorageTextBody(new MultiReferenceStorage(storage), charset);
+        return new StorageTextBody(new MultiReferenceStorage(content.storage),
+                charset, content.metadata);
     }
 
     /**
@@ -278,6 +348,41 @@ public class StorageBodyFactory implements BodyFactory {
         return new StringTextBody(text, charset);
     }
 
+    private StoredContent store(InputStream is) throws IOException {
+        if (!countLines && digestAlgorithms.length == 0) {
+            // leave storing to the provider, which may do it more efficiently
+            return new StoredContent(storageProvider.store(is), null);
+        }
+
+        StorageOutputStream out = storageProvider.createStorageOutputStream();
+        if (countLines) {
+            out.countLines();
+        }
+        try {
+            for (String algorithm : digestAlgorithms) {
+                out.addDigest(algorithm);
+            }
+        } catch (NoSuchAlgorithmException e) {
+            // algorithms have been checked by the constructor
+            throw new IllegalStateException(e);
+        }
+        ContentUtil.copy(is, out);
+        Storage storage = out.toStorage();
+        return new StoredContent(storage, out.getMetadata());
+    }
+
+    private static final class StoredContent {
+
+        final Storage storage;
+        final StorageMetadata metadata;
+
+        StoredContent(Storage storage, StorageMetadata metadata) {
+            this.storage = storage;
+            this.metadata = metadata;
+        }
+
+    }
+
     private static Charset toJavaCharset(
             final String mimeCharset,
             boolean forEncoding,
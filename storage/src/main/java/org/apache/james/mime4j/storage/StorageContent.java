@@ -0,0 +1,74 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
+import org.apache.james.mime4j.message.RandomAccessContent;
+
+/**
+ * Exposes a message held by a {@link Storage} to
+ * {@link DefaultMessageBuilder#parseLazyMessage(RandomAccessContent)}, so
+ * that parts of the message are read from the storage only when they are
+ * accessed. Ranges are read directly from {@link RandomAccessStorage}
+ * implementations; other storages are read from the start.
+ */
+public class StorageContent implements RandomAccessContent {
+
+    private final Storage storage;
+    private final long length;
+
+    /**
+     * Creates a new <code>StorageContent</code>.
+     *
+     * @param storage
+     *            storage holding the raw message.
+     * @param length
+     *            length of the stored message in bytes, e.g. as reported by
+     *            {@link StorageMetadata#getSize()}.
+     */
+    public StorageContent(final Storage storage, final long length) {
+        if (storage == null)
+            throw new IllegalArgumentException();
+        if (length < 0)
+            throw new IllegalArgumentException();
+
+        this.storage = storage;
+        this.length = length;
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public InputStream getInputStream(long offset, long length) throws IOException {
+        if (offset + length > this.length)
+            throw new IndexOutOfBoundsException();
+
+        return StorageUtil.getInputStream(storage, offset, length);
+    }
+
+}
@@ -0,0 +1,100 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.storage;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Statistics about stored data that have been computed by a
+ * {@link StorageOutputStream} while the data was written, so that they can be
+ * obtained without reading the stored data a second time.
+ * <p>
+ * Instances of this class are immutable.
+ */
+public final class StorageMetadata {
+
+    private final long size;
+    private final long lineCount;
+    private final Map<String, byte[]> digests;
+
+    StorageMetadata(long size, long lineCount, Map<String, byte[]> digests) {
+        this.size = size;
+        this.lineCount = lineCount;
+        this.digests = digests;
+    }
+
+    /**
+     * Returns the number of bytes that have been stored.
+     *
+     * @return the size of the stored data in bytes.
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of lines of the stored data. Every LF terminates a
+     * line; trailing bytes that are not terminated by a LF count as an
+     * additional line.
+     *
+     * @return the number of lines of the stored data or <code>-1</code> if
+     *         lines have not been counted.
+     */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the names of the digest algorithms for which a digest has been
+     * computed.
+     *
+     * @return an unmodifiable set of upper case algorithm names.
+     */
+    public Set<String> getDigestAlgorithms() {
+        return Collections.unmodifiableSet(digests.keySet());
+    }
+
+    /**
+     * Returns the digest of the stored data computed with the given
+     * algorithm.
+     *
+     * @param algorithm
+     *            name of the digest algorithm such as "MD5" or "SHA-256".
+     * @return the digest or <code>null</code> if no digest has been computed
+     *         for the given algorithm.
+     */
+    public byte[] getDigest(String algorithm) {
+        if (algorithm == null)
+            throw new IllegalArgumentException();
+
+        byte[] digest = digests.get(algorithm.toUpperCase(Locale.US));
+        return digest != null ? digest.clone() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "[size=" + size + ", lines=" + lineCount + ", digests="
+                + digests.keySet() + "]";
+    }
+
+}
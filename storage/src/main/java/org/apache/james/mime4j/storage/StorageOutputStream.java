@@ -21,6 +21,11 @@ package org.apache.james.mime4j.storage;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * This class implements an output stream that can be used to create a
@@ -34,13 +39,27 @@ import java.io.OutputStream;
  * necessary. Also note that {@link #toStorage()} may be invoked only once. One
  * <code>StorageOutputStream</code> can create only one <code>Storage</code>
  * instance.
+ * <p>
+ * While data is written its size is computed, along with its number of lines
+ * and any digests if requested through {@link #countLines()} and
+ * {@link #addDigest(String)}. These statistics are available from
+ * {@link #getMetadata()} once the stream has been closed.
  */
 public abstract class StorageOutputStream extends OutputStream {
 
+    private static final MessageDigest[] NO_DIGESTS = new MessageDigest[0];
+
     private byte[] singleByte;
     private boolean closed;
     private boolean usedUp;
 
+    private long size;
+    private boolean countLines;
+    private long lineCount;
+    private byte lastByte;
+    private MessageDigest[] digests = NO_DIGESTS;
+    private StorageMetadata metadata;
+
     /**
      * Sole constructor.
      */
@@ -75,6 +94,84 @@ public abstract class StorageOutputStream extends OutputStream {
         return toStorage0();
     }
 
+    /**
+     * Requests that the lines of the written data are counted. The number of
+     * lines can be obtained from the {@link StorageMetadata} returned by
+     * {@link #getMetadata()}.
+     *
+     * @throws IllegalStateException
+     *             if data has already been written to this stream or the
+     *             stream has been closed.
+     */
+    public final void countLines() {
+        if (closed || size > 0)
+            throw new IllegalStateException(
+                    "line counting has to be requested before data is written");
+
+        countLines = true;
+    }
+
+    /**
+     * Requests that a digest of the written data is computed with the given
+     * algorithm. The digest can be obtained from the {@link StorageMetadata}
+     * returned by {@link #getMetadata()}.
+     *
+     * @param algorithm
+     *            name of the digest algorithm such as "MD5" or "SHA-256".
+     * @throws NoSuchAlgorithmException
+     *             if the algorithm is not available.
+     * @throws IllegalStateException
+     *             if data has already been written to this stream or the
+     *             stream has been closed.
+     */
+    public final void addDigest(String algorithm)
+            throws NoSuchAlgorithmException {
+        if (algorithm == null)
+            throw new IllegalArgumentException();
+        if (closed || size > 0)
+            throw new IllegalStateException(
+                    "digests have to be added before data is written");
+
+        MessageDigest digest = MessageDigest.getInstance(algorithm);
+        MessageDigest[] tmp = new MessageDigest[digests.length + 1];
+        System.arraycopy(digests, 0, tmp, 0, digests.length);
+        tmp[digests.length] = digest;
+        digests = tmp;
+    }
+
+    /**
+     * Returns the statistics that have been computed for the data written to
+     * this output stream.
+     *
+     * @return a <code>StorageMetadata</code> object.
+     * @throws IllegalStateException
+     *             if this output stream has not been closed yet.
+     */
+    public final StorageMetadata getMetadata() {
+        if (!closed)
+            throw new IllegalStateException(
+                    "StorageOutputStream has not been closed");
+
+        if (metadata == null) {
+            long lines = -1;
+            if (countLines) {
+                lines = lineCount;
+                if (size > 0 && lastByte != '\n')
+                    lines++;
+            }
+
+            Map<String, byte[]> map = new HashMap<String, byte[]>();
+            for (MessageDigest digest : digests) {
+                map.put(digest.getAlgorithm().toUpperCase(Locale.US), digest
+                        .digest());
+            }
+
+            metadata = new StorageMetadata(size, lines, map);
+        }
+
+        return metadata;
+    }
+
     @Override
     public final void write(int b) throws IOException {
         if (closed)
@@ -85,6 +182,7 @@ public abstract class StorageOutputStream extends OutputStream {
 
         singleByte[0] = (byte) b;
         write0(singleByte, 0, 1);
+        update(singleByte, 0, 1);
     }
 
     @Override
@@ -99,6 +197,7 @@ public abstract class StorageOutputStream extends OutputStream {
             return;
 
         write0(buffer, 0, buffer.length);
+        update(buffer, 0, buffer.length);
     }
 
     @Override
@@ -117,6 +216,7 @@ public abstract class StorageOutputStream extends OutputStream {
             return;
 
         write0(buffer, offset, length);
+        update(buffer, offset, length);
     }
 
     /**
@@ -134,6 +234,25 @@ public abstract class StorageOutputStream extends OutputStream {
         closed = true;
     }
 
+    private void update(byte[] buffer, int offset, int length) {
+        size += length;
+
+        if (countLines) {
+            final int end = offset + length;
+            long lines = lineCount;
+            for (int i = offset; i < end; i++) {
+                if (buffer[i] == '\n')
+                    lines++;
+            }
+            lineCount = lines;
+            lastByte = buffer[end - 1];
+        }
+
+        for (MessageDigest digest : digests) {
+            digest.update(buffer, offset, length);
+        }
+    }
+
     /**
      * Has to implemented by a concrete subclass to write bytes from the given
      * byte array to this <code>StorageOutputStream</code>. This method gets
@@ -21,23 +21,43 @@ package org.apache.james.mime4j.storage;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
 
 import org.apache.james.mime4j.dom.TextBody;
+import org.apache.james.mime4j.io.Readers;
 
 /**
  * Text body backed by a {@link org.apache.james.mime4j.storage.Storage}.
+ * Only the raw bytes and the charset are kept; the content is decoded on
+ * demand and the length in characters is computed only when requested.
  */
-class StorageTextBody extends TextBody {
+class StorageTextBody extends TextBody implements StorageBody {
 
     private MultiReferenceStorage storage;
     private final Charset charset;
+    private final StorageMetadata metadata;
+    private volatile long length;
 
     public StorageTextBody(MultiReferenceStorage storage, Charset charset) {
+        this(storage, charset, null);
+    }
+
+    public StorageTextBody(MultiReferenceStorage storage, Charset charset,
+            StorageMetadata metadata) {
+        this(storage, charset, metadata, -1);
+    }
+
+    private StorageTextBody(MultiReferenceStorage storage, Charset charset,
+            StorageMetadata metadata, long length) {
         this.storage = storage;
         this.charset = charset;
+        this.metadata = metadata;
+        this.length = length;
+    }
+
+    public StorageMetadata getMetadata() {
+        return metadata;
     }
 
     @Override
@@ -47,7 +67,15 @@ class StorageTextBody extends TextBody {
 
     @Override
     public Reader getReader() throws IOException {
-        return new InputStreamReader(storage.getInputStream(), charset);
+        return Readers.create(storage.getInputStream(), charset);
+    }
+
+    @Override
+    public long length() throws IOException {
+        if (length < 0)
+            length = super.length();
+
+        return length;
     }
 
     @Override
@@ -58,7 +86,7 @@ class StorageTextBody extends TextBody {
     @Override
     public StorageTextBody copy() {
         storage.addReference();
-        return new StorageTextBody(storage, charset);
+        return new StorageTextBody(storage, charset, metadata, length);
     }
 
     /**
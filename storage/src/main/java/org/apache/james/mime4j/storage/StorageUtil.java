@@ -0,0 +1,75 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.commons.io.input.BoundedInputStream;
+
+/**
+ * Helper methods shared by the {@link Storage} implementations of this
+ * package.
+ */
+final class StorageUtil {
+
+    private StorageUtil() {
+    }
+
+    /**
+     * Returns an <code>InputStream</code> for a range of the data held by the
+     * given storage. If the storage is a {@link RandomAccessStorage} the
+     * request is delegated to it, otherwise the bytes preceding the range are
+     * read and discarded.
+     */
+    static InputStream getInputStream(Storage storage, long offset, long length)
+            throws IOException {
+        if (offset < 0 || length < 0)
+            throw new IllegalArgumentException();
+
+        if (storage instanceof RandomAccessStorage)
+            return ((RandomAccessStorage) storage).getInputStream(offset,
+                    length);
+
+        InputStream in = storage.getInputStream();
+        try {
+            skipFully(in, offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BoundedInputStream(in, length);
+    }
+
+    private static void skipFully(InputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped > 0) {
+                n -= skipped;
+            } else if (in.read() != -1) {
+                // skip() may return 0 before end of stream
+                n--;
+            } else {
+                return;
+            }
+        }
+    }
+
+}
@@ -59,6 +59,11 @@ class StringTextBody extends TextBody {
         return new StringReader(text);
     }
 
+    @Override
+    public long length() {
+        return text.length();
+    }
+
     @Override
     public void writeTo(OutputStream out) throws IOException {
         if (out == null)
@@ -31,6 +31,7 @@ import java.util.Iterator;
 import java.util.Set;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.input.BoundedInputStream;
 
 /**
  * A {@link StorageProvider} that stores the data in temporary files. The files
@@ -142,7 +143,7 @@ public class TempFileStorageProvider extends AbstractStorageProvider {
         }
     }
 
-    private static final class TempFileStorage implements Storage {
+    private static final class TempFileStorage implements RandomAccessStorage {
 
         private File file;
 
@@ -185,6 +186,25 @@ public class TempFileStorageProvider extends AbstractStorageProvider {
             return new BufferedInputStream(new FileInputStream(file));
         }
 
+        public InputStream getInputStream(long offset, long length)
+                throws IOException {
+            if (offset < 0 || length < 0)
+                throw new IllegalArgumentException();
+            if (file == null)
+                throw new IllegalStateException("storage has been deleted");
+
+            // seek directly to the requested offset instead of skipping bytes
+            FileInputStream in = new FileInputStream(file);
+            try {
+                in.getChannel().position(offset);
+            } catch (IOException e) {
+                in.close();
+                throw e;
+            }
+
+            return new BufferedInputStream(new BoundedInputStream(in, length));
+        }
+
     }
 
 }
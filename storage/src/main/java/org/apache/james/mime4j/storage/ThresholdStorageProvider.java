@@ -128,7 +128,7 @@ public class ThresholdStorageProvider extends AbstractStorageProvider {
 
     }
 
-    private static final class ThresholdStorage implements Storage {
+    private static final class ThresholdStorage implements RandomAccessStorage {
 
         private byte[] head;
         private final int headLen;
@@ -157,5 +157,27 @@ public class ThresholdStorageProvider extends AbstractStorageProvider {
             return new SequenceInputStream(headStream, tailStream);
         }
 
+        public InputStream getInputStream(long offset, long length)
+                throws IOException {
+            if (offset < 0 || length < 0)
+                throw new IllegalArgumentException();
+            if (head == null)
+                throw new IllegalStateException("storage has been deleted");
+
+            if (offset >= headLen)
+                return StorageUtil.getInputStream(tail, offset - headLen,
+                        length);
+
+            int from = (int) offset;
+            int n = (int) Math.min(length, headLen - from);
+            InputStream headStream = new ByteArrayInputStream(head, from, n);
+            if (length == n)
+                return headStream;
+
+            InputStream tailStream = StorageUtil.getInputStream(tail, 0,
+                    length - n);
+            return new SequenceInputStream(headStream, tailStream);
+        }
+
     }
 }
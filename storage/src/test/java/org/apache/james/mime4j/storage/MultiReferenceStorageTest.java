@@ -19,12 +19,14 @@
 
 package org.apache.james.mime4j.storage;
 
+import org.apache.james.mime4j.util.ContentUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
 
 public class MultiReferenceStorageTest {
 
@@ -38,6 +40,22 @@ public class MultiReferenceStorageTest {
                 .getInputStream().getClass());
     }
 
+    @Test
+    public void testGetInputStreamRangeSkipsInnerStorage() throws Exception {
+        DummyStorage storage = new DummyStorage();
+        MultiReferenceStorage multiReferenceStorage = new MultiReferenceStorage(
+                storage);
+
+        InputStream in = multiReferenceStorage.getInputStream(1, 3);
+        Assert.assertEquals("umm", new String(ContentUtil.buffer(in), "US-ASCII"));
+
+        in = multiReferenceStorage.getInputStream(3, 10);
+        Assert.assertEquals("my", new String(ContentUtil.buffer(in), "US-ASCII"));
+
+        in = multiReferenceStorage.getInputStream(10, 10);
+        Assert.assertEquals(-1, in.read());
+    }
+
     @Test
     public void testSingleReference() throws Exception {
         DummyStorage storage = new DummyStorage();
@@ -95,8 +113,44 @@ public class MultiReferenceStorageTest {
         }
     }
 
+    @Test
+    public void testConcurrentAddReferenceAndDelete() throws Exception {
+        final DummyStorage storage = new DummyStorage();
+        final MultiReferenceStorage multiReferenceStorage = new MultiReferenceStorage(
+                storage);
+
+        final int threads = 8;
+        final int iterations = 10000;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < iterations; j++) {
+                            multiReferenceStorage.addReference();
+                            multiReferenceStorage.delete();
+                        }
+                    } catch (InterruptedException ignore) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+
+        start.countDown();
+        done.await();
+
+        Assert.assertFalse(storage.deleted);
+        multiReferenceStorage.delete();
+        Assert.assertTrue(storage.deleted);
+    }
+
     private static final class DummyStorage implements Storage {
-        public boolean deleted = false;
+        public volatile boolean deleted = false;
 
         public InputStream getInputStream() throws IOException {
             if (deleted)
@@ -21,10 +21,13 @@ package org.apache.james.mime4j.storage;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
 
 import org.apache.james.mime4j.Charsets;
 import org.apache.james.mime4j.dom.SingleBody;
+import org.apache.james.mime4j.dom.TextBody;
 import org.apache.james.mime4j.message.MessageImpl;
+import org.apache.james.mime4j.util.ContentUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -50,6 +53,22 @@ public class SingleBodyCopyTest {
         copyTest(body);
     }
 
+    @Test
+    public void testStorageTextBodyLength() throws Exception {
+        Storage storage = new MemoryStorageProvider()
+                .store(new ByteArrayInputStream("gr\u00fcezi".getBytes("UTF-8")));
+        MultiReferenceStorage multiReferenceStorage = new MultiReferenceStorage(
+                storage);
+        TextBody body = new StorageTextBody(multiReferenceStorage, Charset.forName("UTF-8"));
+        Assert.assertEquals(6, body.length());
+
+        TextBody copy = (TextBody) body.copy();
+        body.dispose();
+        Assert.assertEquals(6, copy.length());
+        Assert.assertEquals("gr\u00fcezi", ContentUtil.buffer(copy.getReader()));
+        copy.dispose();
+    }
+
     @Test
     public void testCopyStringTextBody() throws Exception {
         SingleBody body = new StringTextBody("test", Charsets.US_ASCII);
@@ -0,0 +1,90 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.james.mime4j.dom.Message;
+import org.apache.james.mime4j.dom.Multipart;
+import org.apache.james.mime4j.dom.TextBody;
+import org.apache.james.mime4j.message.DefaultMessageBuilder;
+import org.apache.james.mime4j.message.DefaultMessageWriter;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StorageContentTest {
+
+    private static final byte[] MESSAGE = ContentUtil.toAsciiByteArray(
+            "Subject: stored\r\n" +
+            "Content-Type: multipart/mixed; boundary=xyz\r\n" +
+            "\r\n" +
+            "preamble\r\n" +
+            "--xyz\r\n" +
+            "Content-Type: text/plain\r\n" +
+            "\r\n" +
+            "first part\r\n" +
+            "--xyz\r\n" +
+            "Content-Type: application/octet-stream\r\n" +
+            "Content-Transfer-Encoding: base64\r\n" +
+            "\r\n" +
+            "AAECAwQ=\r\n" +
+            "--xyz--\r\n" +
+            "epilogue\r\n");
+
+    @Test
+    public void testLazyMessageFromRandomAccessStorage() throws Exception {
+        assertSameAsEager(new TempFileStorageProvider().store(new ByteArrayInputStream(MESSAGE)));
+        assertSameAsEager(new MemoryStorageProvider().store(new ByteArrayInputStream(MESSAGE)));
+    }
+
+    @Test
+    public void testLazyMessageFromSequentialStorage() throws Exception {
+        final Storage storage = new MemoryStorageProvider().store(new ByteArrayInputStream(MESSAGE));
+        assertSameAsEager(new Storage() {
+            public InputStream getInputStream() throws IOException {
+                return storage.getInputStream();
+            }
+
+            public void delete() {
+                storage.delete();
+            }
+        });
+    }
+
+    private static void assertSameAsEager(Storage storage) throws Exception {
+        Message lazy = new DefaultMessageBuilder().parseLazyMessage(
+                new StorageContent(storage, MESSAGE.length));
+        Assert.assertEquals("stored", lazy.getSubject());
+        Multipart multipart = (Multipart) lazy.getBody();
+        Assert.assertEquals("epilogue\r\n", multipart.getEpilogue());
+        Assert.assertEquals("first part", ContentUtil.buffer(
+                ((TextBody) multipart.getBodyParts().get(0).getBody()).getReader()));
+
+        Message eager = new DefaultMessageBuilder().parseMessage(new ByteArrayInputStream(MESSAGE));
+        Assert.assertEquals(
+                ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(eager)),
+                ContentUtil.toAsciiString(DefaultMessageWriter.asBytes(lazy)));
+        storage.delete();
+    }
+
+}
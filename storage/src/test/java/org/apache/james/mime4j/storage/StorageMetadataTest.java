@@ -0,0 +1,209 @@
+/****************************************************************
+ * Licensed to the Apache Software Foundation (ASF) under one   *
+ * or more contributor license agreements.  See the NOTICE file *
+ * distributed with this work for additional information        *
+ * regarding copyright ownership.  The ASF licenses this file   *
+ * to you under the Apache License, Version 2.0 (the            *
+ * "License"); you may not use this file except in compliance   *
+ * with the License.  You may obtain a copy of the License at   *
+ *                                                              *
+ *   http://www.apache.org/licenses/LICENSE-2.0                 *
+ *                                                              *
+ * Unless required by applicable law or agreed to in writing,   *
+ * software distributed under the License is distributed on an  *
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY       *
+ * KIND, either express or implied.  See the License for the    *
+ * specific language governing permissions and limitations      *
+ * under the License.                                           *
+ ****************************************************************/
+
+package org.apache.james.mime4j.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+
+import org.apache.james.mime4j.dom.BinaryBody;
+import org.apache.james.mime4j.dom.SingleBody;
+import org.apache.james.mime4j.dom.TextBody;
+import org.apache.james.mime4j.util.ContentUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StorageMetadataTest {
+
+    private static final byte[] DATA = ContentUtil
+            .toAsciiByteArray("line 1\r\nline 2\r\nline 3");
+
+    @Test
+    public void testMetadataOfStorageOutputStream() throws Exception {
+        StorageOutputStream out = new MemoryStorageProvider()
+                .createStorageOutputStream();
+        out.countLines();
+        out.addDigest("md5");
+        out.write(DATA, 0, 10);
+        out.write(DATA[10]);
+        out.write(DATA, 11, DATA.length - 11);
+        out.toStorage();
+
+        StorageMetadata metadata = out.getMetadata();
+        Assert.assertEquals(DATA.length, metadata.getSize());
+        Assert.assertEquals(3, metadata.getLineCount());
+        Assert.assertArrayEquals(MessageDigest.getInstance("MD5").digest(DATA),
+                metadata.getDigest("MD5"));
+        Assert.assertNull(metadata.getDigest("SHA-256"));
+        Assert.assertSame(metadata, out.getMetadata());
+    }
+
+    @Test
+    public void testLineCount() throws Exception {
+        Assert.assertEquals(0, lineCount(""));
+        Assert.assertEquals(1, lineCount("a"));
+        Assert.assertEquals(1, lineCount("a\r\n"));
+        Assert.assertEquals(2, lineCount("a\r\n\r\n"));
+        Assert.assertEquals(2, lineCount("a\nb"));
+    }
+
+    @Test
+    public void testMetadataNotAvailableBeforeClose() throws Exception {
+        StorageOutputStream out = new MemoryStorageProvider()
+                .createStorageOutputStream();
+        try {
+            out.getMetadata();
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testAddDigestAfterWrite() throws Exception {
+        StorageOutputStream out = new MemoryStorageProvider()
+                .createStorageOutputStream();
+        out.write(DATA);
+        try {
+            out.addDigest("MD5");
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void testBodyFactoryExposesMetadata() throws Exception {
+        StorageBodyFactory factory = new StorageBodyFactory(
+                new ThresholdStorageProvider(new TempFileStorageProvider(), 8),
+                null, true, "MD5", "SHA-256");
+
+        BinaryBody binaryBody = factory.binaryBody(new ByteArrayInputStream(
+                DATA));
+        StorageMetadata metadata = ((StorageBody) binaryBody).getMetadata();
+        Assert.assertEquals(DATA.length, metadata.getSize());
+        Assert.assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(
+                DATA), metadata.getDigest("SHA-256"));
+        Assert.assertArrayEquals(MessageDigest.getInstance("MD5").digest(DATA),
+                metadata.getDigest("MD5"));
+
+        SingleBody copy = binaryBody.copy();
+        Assert.assertSame(metadata, ((StorageBody) copy).getMetadata());
+        binaryBody.dispose();
+        copy.dispose();
+
+        TextBody textBody = factory.textBody(new ByteArrayInputStream(DATA),
+                "us-ascii");
+        metadata = ((StorageBody) textBody).getMetadata();
+        Assert.assertEquals(DATA.length, metadata.getSize());
+        Assert.assertEquals(3, metadata.getLineCount());
+        textBody.dispose();
+    }
+
+    @Test
+    public void testBodyFromStorageHasNoMetadata() throws Exception {
+        StorageBodyFactory factory = new StorageBodyFactory();
+        Storage storage = new MemoryStorageProvider()
+                .store(new ByteArrayInputStream(DATA));
+
+        BinaryBody body = factory.binaryBody(storage);
+        Assert.assertNull(((StorageBody) body).getMetadata());
+    }
+
+    @Test
+    public void testLinesNotCountedUnlessRequested() throws Exception {
+        StorageOutputStream out = new MemoryStorageProvider()
+                .createStorageOutputStream();
+        out.write(DATA);
+        out.close();
+        Assert.assertEquals(DATA.length, out.getMetadata().getSize());
+        Assert.assertEquals(-1, out.getMetadata().getLineCount());
+    }
+
+    @Test
+    public void testFailedWriteIsNotCounted() throws Exception {
+        StorageOutputStream out = new StorageOutputStream() {
+            @Override
+            protected void write0(byte[] buffer, int offset, int length)
+                    throws IOException {
+                throw new IOException("broken");
+            }
+
+            @Override
+            protected Storage toStorage0() throws IOException {
+                throw new UnsupportedOperationException();
+            }
+        };
+        out.countLines();
+        try {
+            out.write(DATA);
+            Assert.fail();
+        } catch (IOException expected) {
+        }
+        out.close();
+        Assert.assertEquals(0, out.getMetadata().getSize());
+        Assert.assertEquals(0, out.getMetadata().getLineCount());
+    }
+
+    @Test
+    public void testBodyFactoryWithoutMetadataUsesProviderStore() throws Exception {
+        final int[] stored = new int[1];
+        final StorageProvider backend = new MemoryStorageProvider();
+        StorageProvider provider = new StorageProvider() {
+            public Storage store(InputStream in) throws IOException {
+                stored[0]++;
+                return backend.store(in);
+            }
+
+            public StorageOutputStream createStorageOutputStream() throws IOException {
+                return backend.createStorageOutputStream();
+            }
+        };
+        StorageBodyFactory factory = new StorageBodyFactory(provider, null);
+        BinaryBody body = factory.binaryBody(new ByteArrayInputStream(DATA));
+        TextBody text = factory.textBody(new ByteArrayInputStream(DATA), "us-ascii");
+        Assert.assertEquals(2, stored[0]);
+        Assert.assertNull(((StorageBody) body).getMetadata());
+        Assert.assertNull(((StorageBody) text).getMetadata());
+        Assert.assertArrayEquals(DATA, ContentUtil.buffer(body.getInputStream()));
+        body.dispose();
+        text.dispose();
+
+        factory = new StorageBodyFactory(provider, null, true);
+        body = factory.binaryBody(new ByteArrayInputStream(DATA));
+        Assert.assertEquals(2, stored[0]);
+        Assert.assertEquals(3, ((StorageBody) body).getMetadata().getLineCount());
+        body.dispose();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDigestAlgorithm() throws Exception {
+        new StorageBodyFactory(null, null, "NO-SUCH-DIGEST");
+    }
+
+    private long lineCount(String s) throws Exception {
+        StorageOutputStream out = new MemoryStorageProvider()
+                .createStorageOutputStream();
+        out.countLines();
+        out.write(ContentUtil.toAsciiByteArray(s));
+        out.close();
+        return out.getMetadata().getLineCount();
+    }
+
+}
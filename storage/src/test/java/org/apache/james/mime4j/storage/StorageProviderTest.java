@@ -22,7 +22,10 @@ package org.apache.james.mime4j.storage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
+import org.apache.james.mime4j.stream.CountingMimeMetrics;
+import org.apache.james.mime4j.stream.MimeMetrics;
 import org.apache.james.mime4j.util.ContentUtil;
 import org.junit.Assert;
 import org.junit.Test;
@@ -38,6 +41,7 @@ public class StorageProviderTest {
         testReadWrite(provider, 1024);
         testReadWrite(provider, 20000);
 
+        testRange(provider, 20000);
         testDelete(provider);
     }
 
@@ -50,6 +54,7 @@ public class StorageProviderTest {
         testReadWrite(provider, 1024);
         testReadWrite(provider, 20000);
 
+        testRange(provider, 20000);
         testDelete(provider);
     }
 
@@ -68,6 +73,24 @@ public class StorageProviderTest {
         testReadWrite(provider, 2 * threshold);
         testReadWrite(provider, 10 * threshold);
 
+        testRange(provider, threshold - 1);
+        testRange(provider, 10 * threshold);
+        testDelete(provider);
+    }
+
+    @Test
+    public void testMeteredStorageProvider() throws Exception {
+        CountingMimeMetrics metrics = new CountingMimeMetrics(true);
+        StorageProvider provider = new MeteredStorageProvider(
+                new MemoryStorageProvider(), metrics);
+
+        testReadWrite(provider, 0);
+        testReadWrite(provider, 1);
+        testReadWrite(provider, 20000);
+        Assert.assertEquals(2 * 20001, metrics.getCount(MimeMetrics.Counter.BYTES_STORED));
+        Assert.assertTrue(metrics.getNanos(MimeMetrics.Phase.STORE) > 0);
+
+        testRange(provider, 20000);
         testDelete(provider);
     }
 
@@ -131,6 +154,49 @@ public class StorageProviderTest {
         return data;
     }
 
+    private void testRange(StorageProvider provider, int size)
+            throws IOException {
+        byte[] data = createData(size);
+        RandomAccessStorage storage = (RandomAccessStorage) provider
+                .store(new ByteArrayInputStream(data));
+
+        verifyRange(data, storage, 0, size);
+        verifyRange(data, storage, 0, 1);
+        verifyRange(data, storage, 1, size - 2);
+        verifyRange(data, storage, size / 2, 100);
+        verifyRange(data, storage, size - 1, 100);
+        verifyRange(data, storage, size, 100);
+        verifyRange(data, storage, size + 100, 100);
+        verifyRange(data, storage, 10, 0);
+
+        try {
+            storage.getInputStream(-1, 10);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        storage.delete();
+        try {
+            storage.getInputStream(0, 10);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private void verifyRange(byte[] data, RandomAccessStorage storage,
+            int offset, int length) throws IOException {
+        int from = Math.min(offset, data.length);
+        int to = Math.min(offset + length, data.length);
+        byte[] expected = new byte[to - from];
+        System.arraycopy(data, from, expected, 0, expected.length);
+
+        InputStream in = storage.getInputStream(offset, length);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ContentUtil.copy(in, baos);
+        in.close();
+        verifyData(expected, baos.toByteArray());
+    }
+
     private void testDelete(StorageProvider provider) throws IOException {
         Storage storage = provider.store(new ByteArrayInputStream(
                 createData(512)));